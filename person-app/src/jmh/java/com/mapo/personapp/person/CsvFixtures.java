@@ -0,0 +1,91 @@
+package com.mapo.personapp.person;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+final class CsvFixtures {
+    private static final String[] SAMPLE_LINES = {
+            "Müller, Hans, 67742 Lauterecken, 1",
+            "Petersen, Peter, 18439 Stralsund, 2",
+            "Andersson, Anders, 32132 Schweden - ☀, 2",
+            "Bart, Bertram, ",
+            "12313 Wasweißich, 1 ",
+            "Gerber, Gerda, 76535 Woanders, 3 ",
+    };
+
+    private static final String[] LAST_NAMES = {
+            "Müller", "Petersen", "Johnson", "Millenium", "Fujitsu", "Andersson", "Bart", "Gerber", "Klaussen",
+            "Schmidt", "Weiß", "Groß", "Øberg", "Nguyễn", "Łukasz", "Dvořák", "O'Brien", "van der Berg",
+    };
+    private static final String[] FIRST_NAMES = {
+            "Hans", "Peter", "Johnny", "Milly", "Jonas", "Tastatur", "Anders", "Bertram", "Gerda", "Klaus",
+            "Jürgen", "Zoë", "Ærin", "Søren", "José", "Ünal", "Chloé", "Małgorzata",
+    };
+    private static final String[] CITIES = {
+            "Lauterecken", "Stralsund", "made up", "made up too", "Hansstadt", "Japan", "Schweden - ☀",
+            "Wasweißich", "Woanders", "Hierach", "München", "Köln", "Frankfurt am Main", "Zürich 🏔", "東京",
+    };
+
+    private CsvFixtures() {
+    }
+
+    /**
+     * Writes a temporary CSV file of {@code records} generated records with the quirks of sample-input.csv:
+     * CRLF line endings, records broken after the first name, trailing spaces, non-ASCII names and cities,
+     * color codes outside the color map, blank lines and no newline after the last record.
+     */
+    static Path writeSynthetic(int records, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        Path file = Files.createTempFile("persons", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < records; i++) {
+                int quirk = random.nextInt(100);
+                writer.write(pick(random, LAST_NAMES));
+                writer.write(", ");
+                writer.write(pick(random, FIRST_NAMES));
+                writer.write(", ");
+                if (quirk < 5) {
+                    // the record continues on the next physical line
+                    writer.write("\r\n");
+                }
+                writer.write(String.format("%05d", random.nextInt(100000)));
+                writer.write(' ');
+                writer.write(pick(random, CITIES));
+                writer.write(", ");
+                writer.write(Integer.toString(quirk < 8 ? 8 + random.nextInt(2) : 1 + random.nextInt(7)));
+                if (quirk >= 90) {
+                    writer.write(' ');
+                }
+                if (i < records - 1) {
+                    writer.write("\r\n");
+                    if (quirk == 99) {
+                        writer.write("\r\n");
+                    }
+                }
+            }
+        }
+        return file;
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * Writes a temporary CSV file of {@code lines} physical lines cycling through sample records.
+     */
+    static Path write(int lines) throws IOException {
+        Path file = Files.createTempFile("persons", ".csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < lines; i++) {
+                writer.write(SAMPLE_LINES[i % SAMPLE_LINES.length]);
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,67 @@
+package com.mapo.personapp.person;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvLoadBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    // sample: physical lines cycling through sample records, synthetic: generated records (CsvFixtures.writeSynthetic)
+    @Param({"sample", "synthetic"})
+    public String data;
+
+    private Path file;
+    private Path snapshotFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = data.equals("synthetic") ? CsvFixtures.writeSynthetic(rows, 42) : CsvFixtures.write(rows);
+        snapshotFile = Files.createTempFile("persons", ".bin");
+        CsvSnapshot snapshot = CsvSnapshot.of(ParallelCsvLoader.load(file, 1),
+                Files.readAttributes(file, BasicFileAttributes.class));
+        CsvSnapshotFile.write(snapshotFile, file, snapshot);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(snapshotFile);
+    }
+
+    @Benchmark
+    public List<Person> legacyLoader() throws IOException {
+        return LegacyCsvLoader.load(file);
+    }
+
+    @Benchmark
+    public List<Person> streamingParser() throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return CsvPersonParser.parse(in);
+        }
+    }
+
+    @Benchmark
+    public List<Person> parallelLoader() throws IOException {
+        return ParallelCsvLoader.load(file, Runtime.getRuntime().availableProcessors()).persons();
+    }
+
+    // checksums the CSV and copies the snapshot onto the heap, what a start with person.csv.snapshot does
+    @Benchmark
+    public List<Person> snapshotFile() throws IOException {
+        return CsvSnapshotFile.read(snapshotFile, file).persons();
+    }
+}
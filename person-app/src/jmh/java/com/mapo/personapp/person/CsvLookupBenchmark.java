@@ -0,0 +1,119 @@
+package com.mapo.personapp.person;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class CsvLookupBenchmark {
+    private static final int LOOKUPS = 1024;
+    private static final PersonQuery SEARCH = new PersonQuery(null, "1", null, "Petersen", "grün");
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"CSV", "CSV_COLUMNAR", "CSV_OFF_HEAP"})
+    public PersonDataProviderType store;
+
+    private PersonDataProvider provider;
+    private long[] ids;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path file = CsvFixtures.write(rows);
+        try {
+            provider = switch (store) {
+                case CSV_COLUMNAR -> new ColumnarPersonDataProvider(new FileSystemResource(file));
+                case CSV_OFF_HEAP -> new OffHeapPersonDataProvider(new FileSystemResource(file), "");
+                default -> new CsvPersonDataProvider(new FileSystemResource(file));
+            };
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        int size = provider.all().size();
+        ids = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            ids[i] = random.nextInt(size) + 1L;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (provider instanceof OffHeapPersonDataProvider offHeap) {
+            offHeap.close();
+        }
+    }
+
+    private long nextId() {
+        return ids[next++ & (LOOKUPS - 1)];
+    }
+
+    @Benchmark
+    public Person findById() {
+        return provider.findById(nextId());
+    }
+
+    @Benchmark
+    public Person linearScan() {
+        Long id = nextId();
+        List<Person> persons = provider.all();
+        return persons.stream().filter(item -> item.getId().equals(id)).findFirst().orElseThrow();
+    }
+
+    @Benchmark
+    public List<Person> findByColor() {
+        return provider.findByColor("violett");
+    }
+
+    @Benchmark
+    public List<Person> colorScan() {
+        return provider.all().stream().filter(item -> item.getColor().equals("violett")).toList();
+    }
+
+    // bitmaps of the search index for CSV, a scan of every person for the other stores
+    @Benchmark
+    public List<Person> search() {
+        return provider.search(SEARCH, null, 100);
+    }
+
+    // the name index for CSV, a scan of every person for the other stores
+    @Benchmark
+    public List<Person> searchNamesPrefix() {
+        return provider.searchNames("Pet", NameMatch.PREFIX, 10);
+    }
+
+    @Benchmark
+    public List<Person> searchNamesFuzzy() {
+        return provider.searchNames("Peterson", NameMatch.FUZZY, 10);
+    }
+
+    // the counters of the snapshot for CSV, a scan of every person for the other stores
+    @Benchmark
+    public Map<String, Long> countByColor() {
+        return provider.countBy(PersonGrouping.COLOR);
+    }
+
+    // what dashboards did before: one lookup per color, materialising every person to count them
+    @Benchmark
+    public long countByColorLookups() {
+        long count = 0;
+        for (String color : CsvPersonParser.COLOR_MAP.values()) {
+            count += provider.findByColor(color).size();
+        }
+        return count;
+    }
+}
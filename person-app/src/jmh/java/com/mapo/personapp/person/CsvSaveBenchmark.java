@@ -0,0 +1,46 @@
+package com.mapo.personapp.person;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent saves against the CSV provider, which is what concurrent POST /persons requests boil down to.
+ * Run with e.g. {@code -t 1,8,32} to compare how well group commit amortises the fsync.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class CsvSaveBenchmark {
+    @Param({"NONE", "GROUP", "EACH"})
+    public CsvFsyncPolicy fsync;
+
+    private Path file;
+    private CsvPersonDataProvider provider;
+
+    @Setup
+    public void setUp() throws IOException {
+        // a multiple of the six sample lines, so the file ends with a complete record
+        file = CsvFixtures.write(996);
+        provider = new CsvPersonDataProvider(new FileSystemResource(file), false, fsync);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        provider.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Person save() {
+        return provider.save(new Person("Hans", "Müller", "67742", "Lauterecken", "blau"));
+    }
+}
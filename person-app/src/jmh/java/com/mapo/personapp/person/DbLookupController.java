@@ -0,0 +1,23 @@
+package com.mapo.personapp.person;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * GET /persons/{id} served by the database provider itself, without the cache and metrics decorators
+ * that PersonService reads through, so every request waits for a query. Only part of the benchmark classpath.
+ */
+@RestController
+class DbLookupController {
+    private final DbPersonDataProvider provider;
+
+    DbLookupController(DbPersonDataProvider provider) {
+        this.provider = provider;
+    }
+
+    @GetMapping("/bench/db/persons/{id}")
+    Person byId(@PathVariable Long id) {
+        return this.provider.findById(id);
+    }
+}
@@ -0,0 +1,110 @@
+package com.mapo.personapp.person;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads of DbPersonDataProvider through JPA against the embedded database, on a table filled with
+ * the records of {@link CsvFixtures#writeSynthetic}. {@code indexed=false} drops the indexes of the
+ * migrations to show what they are worth.
+ * <p>
+ * For numbers that matter, run it against a local Postgres (src/main/resources/docker), whose schema is
+ * cleaned and migrated for every trial:
+ * {@code gradle jmhRun -PjmhArgs='DbQueryBenchmark -p rows=10000000 -jvmArgsAppend -Dperson.bench.datasource.url=jdbc:postgresql://localhost:5432/mydb'}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DbQueryBenchmark {
+    private static final int LOOKUPS = 1024;
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    private ConfigurableApplicationContext context;
+    private DbPersonDataProvider provider;
+    private long[] ids;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        context = EmbeddedDatabase.start("query" + rows, "--spring.flyway.clean-disabled=false");
+        provider = context.getBean(DbPersonDataProvider.class);
+        Flyway flyway = context.getBean(Flyway.class);
+        flyway.clean();
+        flyway.migrate();
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        if (!indexed) {
+            jdbc.execute("drop index person_color_code_id_idx");
+            jdbc.execute("drop index person_zipcode_idx");
+        }
+        Path file = CsvFixtures.writeSynthetic(rows, 42);
+        try (InputStream in = Files.newInputStream(file)) {
+            // COPY on Postgres; an empty table gets the ids 1 to rows
+            context.getBean(CsvImportService.class).importCsv(in);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        if (EmbeddedDatabase.isExternal()) {
+            jdbc.execute("analyze person");
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        ids = new long[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            ids[i] = 1 + random.nextInt(rows);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private long nextId() {
+        return ids[next++ & (LOOKUPS - 1)];
+    }
+
+    @Benchmark
+    public Person findById() {
+        return provider.findById(nextId());
+    }
+
+    @Benchmark
+    public List<Person> findByColor() {
+        return provider.findByColor("violett");
+    }
+
+    @Benchmark
+    public List<Person> page() {
+        return provider.page(nextId(), 100);
+    }
+
+    @Benchmark
+    public List<Person> pageByColor() {
+        return provider.pageByColor("violett", nextId(), 100);
+    }
+
+    // group by in the database, the cost a cache miss of CachingPersonDataProvider pays
+    @Benchmark
+    public Map<String, Long> countByCity() {
+        return provider.countBy(PersonGrouping.CITY);
+    }
+}
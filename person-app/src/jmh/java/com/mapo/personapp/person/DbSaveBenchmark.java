@@ -0,0 +1,64 @@
+package com.mapo.personapp.person;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DbSaveBenchmark {
+
+    @Param({"1000"})
+    public int persons;
+
+    private ConfigurableApplicationContext context;
+    private DbPersonDataProvider provider;
+    private PersonRepository repository;
+
+    @Setup
+    public void setUp() {
+        context = EmbeddedDatabase.start("save");
+        provider = context.getBean(DbPersonDataProvider.class);
+        repository = context.getBean(PersonRepository.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @TearDown(Level.Iteration)
+    public void clear() {
+        repository.deleteAllInBatch();
+    }
+
+    private List<Person> newPersons() {
+        List<Person> result = new ArrayList<>(persons);
+        for (int i = 0; i < persons; i++) {
+            result.add(new Person("First" + i, "Last" + i, "12345", "Berlin", "blau"));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public int perRowSave() {
+        int saved = 0;
+        for (Person person : newPersons()) {
+            provider.save(person);
+            saved++;
+        }
+        return saved;
+    }
+
+    @Benchmark
+    public List<Person> batchSaveAll() {
+        return provider.saveAll(newPersons());
+    }
+}
@@ -0,0 +1,77 @@
+package com.mapo.personapp.person;
+
+import com.mapo.personapp.PersonAppApplication;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts the application against an in-memory H2 database in PostgreSQL mode, standing in for Postgres.
+ * With {@code -Dperson.bench.datasource.url=jdbc:postgresql://...} (and {@code .username}/{@code .password})
+ * it uses that database instead.
+ */
+final class EmbeddedDatabase {
+
+    private EmbeddedDatabase() {
+    }
+
+    private static final String EXTERNAL_URL = System.getProperty("person.bench.datasource.url");
+
+    static ConfigurableApplicationContext start(String name, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(extraArgs));
+        args.add("--spring.main.web-application-type=none");
+        return builder().run(args(name, args.toArray(String[]::new)));
+    }
+
+    static boolean isExternal() {
+        return EXTERNAL_URL != null;
+    }
+
+    /**
+     * Starts the web application on a random port, with {@code latency} added to every statement the database runs.
+     */
+    static ConfigurableApplicationContext startServer(String name, Duration latency, String... extraArgs) {
+        return builder()
+                .initializers(context -> context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+                    @Override
+                    public Object postProcessAfterInitialization(Object bean, String beanName) {
+                        return bean instanceof DataSource dataSource && !(bean instanceof LatencyInjectingDataSource)
+                                ? new LatencyInjectingDataSource(dataSource, latency)
+                                : bean;
+                    }
+                }))
+                .run(args(name, extraArgs));
+    }
+
+    private static SpringApplicationBuilder builder() {
+        return new SpringApplicationBuilder(PersonAppApplication.class);
+    }
+
+    // passed as arguments so they take precedence over application.properties
+    private static String[] args(String name, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.devtools.restart.enabled=false",
+                "--spring.jpa.show-sql=false"));
+        if (isExternal()) {
+            args.addAll(List.of(
+                    "--spring.datasource.url=" + EXTERNAL_URL,
+                    "--spring.datasource.username=" + System.getProperty("person.bench.datasource.username", "postgres"),
+                    "--spring.datasource.password=" + System.getProperty("person.bench.datasource.password", "postgres")));
+        } else {
+            args.addAll(List.of(
+                    "--spring.datasource.driverClassName=org.h2.Driver",
+                    "--spring.datasource.url=jdbc:h2:mem:" + name + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                    "--spring.datasource.username=sa",
+                    "--spring.datasource.password=",
+                    "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"));
+        }
+        args.addAll(List.of(extraArgs));
+        return args.toArray(String[]::new);
+    }
+}
@@ -0,0 +1,58 @@
+package com.mapo.personapp.person;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Makes the in-memory database behave like a remote one: every statement execution first sleeps for a fixed
+ * latency while holding its connection, as a network round trip would.
+ */
+final class LatencyInjectingDataSource extends DelegatingDataSource {
+    private final Duration latency;
+
+    LatencyInjectingDataSource(DataSource target, Duration latency) {
+        super(target);
+        this.latency = latency;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return (Connection) proxy(Connection.class, super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return (Connection) proxy(Connection.class, super.getConnection(username, password));
+    }
+
+    private Object proxy(Class<?> type, Object target) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+                (proxy, method, args) -> invoke(target, method, args));
+    }
+
+    private Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        if (method.getName().startsWith("execute")) {
+            Thread.sleep(this.latency);
+        }
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+        // statements created by the connection need the latency as well
+        Class<?> returnType = method.getReturnType();
+        if (result != null && Statement.class.isAssignableFrom(returnType)) {
+            return proxy(returnType, result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,58 @@
+package com.mapo.personapp.person;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The regex/split based loader that CsvPersonDataProvider used before CsvPersonParser, kept as a baseline.
+ */
+class LegacyCsvLoader {
+
+    static List<Person> load(Path file) throws IOException {
+        List<Person> persons = new ArrayList<>();
+        Long lineNumber = 1L;
+
+        try (BufferedReader br = new BufferedReader(new FileReader(file.toFile()))) {
+            String line;
+            StringBuilder currentLine = new StringBuilder();
+
+            while ((line = br.readLine()) != null) {
+                currentLine.append(line.trim());
+
+                if (currentLine.toString().matches(".*,\\s*\\d+\\s*$")) {
+                    String[] parts = currentLine.toString().split(",");
+
+                    if (parts.length >= 4) {
+                        String lastName = parts[0].trim();
+                        String firstName = parts[1].trim();
+                        String address = parts[2].trim();
+                        int colorCode = Integer.parseInt(parts[3].trim());
+
+                        String zipcode = "";
+                        String city = "";
+                        String[] addressParts = address.split("\\s+", 2);
+                        if (addressParts.length >= 1) {
+                            zipcode = addressParts[0];
+                        }
+                        if (addressParts.length >= 2) {
+                            city = addressParts[1];
+                        }
+
+                        String color = CsvPersonParser.COLOR_MAP.getOrDefault(colorCode, "unknown");
+                        Person person = new Person(firstName, lastName, zipcode, city, color);
+                        person.setId(lineNumber);
+                        persons.add(person);
+                        lineNumber++;
+                    }
+
+                    currentLine = new StringBuilder();
+                }
+            }
+        }
+        return persons;
+    }
+}
@@ -0,0 +1,114 @@
+package com.mapo.personapp.person;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing {@code all()} as the JSON array of GET /persons and as the NDJSON stream of the export,
+ * configured like PersonController, and of answering repeated polls of GET /persons through PersonResponseCache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"1000", "100000"})
+    public int rows;
+
+    private CsvPersonDataProvider provider;
+    private ObjectMapper objectMapper;
+    private ObjectWriter ndjsonWriter;
+    private ByteArrayOutputStream out;
+    private PersonService personService;
+    private PersonResponseCache responseCache;
+    private String etag;
+
+    @Setup
+    public void setUp() throws IOException {
+        Path file = CsvFixtures.writeSynthetic(rows, 42);
+        try {
+            provider = new CsvPersonDataProvider(new FileSystemResource(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        objectMapper = JsonMapper.builder().build();
+        ndjsonWriter = objectMapper.writerFor(Person.class)
+                .withRootValueSeparator("")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        out = new ByteArrayOutputStream(rows * 128);
+        PersonDataProviderFactory factory = new PersonDataProviderFactory(List.of(provider),
+                new PersonCacheProperties(false, 0, Duration.ZERO), new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class));
+        personService = new PersonService(factory, PersonDataProviderType.CSV);
+        responseCache = new PersonResponseCache(personService, objectMapper, 256L * 1024 * 1024);
+        etag = responseCache.respond("all", personService::all, request(null, null)).getHeaders().getETag();
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch, String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/persons");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+
+    @Benchmark
+    public int jsonArray() {
+        out.reset();
+        objectMapper.writeValue(out, provider.all());
+        return out.size();
+    }
+
+    @Benchmark
+    public int ndjson() {
+        out.reset();
+        try (JsonGenerator generator = ndjsonWriter.createGenerator(out)) {
+            provider.forEach(person -> {
+                ndjsonWriter.writeValue(generator, person);
+                generator.writeRaw('\n');
+            });
+        }
+        return out.size();
+    }
+
+    @Benchmark
+    public byte[] singlePerson() {
+        List<Person> persons = provider.all();
+        return objectMapper.writeValueAsBytes(persons.get(persons.size() / 2));
+    }
+
+    // a poll with the ETag of the current version: 304 without loading anything
+    @Benchmark
+    public Object notModified() {
+        return responseCache.respond("all", personService::all, request(etag, null));
+    }
+
+    // a poll without a matching ETag: the gzip body cached for the current version
+    @Benchmark
+    public Object cachedGzipBody() {
+        return responseCache.respond("all", personService::all, request(null, "gzip"));
+    }
+}
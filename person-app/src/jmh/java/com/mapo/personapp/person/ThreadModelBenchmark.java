@@ -0,0 +1,80 @@
+package com.mapo.personapp.person;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of GET requests that each run one query against a database with injected latency, comparing
+ * Tomcat's platform worker threads with virtual threads. The platform pool is capped below the client
+ * concurrency and the connection pool, as it would be on a real box, so requests queue for a worker there
+ * while virtual threads are only limited by the connection pool.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(128)
+public class ThreadModelBenchmark {
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    @Param({"20"})
+    public int dbLatencyMillis;
+
+    @Param({"32"})
+    public int platformThreads;
+
+    @Param({"64"})
+    public int poolSize;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private String baseUrl;
+    private long[] ids;
+
+    @Setup
+    public void setUp() {
+        context = EmbeddedDatabase.startServer("threads", Duration.ofMillis(dbLatencyMillis),
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--server.tomcat.threads.max=" + platformThreads,
+                "--person.db.pool-size=" + poolSize);
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/bench/db/persons/";
+
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            persons.add(new Person("First" + i, "Last" + i, "12345", "Berlin", "blau"));
+        }
+        ids = context.getBean(DbPersonDataProvider.class).saveAll(persons).stream().mapToLong(Person::getId).toArray();
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+        context.close();
+    }
+
+    @Benchmark
+    public int findById() throws IOException, InterruptedException {
+        long id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + id)).build();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET " + request.uri() + " returned " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
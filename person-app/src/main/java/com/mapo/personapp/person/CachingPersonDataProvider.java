@@ -0,0 +1,163 @@
+package com.mapo.personapp.person;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Read-through cache for findById, findByColor and countBy in front of another provider. Caffeine evicts by
+ * W-TinyLFU once the size bound is reached and expires entries after the configured TTL. Saves evict
+ * the saved ids, every cached color list, since a save may move a person between colors, and every count.
+ * <p>
+ * Each entry remembers the {@link PersonDataProvider#version()} of the delegate from before it was loaded
+ * and is loaded again once the delegate reports another one, so changes the delegate sees without a save
+ * through this cache, like a reload of the CSV file, are not hidden until the TTL. Delegates without a
+ * version, such as the database, still rely on the TTL for changes made by other writers.
+ * Cached lists and counts are unmodifiable, since every caller gets the same instance.
+ */
+public class CachingPersonDataProvider implements PersonDataProvider {
+    private final PersonDataProvider delegate;
+    private final Cache<Long, Versioned<Person>> byId;
+    private final Cache<String, Versioned<List<Person>>> byColor;
+    private final Cache<PersonGrouping, Versioned<Map<String, Long>>> counts;
+
+    private record Versioned<T>(OptionalLong version, T value) {
+    }
+
+    public CachingPersonDataProvider(PersonDataProvider delegate, PersonCacheProperties properties) {
+        this.delegate = delegate;
+        this.byId = Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+        this.byColor = Caffeine.newBuilder()
+                .maximumWeight(properties.maximumSize())
+                .<String, Versioned<List<Person>>>weigher((color, persons) -> Math.max(1, persons.value().size()))
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+        this.counts = Caffeine.newBuilder()
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+    }
+
+    void bindTo(MeterRegistry registry) {
+        Tags tags = Tags.of("provider", delegate.getProviderType().name());
+        CaffeineCacheMetrics.monitor(registry, byId, "persons.byId", tags);
+        CaffeineCacheMetrics.monitor(registry, byColor, "persons.byColor", tags);
+        CaffeineCacheMetrics.monitor(registry, counts, "persons.counts", tags);
+    }
+
+    CacheStats idStats() {
+        return byId.stats();
+    }
+
+    CacheStats colorStats() {
+        return byColor.stats();
+    }
+
+    @Override
+    public List<Person> all() {
+        return delegate.all();
+    }
+
+    @Override
+    public Person save(Person person) {
+        Person saved = delegate.save(person);
+        evict(person);
+        evict(saved);
+        byColor.invalidateAll();
+        counts.invalidateAll();
+        return saved;
+    }
+
+    @Override
+    public List<Person> saveAll(List<Person> persons) {
+        List<Person> saved = delegate.saveAll(persons);
+        persons.forEach(this::evict);
+        saved.forEach(this::evict);
+        byColor.invalidateAll();
+        counts.invalidateAll();
+        return saved;
+    }
+
+    private void evict(Person person) {
+        if (person != null && person.getId() != null) {
+            byId.invalidate(person.getId());
+        }
+    }
+
+    // the version is read before loading, so an entry is never younger than its data
+    private <K, V> V get(Cache<K, Versioned<V>> cache, K key, Function<K, V> loader) {
+        OptionalLong version = delegate.version();
+        Versioned<V> entry = cache.get(key, k -> new Versioned<>(version, loader.apply(k)));
+        if (!entry.version().equals(version)) {
+            entry = new Versioned<>(version, loader.apply(key));
+            cache.put(key, entry);
+        }
+        return entry.value();
+    }
+
+    @Override
+    public Person findById(Long id) {
+        // PersonNotFoundException propagates and nothing is cached for unknown ids
+        return get(byId, id, delegate::findById);
+    }
+
+    @Override
+    public List<Person> findByColor(String color) {
+        return get(byColor, color, c -> Collections.unmodifiableList(delegate.findByColor(c)));
+    }
+
+    @Override
+    public Map<String, Long> countBy(PersonGrouping grouping) {
+        return get(counts, grouping, g -> Collections.unmodifiableMap(delegate.countBy(g)));
+    }
+
+    @Override
+    public List<Person> page(Long afterId, int limit) {
+        return delegate.page(afterId, limit);
+    }
+
+    @Override
+    public List<Person> pageByColor(String color, Long afterId, int limit) {
+        return delegate.pageByColor(color, afterId, limit);
+    }
+
+    @Override
+    public List<Person> search(PersonQuery query, Long afterId, int limit) {
+        return delegate.search(query, afterId, limit);
+    }
+
+    @Override
+    public List<Person> searchNames(String text, NameMatch match, int limit) {
+        return delegate.searchNames(text, match, limit);
+    }
+
+    @Override
+    public OptionalLong version() {
+        return delegate.version();
+    }
+
+    @Override
+    public void forEach(Consumer<Person> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public PersonDataProviderType getProviderType() {
+        return delegate.getProviderType();
+    }
+}
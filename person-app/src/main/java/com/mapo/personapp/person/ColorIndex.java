@@ -0,0 +1,88 @@
+package com.mapo.personapp.person;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Inverted index from CSV color code to the positions of the persons with that color.
+ * Code 0 collects every color that is not in {@link CsvPersonParser#COLOR_MAP}.
+ * <p>
+ * Instances never change once built. {@link #append} shares the posting arrays with the index it
+ * extends and only writes past that index's counts, so readers of the older index are unaffected.
+ * Appending to the same index twice is therefore not allowed.
+ */
+class ColorIndex {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int[][] postings;
+    private final int[] counts;
+
+    private ColorIndex(int[][] postings, int[] counts) {
+        this.postings = postings;
+        this.counts = counts;
+    }
+
+    static ColorIndex of(List<Person> persons) {
+        int[][] postings = new int[CsvPersonParser.COLOR_MAP.size() + 1][];
+        for (int code = 0; code < postings.length; code++) {
+            postings[code] = new int[INITIAL_CAPACITY];
+        }
+        return new ColorIndex(postings, new int[postings.length]).append(persons, 0);
+    }
+
+    /**
+     * Returns an index that additionally holds {@code persons}, the first of them at {@code firstPosition}.
+     */
+    ColorIndex append(List<Person> persons, int firstPosition) {
+        int[][] nextPostings = postings.clone();
+        int[] nextCounts = counts.clone();
+        for (int i = 0; i < persons.size(); i++) {
+            int code = CsvPersonParser.colorCode(persons.get(i).getColor());
+            if (nextCounts[code] == nextPostings[code].length) {
+                nextPostings[code] = Arrays.copyOf(nextPostings[code], nextCounts[code] * 2);
+            }
+            nextPostings[code][nextCounts[code]++] = firstPosition + i;
+        }
+        return new ColorIndex(nextPostings, nextCounts);
+    }
+
+    /**
+     * Materialises the persons with the given color, in position order. Cost is proportional to the hit count.
+     */
+    List<Person> lookup(String color, Person[] byPosition) {
+        int code = CsvPersonParser.colorCode(color);
+        if (code == 0 && !CsvPersonParser.UNKNOWN_COLOR.equals(color)) {
+            return List.of();
+        }
+        int[] positions = postings[code];
+        int count = counts[code];
+        List<Person> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(byPosition[positions[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Materialises at most {@code limit} persons with the given color whose position is at least {@code fromPosition}.
+     */
+    List<Person> page(String color, int fromPosition, int limit, Person[] byPosition) {
+        int code = CsvPersonParser.colorCode(color);
+        if (code == 0 && !CsvPersonParser.UNKNOWN_COLOR.equals(color)) {
+            return List.of();
+        }
+        int[] positions = postings[code];
+        int count = counts[code];
+        int start = Arrays.binarySearch(positions, 0, count, fromPosition);
+        if (start < 0) {
+            start = -start - 1;
+        }
+        int end = (int) Math.min((long) start + limit, count);
+        List<Person> result = new ArrayList<>(end - start);
+        for (int i = start; i < end; i++) {
+            result.add(byPosition[positions[i]]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,149 @@
+package com.mapo.personapp.person;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+
+/**
+ * Serves the CSV file from a {@link ColumnarPersonStore}, for data sets whose {@link Person} objects would
+ * not fit the heap comfortably. Records are streamed from the parser straight into the columns, and
+ * persons are only created for the rows a request returns. Read-only.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "person.provider", havingValue = "CSV_COLUMNAR")
+public class ColumnarPersonDataProvider implements PersonDataProvider {
+    private final ColumnarPersonStore store;
+
+    public ColumnarPersonDataProvider(@Value("${person.csv.file:classpath:sample-input.csv}") Resource resource) {
+        ColumnarPersonStore.Builder builder = new ColumnarPersonStore.Builder();
+        try (InputStream in = resource.getInputStream()) {
+            CsvPersonParser.parse(in, builder::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load " + resource, e);
+        }
+        this.store = builder.build();
+        log.info("Loaded {} persons into columns", store.size());
+    }
+
+    @Override
+    public List<Person> all() {
+        return new AbstractList<>() {
+            @Override
+            public Person get(int index) {
+                return store.person(index);
+            }
+
+            @Override
+            public int size() {
+                return store.size();
+            }
+        };
+    }
+
+    @Override
+    public Person save(Person person) {
+        throw new ReadOnlyProviderException("The columnar CSV provider is read-only, persons cannot be saved with it");
+    }
+
+    @Override
+    public List<Person> saveAll(List<Person> persons) {
+        throw new ReadOnlyProviderException("The columnar CSV provider is read-only, persons cannot be saved with it");
+    }
+
+    // read-only, the persons loaded at startup never change
+    @Override
+    public OptionalLong version() {
+        return OptionalLong.of(0);
+    }
+
+    @Override
+    public Person findById(Long id) {
+        int row = id == null ? -1 : store.rowOf(id);
+        if (row < 0) {
+            throw new PersonNotFoundException(id);
+        }
+        return store.person(row);
+    }
+
+    @Override
+    public List<Person> findByColor(String color) {
+        int colorCode = CsvPersonParser.colorCode(color);
+        if (colorCode == 0 && !CsvPersonParser.UNKNOWN_COLOR.equals(color)) {
+            return List.of();
+        }
+        int[] rows = new int[16];
+        int count = 0;
+        for (int row = 0; row < store.size(); row++) {
+            if (store.colorCode(row) == colorCode) {
+                if (count == rows.length) {
+                    rows = Arrays.copyOf(rows, count * 2);
+                }
+                rows[count++] = row;
+            }
+        }
+        int[] hits = rows;
+        int hitCount = count;
+        return new AbstractList<>() {
+            @Override
+            public Person get(int index) {
+                return store.person(hits[index]);
+            }
+
+            @Override
+            public int size() {
+                return hitCount;
+            }
+        };
+    }
+
+    @Override
+    public List<Person> page(Long afterId, int limit) {
+        int from = store.rowAfter(afterId == null ? 0L : afterId);
+        int to = (int) Math.min((long) from + limit, store.size());
+        List<Person> result = new ArrayList<>(Math.max(to - from, 0));
+        for (int row = from; row < to; row++) {
+            result.add(store.person(row));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Person> pageByColor(String color, Long afterId, int limit) {
+        int colorCode = CsvPersonParser.colorCode(color);
+        if (colorCode == 0 && !CsvPersonParser.UNKNOWN_COLOR.equals(color)) {
+            return List.of();
+        }
+        List<Person> result = new ArrayList<>();
+        for (int row = store.rowAfter(afterId == null ? 0L : afterId); row < store.size() && result.size() < limit; row++) {
+            if (store.colorCode(row) == colorCode) {
+                result.add(store.person(row));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void forEach(Consumer<Person> action) {
+        for (int row = 0; row < store.size(); row++) {
+            action.accept(store.person(row));
+        }
+    }
+
+    @Override
+    public PersonDataProviderType getProviderType() {
+        return PersonDataProviderType.CSV_COLUMNAR;
+    }
+}
@@ -0,0 +1,178 @@
+package com.mapo.personapp.person;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persons kept column-wise in primitive arrays instead of one {@link Person} object per row.
+ * <p>
+ * Row i holds its id in {@code ids[i]}, its color as the CSV code in {@code colors[i]} and its zipcode
+ * packed into {@code zipcodes[i]}; names and cities are positions in per-column dictionaries, so each
+ * distinct value is stored once. A row costs 25 bytes plus its share of the dictionaries, and a
+ * {@link Person} is only created when a row is handed out. Ids must be added in ascending order.
+ */
+final class ColumnarPersonStore {
+    // digits-only zipcodes of up to 8 digits are stored as value << 4 | length, the others as -(dictionary position + 1)
+    private static final int MAX_PACKED_ZIPCODE_LENGTH = 8;
+    private static final int NULL_ZIPCODE = Integer.MIN_VALUE;
+
+    private final int size;
+    private final long[] ids;
+    private final byte[] colors;
+    private final int[] zipcodes;
+    private final int[] firstnames;
+    private final int[] lastnames;
+    private final int[] cities;
+    private final String[] zipcodeValues;
+    private final String[] nameValues;
+    private final String[] cityValues;
+
+    private ColumnarPersonStore(Builder builder) {
+        this.size = builder.size;
+        this.ids = Arrays.copyOf(builder.ids, builder.size);
+        this.colors = Arrays.copyOf(builder.colors, builder.size);
+        this.zipcodes = Arrays.copyOf(builder.zipcodes, builder.size);
+        this.firstnames = Arrays.copyOf(builder.firstnames, builder.size);
+        this.lastnames = Arrays.copyOf(builder.lastnames, builder.size);
+        this.cities = Arrays.copyOf(builder.cities, builder.size);
+        this.zipcodeValues = builder.zipcodeValues.values();
+        this.nameValues = builder.nameValues.values();
+        this.cityValues = builder.cityValues.values();
+    }
+
+    int size() {
+        return size;
+    }
+
+    long id(int row) {
+        return ids[row];
+    }
+
+    int colorCode(int row) {
+        return colors[row];
+    }
+
+    /**
+     * Row of the person with the given id, or -1.
+     */
+    int rowOf(long id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        return row < 0 ? -1 : row;
+    }
+
+    /**
+     * First row whose id is greater than {@code id}.
+     */
+    int rowAfter(long id) {
+        int row = Arrays.binarySearch(ids, 0, size, id);
+        return row < 0 ? -row - 1 : row + 1;
+    }
+
+    Person person(int row) {
+        Person person = new Person(value(nameValues, firstnames[row]), value(nameValues, lastnames[row]),
+                zipcode(zipcodes[row]), value(cityValues, cities[row]),
+                CsvPersonParser.COLOR_MAP.getOrDefault((int) colors[row], CsvPersonParser.UNKNOWN_COLOR));
+        person.setId(ids[row]);
+        return person;
+    }
+
+    private static String value(String[] values, int position) {
+        return position < 0 ? null : values[position];
+    }
+
+    private String zipcode(int packed) {
+        if (packed == NULL_ZIPCODE) {
+            return null;
+        }
+        if (packed < 0) {
+            return zipcodeValues[-packed - 1];
+        }
+        int length = packed & 0xF;
+        String digits = Integer.toString(packed >>> 4);
+        return digits.length() == length ? digits : "0".repeat(length - digits.length()) + digits;
+    }
+
+    static final class Builder {
+        private int size;
+        private long[] ids = new long[1024];
+        private byte[] colors = new byte[1024];
+        private int[] zipcodes = new int[1024];
+        private int[] firstnames = new int[1024];
+        private int[] lastnames = new int[1024];
+        private int[] cities = new int[1024];
+        private final Dictionary zipcodeValues = new Dictionary();
+        // first and last names share a dictionary, many values occur in both
+        private final Dictionary nameValues = new Dictionary();
+        private final Dictionary cityValues = new Dictionary();
+
+        void add(Person person) {
+            if (size > 0 && person.getId() <= ids[size - 1]) {
+                throw new IllegalArgumentException("Ids must be ascending: " + person.getId() + " after " + ids[size - 1]);
+            }
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                colors = Arrays.copyOf(colors, capacity);
+                zipcodes = Arrays.copyOf(zipcodes, capacity);
+                firstnames = Arrays.copyOf(firstnames, capacity);
+                lastnames = Arrays.copyOf(lastnames, capacity);
+                cities = Arrays.copyOf(cities, capacity);
+            }
+            ids[size] = person.getId();
+            colors[size] = (byte) CsvPersonParser.colorCode(person.getColor());
+            zipcodes[size] = packZipcode(person.getZipcode());
+            firstnames[size] = nameValues.position(person.getFirstname());
+            lastnames[size] = nameValues.position(person.getLastname());
+            cities[size] = cityValues.position(person.getCity());
+            size++;
+        }
+
+        private int packZipcode(String zipcode) {
+            if (zipcode != null && !zipcode.isEmpty() && zipcode.length() <= MAX_PACKED_ZIPCODE_LENGTH) {
+                int value = 0;
+                boolean digits = true;
+                for (int i = 0; i < zipcode.length() && digits; i++) {
+                    char c = zipcode.charAt(i);
+                    digits = c >= '0' && c <= '9';
+                    value = value * 10 + (c - '0');
+                }
+                if (digits) {
+                    return value << 4 | zipcode.length();
+                }
+            }
+            int position = zipcodeValues.position(zipcode);
+            return position < 0 ? NULL_ZIPCODE : -position - 1;
+        }
+
+        ColumnarPersonStore build() {
+            return new ColumnarPersonStore(this);
+        }
+    }
+
+    // null is not stored and comes back as position -1
+    private static final class Dictionary {
+        private final Map<String, Integer> positions = new HashMap<>();
+        private String[] values = new String[256];
+
+        int position(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer position = positions.get(value);
+            if (position == null) {
+                position = positions.size();
+                if (position == values.length) {
+                    values = Arrays.copyOf(values, position * 2);
+                }
+                values[position] = value;
+                positions.put(value, position);
+            }
+            return position;
+        }
+
+        String[] values() {
+            return Arrays.copyOf(values, positions.size());
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.mapo.personapp.person;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Group commit for appends: callers of {@link #append} block while a single writer thread takes every
+ * request queued so far and hands all their persons to the {@link BatchWriter} in one call, so concurrent
+ * callers share one write and one fsync. Requests are written in queue order and never split.
+ */
+class CsvAppendLog implements Closeable {
+    private static final int QUEUE_CAPACITY = 1024;
+
+    interface BatchWriter {
+        void write(List<Person> batch) throws IOException;
+    }
+
+    private record Request(List<Person> persons, CompletableFuture<Void> done) {
+    }
+
+    // queued by close, the writer stops once it wrote everything before it
+    private static final Request CLOSE = new Request(List.of(), new CompletableFuture<>());
+
+    private final BlockingQueue<Request> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final int maxRequestsPerBatch;
+    private final BatchWriter writer;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    CsvAppendLog(int maxRequestsPerBatch, BatchWriter writer) {
+        this.maxRequestsPerBatch = maxRequestsPerBatch;
+        this.writer = writer;
+        this.thread = Thread.ofPlatform().daemon().name("csv-append-log").start(this::run);
+    }
+
+    /**
+     * Blocks until the persons were handed to the writer together, in the given order.
+     */
+    void append(List<Person> persons) {
+        if (this.closed) {
+            throw new IllegalStateException("The CSV append log is closed");
+        }
+        Request request = new Request(persons, new CompletableFuture<>());
+        try {
+            this.queue.put(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the CSV append log", e);
+        }
+        if (this.closed && !this.thread.isAlive()) {
+            // queued after the writer stopped and possibly after close failed what was left
+            failQueued();
+        }
+        try {
+            request.done().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw new UncheckedIOException(io);
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    private void run() {
+        List<Request> batch = new ArrayList<>();
+        boolean closing = false;
+        try {
+            while (!closing) {
+                batch.add(this.queue.take());
+                this.queue.drainTo(batch, this.maxRequestsPerBatch - 1);
+                closing = batch.remove(CLOSE);
+                if (batch.isEmpty()) {
+                    break;
+                }
+                List<Person> persons = new ArrayList<>();
+                for (Request request : batch) {
+                    persons.addAll(request.persons());
+                }
+                try {
+                    this.writer.write(persons);
+                    batch.forEach(request -> request.done().complete(null));
+                } catch (Throwable e) {
+                    // also errors, a dead writer thread would leave every later caller waiting
+                    batch.forEach(request -> request.done().completeExceptionally(e));
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // only close stops the writer, and it does not interrupt
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // each request is drained once, by whichever of close and a late append gets to it
+    private void failQueued() {
+        List<Request> queued = new ArrayList<>();
+        this.queue.drainTo(queued);
+        IllegalStateException closed = new IllegalStateException("The CSV append log is closed");
+        queued.forEach(request -> request.done().completeExceptionally(closed));
+    }
+
+    /**
+     * Lets the writer finish what was queued before and waits for it. The writer is not interrupted, since
+     * that would close the file channel in the middle of a write and leave a partial record behind.
+     */
+    @Override
+    public void close() {
+        try {
+            if (!this.closed) {
+                this.closed = true;
+                this.queue.put(CLOSE);
+            }
+            this.thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failQueued();
+    }
+}
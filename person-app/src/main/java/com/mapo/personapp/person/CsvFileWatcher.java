@@ -0,0 +1,60 @@
+package com.mapo.personapp.person;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * Calls back on a daemon thread whenever a file is created or modified. The watch service only observes
+ * directories, so events for the other entries of the parent directory are filtered out.
+ */
+@Slf4j
+class CsvFileWatcher implements Closeable {
+    private final WatchService watchService;
+    private final Thread thread;
+
+    CsvFileWatcher(Path file, Runnable onChange) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        this.watchService = directory.getFileSystem().newWatchService();
+        directory.register(this.watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        Path name = file.getFileName();
+        this.thread = Thread.ofPlatform().daemon().name("csv-file-watcher").start(() -> watch(name, onChange));
+    }
+
+    private void watch(Path name, Runnable onChange) {
+        try {
+            while (true) {
+                WatchKey key = this.watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= event.kind() == OVERFLOW || name.equals(event.context());
+                }
+                if (changed) {
+                    onChange.run();
+                }
+                if (!key.reset()) {
+                    log.warn("Stopped watching {}: its directory is no longer accessible", name);
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.watchService.close();
+        this.thread.interrupt();
+    }
+}
@@ -0,0 +1,19 @@
+package com.mapo.personapp.person;
+
+/**
+ * When {@link CsvPersonDataProvider#save} forces appended records to disk before returning.
+ */
+public enum CsvFsyncPolicy {
+    /**
+     * Never fsync; a save returns once its record is in the page cache and may be lost on power failure.
+     */
+    NONE,
+    /**
+     * Group commit: the saves queued while the previous batch was written share one write and one fsync.
+     */
+    GROUP,
+    /**
+     * One write and one fsync per save call.
+     */
+    EACH
+}
@@ -0,0 +1,67 @@
+package com.mapo.personapp.person;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+/**
+ * Admin endpoints to load a CSV file into the database. The file is named relative to person.import.directory,
+ * and names leading out of that directory are rejected. Only registered when person.import.enabled=true.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "person.import.enabled", havingValue = "true")
+public class CsvImportController {
+    private final CsvImportService csvImportService;
+    private final Path directory;
+
+    CsvImportController(CsvImportService csvImportService,
+                        @Value("${person.import.directory}") String directory) throws IOException {
+        this.csvImportService = csvImportService;
+        this.directory = Path.of(directory).toRealPath();
+    }
+
+    @PostMapping("/admin/import")
+    CsvImportService.Status importCsv(@RequestParam String file) throws IOException, SQLException {
+        try (InputStream in = Files.newInputStream(resolve(file))) {
+            return csvImportService.importCsv(in);
+        }
+    }
+
+    private Path resolve(String file) throws IOException {
+        Path path;
+        try {
+            path = directory.resolve(file).normalize();
+        } catch (InvalidPathException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid file name " + file);
+        }
+        if (!path.startsWith(directory)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, file + " is outside the import directory");
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No file " + file + " in the import directory");
+        }
+        // a symbolic link inside the directory must not lead out of it either
+        if (!path.toRealPath().startsWith(directory)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, file + " is outside the import directory");
+        }
+        return path;
+    }
+
+    @GetMapping("/admin/import")
+    ResponseEntity<CsvImportService.Status> status() {
+        CsvImportService.Status status = csvImportService.status();
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
+}
@@ -0,0 +1,280 @@
+package com.mapo.personapp.person;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Streams persons from a CSV file into the person table.
+ * <p>
+ * A parser thread fills a bounded queue with batches while the calling thread writes them, using
+ * {@code COPY FROM STDIN} on Postgres and batched inserts on any other database. Ids continue after the
+ * highest id in the table (so an empty table gets the CSV line numbers) and person_seq is moved past them.
+ * The import is meant to run while no other writes hit the table.
+ */
+@Service
+public class CsvImportService {
+    static final int BATCH_SIZE = 5000;
+    private static final int QUEUE_CAPACITY = 4;
+    private static final List<Person> END_OF_INPUT = List.of();
+
+    private static final String COPY_SQL =
+            "COPY person (id, firstname, lastname, zipcode, city, color, color_code) FROM STDIN WITH (FORMAT csv)";
+    private static final String INSERT_SQL =
+            "insert into person (id, firstname, lastname, zipcode, city, color, color_code) values (?, ?, ?, ?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+    private final AtomicReference<Progress> current = new AtomicReference<>();
+
+    public CsvImportService(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    public record Status(boolean running, long parsed, long written, long elapsedMillis) {
+    }
+
+    private static final class Progress {
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong parsed = new AtomicLong();
+        private final AtomicLong written = new AtomicLong();
+        private volatile long endNanos;
+
+        private Status status() {
+            long end = endNanos == 0 ? System.nanoTime() : endNanos;
+            return new Status(endNanos == 0, parsed.get(), written.get(), (end - startNanos) / 1_000_000);
+        }
+    }
+
+    /**
+     * Progress of the running or most recent import, or null if there was none.
+     */
+    public Status status() {
+        Progress progress = current.get();
+        return progress == null ? null : progress.status();
+    }
+
+    public Status importCsv(InputStream in) throws IOException, SQLException {
+        Progress progress = new Progress();
+        Progress previous = current.get();
+        if (previous != null && previous.endNanos == 0 || !current.compareAndSet(previous, progress)) {
+            throw new IllegalStateException("An import is already running");
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            long idOffset = maxId(connection);
+
+            BlockingQueue<List<Person>> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+            AtomicReference<Exception> parseError = new AtomicReference<>();
+            Thread parser = Thread.ofPlatform().name("csv-import-parser").start(() -> produce(in, idOffset, queue, progress, parseError));
+            try {
+                long lastId = connection.isWrapperFor(PGConnection.class)
+                        ? copy(connection, queue, progress, parseError)
+                        : insert(connection, queue, progress, parseError);
+                if (lastId > 0) {
+                    restartSequence(connection, lastId);
+                }
+                connection.commit();
+            } catch (SQLException | IOException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                parser.interrupt();
+            }
+        } finally {
+            progress.endNanos = System.nanoTime();
+        }
+        return progress.status();
+    }
+
+    private static void produce(InputStream in, long idOffset, BlockingQueue<List<Person>> queue,
+                                Progress progress, AtomicReference<Exception> parseError) {
+        BatchingSink sink = new BatchingSink(idOffset, queue, progress);
+        try {
+            CsvPersonParser.parse(in, sink);
+            sink.flush();
+        } catch (IOException | RuntimeException e) {
+            parseError.set(e);
+        }
+        try {
+            queue.put(END_OF_INPUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class BatchingSink implements Consumer<Person> {
+        private final long idOffset;
+        private final BlockingQueue<List<Person>> queue;
+        private final Progress progress;
+        private List<Person> batch = new ArrayList<>(BATCH_SIZE);
+
+        private BatchingSink(long idOffset, BlockingQueue<List<Person>> queue, Progress progress) {
+            this.idOffset = idOffset;
+            this.queue = queue;
+            this.progress = progress;
+        }
+
+        @Override
+        public void accept(Person person) {
+            person.setId(person.getId() + idOffset);
+            batch.add(person);
+            if (batch.size() == BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            put(queue, batch);
+            progress.parsed.addAndGet(batch.size());
+            batch = new ArrayList<>(BATCH_SIZE);
+        }
+    }
+
+    private static void put(BlockingQueue<List<Person>> queue, List<Person> batch) {
+        try {
+            queue.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import was aborted", e);
+        }
+    }
+
+    private static List<Person> take(BlockingQueue<List<Person>> queue, AtomicReference<Exception> parseError)
+            throws IOException {
+        List<Person> batch;
+        try {
+            batch = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import was interrupted", e);
+        }
+        if (batch == END_OF_INPUT && parseError.get() != null) {
+            throw new IOException("Could not parse the CSV input", parseError.get());
+        }
+        return batch;
+    }
+
+    private static long copy(Connection connection, BlockingQueue<List<Person>> queue, Progress progress,
+                             AtomicReference<Exception> parseError) throws SQLException, IOException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+        long lastId = 0;
+        try {
+            StringBuilder rows = new StringBuilder();
+            for (List<Person> batch = take(queue, parseError); batch != END_OF_INPUT; batch = take(queue, parseError)) {
+                rows.setLength(0);
+                for (Person person : batch) {
+                    appendCsvRow(rows, person);
+                }
+                byte[] bytes = rows.toString().getBytes(StandardCharsets.UTF_8);
+                copyIn.writeToCopy(bytes, 0, bytes.length);
+                lastId = batch.get(batch.size() - 1).getId();
+                progress.written.addAndGet(batch.size());
+            }
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+        return lastId;
+    }
+
+    private static long insert(Connection connection, BlockingQueue<List<Person>> queue, Progress progress,
+                               AtomicReference<Exception> parseError) throws SQLException, IOException {
+        long lastId = 0;
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+            for (List<Person> batch = take(queue, parseError); batch != END_OF_INPUT; batch = take(queue, parseError)) {
+                for (Person person : batch) {
+                    statement.setLong(1, person.getId());
+                    statement.setString(2, person.getFirstname());
+                    statement.setString(3, person.getLastname());
+                    statement.setString(4, person.getZipcode());
+                    statement.setString(5, person.getCity());
+                    statement.setString(6, person.getColor());
+                    statement.setShort(7, (short) CsvPersonParser.colorCode(person.getColor()));
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                lastId = batch.get(batch.size() - 1).getId();
+                progress.written.addAndGet(batch.size());
+            }
+        }
+        return lastId;
+    }
+
+    static void appendCsvRow(StringBuilder rows, Person person) {
+        rows.append(person.getId()).append(',');
+        appendCsvField(rows, person.getFirstname()).append(',');
+        appendCsvField(rows, person.getLastname()).append(',');
+        appendCsvField(rows, person.getZipcode()).append(',');
+        appendCsvField(rows, person.getCity()).append(',');
+        appendCsvField(rows, person.getColor()).append(',');
+        rows.append(CsvPersonParser.colorCode(person.getColor())).append('\n');
+    }
+
+    private static StringBuilder appendCsvField(StringBuilder rows, String value) {
+        if (value == null) {
+            // an unquoted empty field is NULL in COPY's csv format
+            return rows;
+        }
+        rows.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                rows.append('"');
+            }
+            rows.append(c);
+        }
+        return rows.append('"');
+    }
+
+    private static long maxId(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("select coalesce(max(id), 0) from person")) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    // moves person_seq to the value whose PersonIdAllocator block starts after lastId; the sequence only
+    // moves forward, since others may have taken values beyond the imported ids already
+    private static void restartSequence(Connection connection, long lastId) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            if (connection.isWrapperFor(PGConnection.class)) {
+                // after setval(v) the next value is v + increment, which hands out the ids after v
+                statement.execute("select setval('person_seq', greatest((select last_value from person_seq), " + lastId + "))");
+                return;
+            }
+            // H2 has no setval; base_value is the value the next call returns
+            long next;
+            try (ResultSet result = statement.executeQuery(
+                    "select base_value from information_schema.sequences where sequence_name = 'PERSON_SEQ'")) {
+                result.next();
+                next = result.getLong(1);
+            }
+            if (next < PersonIdAllocator.valueAfter(lastId)) {
+                statement.execute("alter sequence person_seq restart with " + PersonIdAllocator.valueAfter(lastId));
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.mapo.personapp.person;
+
+import java.util.List;
+
+/**
+ * Result of parsing (part of) a CSV file. The first {@code committedCount} persons were terminated by a
+ * newline before {@code committedOffset}; any further person came from a final line without newline,
+ * which may still grow, so a later incremental load re-parses the file from {@code committedOffset}.
+ * {@code rejectedCount} records were dropped for having fewer than four fields.
+ */
+record CsvLoad(List<Person> persons, int committedCount, long committedOffset, int rejectedCount) {
+
+    CsvLoad(List<Person> persons, int committedCount, long committedOffset) {
+        this(persons, committedCount, committedOffset, 0);
+    }
+}
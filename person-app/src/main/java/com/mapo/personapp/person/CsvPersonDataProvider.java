@@ -1,120 +1,445 @@
 package com.mapo.personapp.person;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Component;
-import tools.jackson.databind.MappingIterator;
-import tools.jackson.databind.ObjectMapper;
-import tools.jackson.databind.node.ArrayNode;
-import tools.jackson.databind.node.ObjectNode;
 
-import java.io.*;
-import java.util.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
+/**
+ * Serves persons from a CSV file held in memory.
+ * <p>
+ * Readers always work on one immutable {@link CsvSnapshot}. With {@code person.csv.watch} enabled, changes
+ * to the file are picked up without a restart: appended bytes are parsed from where the last load stopped
+ * and published as a new snapshot, while a truncated or replaced file is loaded again from scratch.
+ * <p>
+ * {@link #save} appends to the same file in the same format when {@code person.csv.file} names a writable
+ * file outside the classpath. Ids continue the record sequence, and a batch becomes visible to readers only
+ * once it is written (and forced to disk, depending on {@code person.csv.fsync}). Saves never update an
+ * existing record, and the provider must be the only one appending while saves run.
+ * <p>
+ * With {@code person.csv.snapshot} set, the records are also kept in a binary {@link CsvSnapshotFile}. Later
+ * starts load that file instead of parsing the CSV, as long as the CSV bytes it was made from are unchanged.
+ */
+@Slf4j
 @Component
-public class CsvPersonDataProvider implements PersonDataProvider {
-    private final List<Person> personData;
-    private static final Map<Integer, String> COLOR_MAP = new HashMap<>();
+public class CsvPersonDataProvider implements PersonDataProvider, MeterBinder {
+    // files at least this large are split into byte ranges and parsed on all cores
+    private static final long PARALLEL_LOAD_THRESHOLD = 16 * 1024 * 1024;
 
-    static {
-        COLOR_MAP.put(1, "blau");
-        COLOR_MAP.put(2, "grün");
-        COLOR_MAP.put(3, "violett");
-        COLOR_MAP.put(4, "rot");
-        COLOR_MAP.put(5, "gelb");
-        COLOR_MAP.put(6, "türkis");
-        COLOR_MAP.put(7, "weiß");
-    }
+    private final Resource resource;
+    private final CsvFsyncPolicy fsyncPolicy;
+    private final AtomicReference<CsvSnapshot> snapshot = new AtomicReference<>();
+    // bumped after each new snapshot is published, so a reader seeing a version sees at least its persons
+    private final AtomicLong version = new AtomicLong();
+    private final CsvFileWatcher watcher;
+    private volatile CsvAppendLog appendLog;
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong loadNanos = new AtomicLong();
+    private volatile long lastLoadNanos;
+    private final AtomicLong rejectedCount = new AtomicLong();
 
     public CsvPersonDataProvider() {
-        this.personData = loadObjectList();
-        System.out.println("Loaded data"+this.personData);
-    }
-
-    private List<Person> loadObjectList() {
-        ClassPathResource resource = new ClassPathResource("sample-input.csv");
-        List<Person> persons = new ArrayList<>();
-        Long lineNumber = 1L;
-
-        try (BufferedReader br = new BufferedReader(new FileReader(resource.getFile().getAbsolutePath()))) {
-            String line;
-            StringBuilder currentLine = new StringBuilder();
-
-            while ((line = br.readLine()) != null) {
-                currentLine.append(line.trim());
-
-                // Check if line ends with a number (complete entry)
-                if (currentLine.toString().matches(".*,\\s*\\d+\\s*$")) {
-                    String[] parts = currentLine.toString().split(",");
-
-                    if (parts.length >= 4) {
-                        String lastName = parts[0].trim();
-                        String firstName = parts[1].trim();
-                        String address = parts[2].trim();
-                        int colorCode = Integer.parseInt(parts[3].trim());
-
-                        // Split address into zipcode and city
-                        String zipcode = "";
-                        String city = "";
-                        String[] addressParts = address.split("\\s+", 2);
-                        if (addressParts.length >= 1) {
-                            zipcode = addressParts[0];
-                        }
-                        if (addressParts.length >= 2) {
-                            city = addressParts[1];
-                        }
-
-                        String color = COLOR_MAP.getOrDefault(colorCode, "unknown");
-                        Person person = new Person(firstName, lastName, zipcode, city, color);
-                        person.setId(lineNumber);
-                        persons.add(person);
-                        lineNumber++;
-                    }
+        this(new ClassPathResource("sample-input.csv"));
+    }
+
+    CsvPersonDataProvider(Resource resource) {
+        this(resource, false, CsvFsyncPolicy.GROUP);
+    }
+
+    CsvPersonDataProvider(Resource resource, boolean watch, CsvFsyncPolicy fsyncPolicy) {
+        this(resource, watch, fsyncPolicy, "");
+    }
 
-                    currentLine = new StringBuilder();
+    @Autowired
+    public CsvPersonDataProvider(@Value("${person.csv.file:classpath:sample-input.csv}") Resource resource,
+                                 @Value("${person.csv.watch:false}") boolean watch,
+                                 @Value("${person.csv.fsync:GROUP}") CsvFsyncPolicy fsyncPolicy,
+                                 @Value("${person.csv.snapshot:}") String snapshotFile) {
+        this.resource = resource;
+        this.fsyncPolicy = fsyncPolicy;
+        long start = System.nanoTime();
+        publish(loadSnapshot(resource, snapshotFile.isEmpty() ? null : Path.of(snapshotFile)));
+        recordLoad(start);
+        log.info("Loaded {} persons from {}", this.snapshot.get().size(), resource);
+        this.watcher = watch ? startWatcher(resource) : null;
+    }
+
+    private CsvSnapshot loadSnapshot(Resource resource, Path snapshotFile) {
+        try {
+            if (resource.isFile()) {
+                Path file = resource.getFile().toPath();
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                CsvLoad stored = snapshotFile == null ? null : CsvSnapshotFile.read(snapshotFile, file);
+                if (stored == null) {
+                    CsvSnapshot loaded = CsvSnapshot.of(loadFile(file, attributes.size()), attributes);
+                    writeSnapshotFile(snapshotFile, file, loaded);
+                    return loaded;
+                }
+                CsvSnapshot loaded = CsvSnapshot.of(stored, attributes);
+                if (attributes.size() > stored.committedOffset()) {
+                    CsvLoad tail = loadTail(file, loaded);
+                    loaded = loaded.append(tail, attributes);
+                    if (tail.committedCount() > 0) {
+                        writeSnapshotFile(snapshotFile, file, loaded);
+                    }
                 }
+                log.info("Loaded {} persons from {} and parsed {} appended since", stored.persons().size(), snapshotFile,
+                        loaded.size() - stored.persons().size());
+                return loaded;
             }
         } catch (IOException e) {
-            e.printStackTrace();
+            log.warn("Could not load {} as a file, reading it as a stream", resource, e);
+        }
+
+        try (InputStream in = resource.getInputStream()) {
+            return CsvSnapshot.of(counted(CsvPersonParser.load(in, 1L, 0L)), null);
+        } catch (IOException e) {
+            log.error("Could not load {}, serving no persons", resource, e);
         }
+        return CsvSnapshot.of(new CsvLoad(List.of(), 0, 0L), null);
+    }
 
-        // Convert to JSON using Jackson
-        ObjectMapper mapper = new ObjectMapper();
-        ArrayNode arrayNode = mapper.createArrayNode();
+    private CsvLoad loadFile(Path file, long size) throws IOException {
+        if (size >= PARALLEL_LOAD_THRESHOLD) {
+            return counted(ParallelCsvLoader.load(file, Runtime.getRuntime().availableProcessors()));
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return counted(CsvPersonParser.load(in, 1L, 0L));
+        }
+    }
 
-        for (Person person : persons) {
-            ObjectNode personNode = mapper.createObjectNode();
-            personNode.put("id", person.getId());
-            personNode.put("lastName", person.getFirstname());
-            personNode.put("firstName", person.getLastname());
-            personNode.put("zipcode", person.getZipcode());
-            personNode.put("city", person.getCity());
-            personNode.put("color", person.getColor());
-            arrayNode.add(personNode);
+    private CsvLoad loadTail(Path file, CsvSnapshot current) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             InputStream in = Channels.newInputStream(channel.position(current.committedOffset()))) {
+            return counted(CsvPersonParser.load(in, current.committedCount() + 1L, current.committedOffset()));
+        }
+    }
+
+    private CsvLoad counted(CsvLoad load) {
+        this.rejectedCount.addAndGet(load.rejectedCount());
+        return load;
+    }
+
+    private void recordLoad(long start) {
+        long nanos = System.nanoTime() - start;
+        this.lastLoadNanos = nanos;
+        this.loadNanos.addAndGet(nanos);
+        this.loadCount.incrementAndGet();
+    }
+
+    /**
+     * Publishes the loads of the file and the size of the current snapshot. Loads before binding are included.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionTimer.builder("person.csv.loads", this, p -> p.loadCount.get(), p -> p.loadNanos.get(), TimeUnit.NANOSECONDS)
+                .description("Full and incremental loads of the CSV file")
+                .register(registry);
+        TimeGauge.builder("person.csv.load.last", this, TimeUnit.NANOSECONDS, p -> p.lastLoadNanos)
+                .description("Duration of the latest load of the CSV file")
+                .register(registry);
+        Gauge.builder("person.csv.rows", this, p -> p.snapshot.get().size())
+                .description("Persons loaded from the CSV file")
+                .register(registry);
+        Gauge.builder("person.csv.bytes", this, p -> p.snapshot.get().committedOffset())
+                .description("Bytes of the CSV file loaded up to the last complete record")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("person.csv.rejected", this, p -> p.rejectedCount.get())
+                .description("Records dropped for having fewer than four fields")
+                .register(registry);
+    }
+
+    // the snapshot file only saves time on the next start, so failing to write it must not fail this one
+    private static void writeSnapshotFile(Path snapshotFile, Path file, CsvSnapshot snapshot) {
+        if (snapshotFile == null) {
+            return;
+        }
+        try {
+            CsvSnapshotFile.write(snapshotFile, file, snapshot);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not write {}", snapshotFile, e);
+        }
+    }
+
+    private CsvFileWatcher startWatcher(Resource resource) {
+        try {
+            if (resource.isFile()) {
+                return new CsvFileWatcher(resource.getFile().toPath(), this::reloadQuietly);
+            }
+            log.warn("Not watching {}: it is not a file", resource);
+        } catch (IOException e) {
+            log.warn("Not watching {}", resource, e);
+        }
+        return null;
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (IOException e) {
+            log.error("Could not reload {}, still serving the previous snapshot", resource, e);
+        }
+    }
+
+    /**
+     * Brings the snapshot up to date with the file: parses only the appended bytes if the file grew,
+     * and everything if it was truncated or replaced. Readers keep using the previous snapshot until then.
+     */
+    synchronized void reload() throws IOException {
+        Path file = this.resource.getFile().toPath();
+        CsvSnapshot current = this.snapshot.get();
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long start = System.nanoTime();
+        if (current.isReplacedBy(attributes)) {
+            publish(CsvSnapshot.of(loadFile(file, attributes.size()), attributes));
+            recordLoad(start);
+            log.info("Reloaded {} persons from {}", this.snapshot.get().size(), file);
+        } else if (current.isGrownBy(attributes)) {
+            publish(current.append(loadTail(file, current), attributes));
+            recordLoad(start);
+            log.debug("Loaded {} appended persons from {}", this.snapshot.get().size() - current.size(), file);
+        }
+    }
+
+    private void publish(CsvSnapshot next) {
+        this.snapshot.set(next);
+        this.version.incrementAndGet();
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        if (this.watcher != null) {
+            this.watcher.close();
+        }
+        if (this.appendLog != null) {
+            this.appendLog.close();
         }
-        return persons;
     }
 
     @Override
     public List<Person> all() {
-        return this.personData;
+        return this.snapshot.get().persons();
     }
 
+    /**
+     * Appends the person as a new record and returns it with the id of that record. The color is stored as
+     * its CSV code, so a color outside {@link CsvPersonParser#COLOR_MAP} comes back as unknown.
+     */
     @Override
     public Person save(Person person) {
-        // TODO: implement an csv write to handle save
-        return null;
+        saveAll(List.of(person));
+        return person;
+    }
+
+    /**
+     * Appends the persons as consecutive records, written and made visible together.
+     */
+    @Override
+    public List<Person> saveAll(List<Person> persons) {
+        persons.forEach(CsvPersonDataProvider::checkWritable);
+        if (!persons.isEmpty()) {
+            appendLog().append(persons);
+        }
+        return persons;
+    }
+
+    private static void checkWritable(Person person) {
+        if (person.getZipcode() == null || person.getZipcode().isBlank() || containsAny(person.getZipcode(), ", \t\r\n")) {
+            throw new IllegalArgumentException("A zipcode must be a single word for the CSV format: " + person.getZipcode());
+        }
+        for (String field : new String[] {person.getLastname(), person.getFirstname(), person.getCity()}) {
+            if (field != null && containsAny(field, ",\r\n")) {
+                throw new IllegalArgumentException("Commas and line breaks cannot be stored in the CSV format: " + field);
+            }
+        }
+    }
+
+    private static boolean containsAny(String value, String characters) {
+        for (int i = 0; i < value.length(); i++) {
+            if (characters.indexOf(value.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private CsvAppendLog appendLog() {
+        CsvAppendLog current = this.appendLog;
+        if (current == null) {
+            synchronized (this) {
+                if (this.appendLog == null) {
+                    if (this.resource instanceof ClassPathResource || !this.resource.isFile()) {
+                        throw new ReadOnlyProviderException(
+                                "The CSV provider is read-only: " + this.resource + " is not a writable file");
+                    }
+                    int maxRequestsPerBatch = this.fsyncPolicy == CsvFsyncPolicy.EACH ? 1 : Integer.MAX_VALUE;
+                    this.appendLog = new CsvAppendLog(maxRequestsPerBatch, this::write);
+                }
+                current = this.appendLog;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Writes one group of saves with a single append and publishes them in a single snapshot. Runs on the
+     * append log's thread.
+     */
+    private synchronized void write(List<Person> batch) throws IOException {
+        // pick up external changes first so the ids continue from the real end of the file
+        reload();
+        Path file = this.resource.getFile().toPath();
+        CsvSnapshot current = this.snapshot.get();
+
+        StringBuilder lines = new StringBuilder();
+        if (current.fileSize() > current.committedOffset()) {
+            if (current.committedCount() == current.size() && !isBlank(file, current.committedOffset(), current.fileSize())) {
+                throw new IllegalStateException(file + " ends with an incomplete record, refusing to append to it");
+            }
+            // terminates the last record, which otherwise would absorb the first appended line
+            lines.append('\n');
+        }
+        List<Person> tail = new ArrayList<>(current.persons().subList(current.committedCount(), current.size()));
+        long id = current.size() + 1L;
+        // the callers' persons only get their id and stored color once the records are written
+        List<Person> written = new ArrayList<>(batch.size());
+        for (Person person : batch) {
+            int colorCode = CsvPersonParser.colorCode(person.getColor());
+            Person row = new Person(person.getFirstname(), person.getLastname(), person.getZipcode(), person.getCity(),
+                    CsvPersonParser.COLOR_MAP.getOrDefault(colorCode, CsvPersonParser.UNKNOWN_COLOR));
+            row.setId(id++);
+            appendCsvLine(lines, row, colorCode);
+            written.add(row);
+        }
+        tail.addAll(written);
+
+        ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (this.fsyncPolicy != CsvFsyncPolicy.NONE) {
+                channel.force(false);
+            }
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        CsvLoad appended = new CsvLoad(tail, tail.size(), current.fileSize() + bytes.limit());
+        publish(current.append(appended, attributes));
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).setId(written.get(i).getId());
+            batch.get(i).setColor(written.get(i).getColor());
+        }
+    }
+
+    // the format of sample-input.csv: "lastname, firstname, zipcode city, color code"
+    private static void appendCsvLine(StringBuilder lines, Person person, int colorCode) {
+        lines.append(Objects.toString(person.getLastname(), "")).append(", ")
+                .append(Objects.toString(person.getFirstname(), "")).append(", ")
+                .append(person.getZipcode()).append(' ')
+                .append(Objects.toString(person.getCity(), "")).append(", ")
+                .append(colorCode).append('\n');
+    }
+
+    private static boolean isBlank(Path file, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer, from + buffer.position()) >= 0) {
+                // keep reading
+            }
+        }
+        for (int i = 0; i < buffer.position(); i++) {
+            if ((buffer.get(i) & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public Person findById(Long id) {
-        return this.personData.stream().
-                filter(item -> item.getId().equals(id)).findFirst().orElseThrow(() -> new PersonNotFoundException(id));
+        Person person = id == null ? null : this.snapshot.get().get(id);
+        if (person == null) {
+            throw new PersonNotFoundException(id);
+        }
+        return person;
     }
 
     @Override
     public List<Person> findByColor(String color) {
-        return this.personData.stream().
-                filter(item -> item.getColor().equals(color)).toList();
+        CsvSnapshot current = this.snapshot.get();
+        return current.colorIndex().lookup(color, current.personsById());
+    }
+
+    @Override
+    public List<Person> page(Long afterId, int limit) {
+        CsvSnapshot current = this.snapshot.get();
+        int from = (int) Math.min(Math.max(afterId == null ? 0L : afterId, 0L), current.size());
+        int to = (int) Math.min((long) from + limit, current.size());
+        return List.of(Arrays.copyOfRange(current.personsById(), from, to));
+    }
+
+    @Override
+    public List<Person> pageByColor(String color, Long afterId, int limit) {
+        CsvSnapshot current = this.snapshot.get();
+        // positions are id - 1, so the first position after afterId is afterId itself
+        long from = Math.max(afterId == null ? 0L : afterId, 0L);
+        return current.colorIndex().page(color, (int) Math.min(from, Integer.MAX_VALUE), limit, current.personsById());
+    }
+
+    @Override
+    public List<Person> search(PersonQuery query, Long afterId, int limit) {
+        return this.snapshot.get().search(query, afterId, limit);
+    }
+
+    @Override
+    public Map<String, Long> countBy(PersonGrouping grouping) {
+        return this.snapshot.get().counts().get(grouping);
+    }
+
+    @Override
+    public List<Person> searchNames(String text, NameMatch match, int limit) {
+        return this.snapshot.get().searchNames(text, match, limit);
+    }
+
+    @Override
+    public OptionalLong version() {
+        return OptionalLong.of(this.version.get());
+    }
+
+    @Override
+    public void forEach(Consumer<Person> action) {
+        this.snapshot.get().persons().forEach(action);
     }
 
     @Override
@@ -0,0 +1,305 @@
+package com.mapo.personapp.person;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Single-pass, byte-level parser for the person CSV format.
+ * <p>
+ * Physical lines are trimmed and concatenated until the logical record ends with {@code ", <digits>"},
+ * so a record may span several lines (e.g. "Bart, Bertram, \n12313 Wasweißich, 1"). Only the field
+ * values are decoded into strings; no line strings, regex or split arrays are created.
+ */
+public class CsvPersonParser {
+    static final Map<Integer, String> COLOR_MAP = new HashMap<>();
+    static final String UNKNOWN_COLOR = "unknown";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    static {
+        COLOR_MAP.put(1, "blau");
+        COLOR_MAP.put(2, "grün");
+        COLOR_MAP.put(3, "violett");
+        COLOR_MAP.put(4, "rot");
+        COLOR_MAP.put(5, "gelb");
+        COLOR_MAP.put(6, "türkis");
+        COLOR_MAP.put(7, "weiß");
+    }
+
+    private final Consumer<Person> sink;
+    private final RecordListener listener;
+    private byte[] record = new byte[256];
+    private int recordLength;
+    private int lineStart;
+    private long nextId;
+    private long position;
+    private long recordOffset;
+    private int rejectedCount;
+
+    /**
+     * Receives the id, byte offset and color code of each record without decoding any of its fields.
+     */
+    @FunctionalInterface
+    public interface RecordListener {
+        void onRecord(long id, long offset, int colorCode);
+    }
+
+    public CsvPersonParser(long firstId, Consumer<Person> sink) {
+        this(firstId, 0L, sink, null);
+    }
+
+    public CsvPersonParser(long firstId, long firstOffset, Consumer<Person> sink) {
+        this(firstId, firstOffset, sink, null);
+    }
+
+    public CsvPersonParser(long firstId, long firstOffset, RecordListener listener) {
+        this(firstId, firstOffset, null, listener);
+    }
+
+    private CsvPersonParser(long firstId, long firstOffset, Consumer<Person> sink, RecordListener listener) {
+        this.nextId = firstId;
+        this.position = firstOffset;
+        this.recordOffset = firstOffset;
+        this.sink = sink;
+        this.listener = listener;
+    }
+
+    public static List<Person> parse(InputStream in) throws IOException {
+        List<Person> persons = new ArrayList<>();
+        parse(in, persons::add);
+        return persons;
+    }
+
+    /**
+     * Parses the input that starts at {@code firstOffset} of a file, remembering where the last record
+     * terminated by a newline ends so a later load can continue from there.
+     */
+    public static CsvLoad load(InputStream in, long firstId, long firstOffset) throws IOException {
+        List<Person> persons = new ArrayList<>();
+        CsvPersonParser parser = new CsvPersonParser(firstId, firstOffset, persons::add);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            parser.feed(buffer, 0, read);
+        }
+        int committedCount = persons.size();
+        long committedOffset = parser.pendingOffset();
+        parser.finish();
+        return new CsvLoad(persons, committedCount, committedOffset, parser.rejectedCount());
+    }
+
+    public static void parse(InputStream in, Consumer<Person> sink) throws IOException {
+        CsvPersonParser parser = new CsvPersonParser(1L, sink);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            parser.feed(buffer, 0, read);
+        }
+        parser.finish();
+    }
+
+    /**
+     * Maps a color name back to its CSV code, or 0 for names not in {@link #COLOR_MAP}.
+     */
+    static int colorCode(String color) {
+        for (Map.Entry<Integer, String> entry : COLOR_MAP.entrySet()) {
+            if (entry.getValue().equals(color)) {
+                return entry.getKey();
+            }
+        }
+        return 0;
+    }
+
+    public void feed(byte[] buffer, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            byte b = buffer[i];
+            position++;
+            if (b == '\n') {
+                endOfLine();
+            } else if (recordLength > lineStart || !isTrimmable(b)) {
+                // leading whitespace of a physical line is dropped, like String.trim()
+                if (recordLength == record.length) {
+                    record = Arrays.copyOf(record, record.length * 2);
+                }
+                record[recordLength++] = b;
+            }
+        }
+    }
+
+    /**
+     * Flushes a final line that is not terminated by a newline.
+     */
+    public void finish() {
+        endOfLine();
+    }
+
+    public long nextId() {
+        return nextId;
+    }
+
+    /**
+     * Number of records dropped so far for having fewer than four fields.
+     */
+    public int rejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Offset at which the record currently being accumulated starts, i.e. the end of the last complete line
+     * that left no pending record.
+     */
+    public long pendingOffset() {
+        return recordOffset;
+    }
+
+    /**
+     * Number of bytes consumed so far, including the offset the parser was started at.
+     */
+    public long position() {
+        return position;
+    }
+
+    private void endOfLine() {
+        while (recordLength > lineStart && isTrimmable(record[recordLength - 1])) {
+            recordLength--;
+        }
+        if (isComplete()) {
+            emitRecord();
+            recordLength = 0;
+        }
+        lineStart = recordLength;
+        if (recordLength == 0) {
+            recordOffset = position;
+        }
+    }
+
+    // Equivalent of matches(".*,\\s*\\d+\\s*$") on the trimmed, concatenated record
+    private boolean isComplete() {
+        int i = recordLength - 1;
+        while (i >= 0 && isWhitespace(record[i])) {
+            i--;
+        }
+        int digitsEnd = i;
+        while (i >= 0 && isDigit(record[i])) {
+            i--;
+        }
+        if (i == digitsEnd) {
+            return false;
+        }
+        while (i >= 0 && isWhitespace(record[i])) {
+            i--;
+        }
+        return i >= 0 && record[i] == ',';
+    }
+
+    private void emitRecord() {
+        int firstComma = indexOf(record, ',', 0, recordLength);
+        int secondComma = indexOf(record, ',', firstComma + 1, recordLength);
+        int thirdComma = secondComma < 0 ? -1 : indexOf(record, ',', secondComma + 1, recordLength);
+        if (thirdComma < 0) {
+            // fewer than four fields, the record is dropped
+            rejectedCount++;
+            return;
+        }
+        int lastComma = thirdComma;
+        for (int i = recordLength - 1; i > thirdComma; i--) {
+            if (record[i] == ',') {
+                lastComma = i;
+                break;
+            }
+        }
+
+        int colorCode = parseColorCode(lastComma + 1, recordLength);
+        if (listener != null) {
+            listener.onRecord(nextId++, recordOffset, colorCode);
+            return;
+        }
+
+        String lastName = decodeTrimmed(0, firstComma);
+        String firstName = decodeTrimmed(firstComma + 1, secondComma);
+
+        int addressStart = trimStart(secondComma + 1, thirdComma);
+        int addressEnd = trimEnd(addressStart, thirdComma);
+        int zipcodeEnd = addressStart;
+        while (zipcodeEnd < addressEnd && !isWhitespace(record[zipcodeEnd])) {
+            zipcodeEnd++;
+        }
+        int cityStart = zipcodeEnd;
+        while (cityStart < addressEnd && isWhitespace(record[cityStart])) {
+            cityStart++;
+        }
+        String zipcode = decode(addressStart, zipcodeEnd);
+        String city = decode(cityStart, addressEnd);
+
+        String color = COLOR_MAP.getOrDefault(colorCode, UNKNOWN_COLOR);
+
+        Person person = new Person(firstName, lastName, zipcode, city, color);
+        person.setId(nextId++);
+        sink.accept(person);
+    }
+
+    private int parseColorCode(int from, int to) {
+        int start = trimStart(from, to);
+        int end = trimEnd(start, to);
+        if (end - start > 9) {
+            return -1;
+        }
+        int code = 0;
+        for (int i = start; i < end; i++) {
+            code = code * 10 + (record[i] - '0');
+        }
+        return code;
+    }
+
+    private String decodeTrimmed(int from, int to) {
+        int start = trimStart(from, to);
+        return decode(start, trimEnd(start, to));
+    }
+
+    private String decode(int from, int to) {
+        return from >= to ? "" : new String(record, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    private int trimStart(int from, int to) {
+        while (from < to && isTrimmable(record[from])) {
+            from++;
+        }
+        return from;
+    }
+
+    private int trimEnd(int from, int to) {
+        while (to > from && isTrimmable(record[to - 1])) {
+            to--;
+        }
+        return to;
+    }
+
+    private static int indexOf(byte[] bytes, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isTrimmable(byte b) {
+        return (b & 0xFF) <= ' ';
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+}
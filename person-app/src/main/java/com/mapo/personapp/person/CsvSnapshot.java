@@ -0,0 +1,241 @@
+package com.mapo.personapp.person;
+
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Immutable view of the loaded CSV file: the persons by id, their color index, their counts per
+ * {@link PersonGrouping} and how far the file was read.
+ * <p>
+ * persons[id - 1] holds the person with that id. Appending writes past {@code size} into the same array
+ * whenever it has room, which readers of this snapshot never look at, so a new snapshot costs only the
+ * appended records.
+ * <p>
+ * The {@link PersonSearchIndex} is only built for the first search, by one thread while concurrent searches
+ * wait for it. Appended snapshots keep using it and
+ * scan the persons it does not cover, until they outgrow it by {@link #SEARCH_REINDEX_THRESHOLD} persons and
+ * an eighth of its size.
+ * <p>
+ * The {@link NameIndex} is kept the same way, built for the first name search. Once outgrown, one name search
+ * rebuilds it while the others keep using the previous one, so neither loading nor appending ever builds it.
+ */
+final class CsvSnapshot {
+    private static final int INITIAL_CAPACITY = 16;
+    static final int SEARCH_REINDEX_THRESHOLD = 4096;
+
+    private final Person[] persons;
+    private final int size;
+    private final ColorIndex colorIndex;
+    private final PersonCounts counts;
+    // records terminated by a newline; a final record without one may still grow and is parsed again
+    private final int committedCount;
+    private final long committedOffset;
+    private final Object fileKey;
+    private final long fileSize;
+    private final FileTime lastModified;
+    // cover a prefix of persons, which never changes for snapshots sharing the array
+    private volatile PersonSearchIndex searchIndex;
+    private volatile NameIndex nameIndex;
+    private final AtomicBoolean rebuildingNameIndex = new AtomicBoolean();
+
+    private CsvSnapshot(Person[] persons, int size, ColorIndex colorIndex, PersonCounts counts,
+                        int committedCount, long committedOffset, BasicFileAttributes attributes) {
+        this.persons = persons;
+        this.size = size;
+        this.colorIndex = colorIndex;
+        this.counts = counts;
+        this.committedCount = committedCount;
+        this.committedOffset = committedOffset;
+        this.fileKey = attributes == null ? null : attributes.fileKey();
+        this.fileSize = attributes == null ? -1 : attributes.size();
+        this.lastModified = attributes == null ? null : attributes.lastModifiedTime();
+    }
+
+    /**
+     * @param attributes the file the persons were read from, or null if they did not come from a file
+     */
+    static CsvSnapshot of(CsvLoad load, BasicFileAttributes attributes) {
+        List<Person> loaded = load.persons();
+        Person[] persons = loaded.toArray(new Person[Math.max(loaded.size(), INITIAL_CAPACITY)]);
+        return new CsvSnapshot(persons, loaded.size(), ColorIndex.of(loaded), PersonCounts.of(loaded),
+                load.committedCount(), load.committedOffset(), attributes);
+    }
+
+    /**
+     * Returns a snapshot extended by {@code tail}, which was parsed from {@link #committedOffset()} with ids
+     * starting at {@link #committedCount()} + 1. Must only be called on the latest snapshot.
+     */
+    CsvSnapshot append(CsvLoad tail, BasicFileAttributes attributes) {
+        List<Person> appended = tail.persons();
+        int nextSize = committedCount + appended.size();
+        Person[] nextPersons = persons;
+        ColorIndex nextIndex;
+        PersonCounts nextCounts;
+        if (committedCount < size) {
+            // the unterminated last record is replaced, so nothing may be shared with this snapshot
+            nextPersons = Arrays.copyOf(persons, Math.max(nextSize, INITIAL_CAPACITY));
+            Arrays.fill(nextPersons, committedCount, size, null);
+            for (int i = 0; i < appended.size(); i++) {
+                nextPersons[committedCount + i] = appended.get(i);
+            }
+            nextIndex = ColorIndex.of(Arrays.asList(nextPersons).subList(0, nextSize));
+            nextCounts = PersonCounts.of(Arrays.asList(nextPersons).subList(0, nextSize));
+        } else {
+            if (nextSize > persons.length) {
+                nextPersons = Arrays.copyOf(persons, Math.max(nextSize, persons.length * 2));
+            }
+            for (int i = 0; i < appended.size(); i++) {
+                nextPersons[size + i] = appended.get(i);
+            }
+            nextIndex = colorIndex.append(appended, size);
+            nextCounts = counts.append(appended);
+        }
+        CsvSnapshot next = new CsvSnapshot(nextPersons, nextSize, nextIndex, nextCounts,
+                committedCount + tail.committedCount(), tail.committedOffset(), attributes);
+        PersonSearchIndex index = searchIndex;
+        if (index != null && index.size() <= committedCount) {
+            next.searchIndex = index;
+        }
+        NameIndex names = nameIndex;
+        if (names != null && names.size() <= committedCount) {
+            next.nameIndex = names;
+        }
+        return next;
+    }
+
+    /**
+     * Whether the file described by {@code attributes} is no longer an extension of what this snapshot was read from.
+     */
+    boolean isReplacedBy(BasicFileAttributes attributes) {
+        return !Objects.equals(fileKey, attributes.fileKey())
+                || attributes.size() < fileSize
+                || attributes.size() == fileSize && !attributes.lastModifiedTime().equals(lastModified);
+    }
+
+    boolean isGrownBy(BasicFileAttributes attributes) {
+        return attributes.size() > fileSize;
+    }
+
+    Person get(long id) {
+        return id < 1 || id > size ? null : persons[(int) (id - 1)];
+    }
+
+    List<Person> persons() {
+        return Collections.unmodifiableList(Arrays.asList(persons).subList(0, size));
+    }
+
+    Person[] personsById() {
+        return persons;
+    }
+
+    int size() {
+        return size;
+    }
+
+    ColorIndex colorIndex() {
+        return colorIndex;
+    }
+
+    PersonCounts counts() {
+        return counts;
+    }
+
+    /**
+     * Returns up to {@code limit} persons matching {@code query} with an id greater than {@code afterId}, in id order.
+     */
+    List<Person> search(PersonQuery query, Long afterId, int limit) {
+        PersonSearchIndex index = searchIndex();
+        // the id of a person is its position + 1
+        int from = afterId == null ? 0 : (int) Math.min(Math.max(afterId, 0), size);
+        List<Person> result = index.search(query, persons, from, limit);
+        for (int position = Math.max(index.size(), from); position < size && result.size() < limit; position++) {
+            if (query.matches(persons[position])) {
+                result.add(persons[position]);
+            }
+        }
+        return result;
+    }
+
+    private PersonSearchIndex searchIndex() {
+        PersonSearchIndex index = searchIndex;
+        if (index == null || outgrows(index.size(), size)) {
+            synchronized (this) {
+                index = searchIndex;
+                if (index == null || outgrows(index.size(), size)) {
+                    index = PersonSearchIndex.of(persons, size);
+                    searchIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns up to {@code limit} persons with a first or last name matching {@code text}, see {@link NameMatch}.
+     */
+    List<Person> searchNames(String text, NameMatch match, int limit) {
+        String normalized = NameSearch.normalize(text);
+        NameIndex index = nameIndex();
+        if (match == NameMatch.PREFIX) {
+            List<Person> result = index.prefix(normalized, limit, persons);
+            for (int position = index.size(); position < size && result.size() < limit; position++) {
+                if (NameSearch.startsWith(persons[position], normalized)) {
+                    result.add(persons[position]);
+                }
+            }
+            return result;
+        }
+        if (index.size() == size) {
+            return index.fuzzy(normalized, limit, persons);
+        }
+        // persons past the index may rank anywhere, so both parts are ranked together
+        List<Person> candidates = index.fuzzy(normalized, limit, persons);
+        candidates.addAll(Arrays.asList(persons).subList(index.size(), size));
+        return NameSearch.scan(candidates::forEach, text, NameMatch.FUZZY, limit);
+    }
+
+    private NameIndex nameIndex() {
+        NameIndex index = nameIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = nameIndex;
+                if (index == null) {
+                    index = NameIndex.of(persons, size);
+                    nameIndex = index;
+                }
+            }
+        } else if (outgrows(index.size(), size) && rebuildingNameIndex.compareAndSet(false, true)) {
+            try {
+                index = NameIndex.of(persons, size);
+                nameIndex = index;
+            } finally {
+                rebuildingNameIndex.set(false);
+            }
+        }
+        return index;
+    }
+
+    private static boolean outgrows(int indexSize, int size) {
+        return size - indexSize > Math.max(SEARCH_REINDEX_THRESHOLD, indexSize / 8);
+    }
+
+    int committedCount() {
+        return committedCount;
+    }
+
+    long committedOffset() {
+        return committedOffset;
+    }
+
+    /**
+     * Size of the file when this snapshot was taken, or -1 if the persons did not come from a file.
+     */
+    long fileSize() {
+        return fileSize;
+    }
+}
@@ -0,0 +1,84 @@
+package com.mapo.personapp.person;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary copy of the complete records of a CSV file, in the {@link OffHeapPersonStore} layout.
+ * <p>
+ * The snapshot remembers how many bytes of the CSV file it covers and their CRC32C checksum. It stays
+ * usable while those bytes are unchanged, so a file that was only appended to still loads from the
+ * snapshot and just the appended records have to be parsed.
+ */
+@Slf4j
+final class CsvSnapshotFile {
+    private static final int READ_SIZE = 1024 * 1024;
+
+    private CsvSnapshotFile() {
+    }
+
+    /**
+     * Returns the records stored in {@code snapshotFile}, or null if there is none or it no longer matches {@code csv}.
+     */
+    static CsvLoad read(Path snapshotFile, Path csv) throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return null;
+        }
+        try (OffHeapPersonStore store = OffHeapPersonStore.open(snapshotFile)) {
+            if (Files.size(csv) < store.sourceSize() || checksum(csv, store.sourceSize()) != store.sourceChecksum()) {
+                log.info("Ignoring {}: {} has changed", snapshotFile, csv);
+                return null;
+            }
+            List<Person> persons = store.persons();
+            return new CsvLoad(persons, persons.size(), store.sourceSize());
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring {}: {}", snapshotFile, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the complete records of {@code snapshot} to {@code snapshotFile}, unless {@code csv} no longer
+     * is the file they were read from.
+     */
+    static void write(Path snapshotFile, Path csv, CsvSnapshot snapshot) throws IOException {
+        long checksum = checksum(csv, snapshot.committedOffset());
+        // a file replaced while it was loaded or checksummed would pair these records with other bytes
+        if (snapshot.isReplacedBy(Files.readAttributes(csv, BasicFileAttributes.class))) {
+            log.info("Not writing {}: {} was replaced", snapshotFile, csv);
+            return;
+        }
+        try (OffHeapPersonStore.Builder builder = new OffHeapPersonStore.Builder()) {
+            builder.source(snapshot.committedOffset(), checksum);
+            snapshot.persons().subList(0, snapshot.committedCount()).forEach(builder::add);
+            builder.write(snapshotFile);
+        }
+    }
+
+    static long checksum(Path file, long length) throws IOException {
+        CRC32C crc = new CRC32C();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(READ_SIZE);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            for (long position = 0; position < length; ) {
+                buffer.clear().limit((int) Math.min(READ_SIZE, length - position));
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException(file + " is shorter than " + length + " bytes");
+                }
+                buffer.flip();
+                crc.update(buffer);
+                position += read;
+            }
+        }
+        return crc.getValue();
+    }
+}
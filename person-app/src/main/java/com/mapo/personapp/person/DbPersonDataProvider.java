@@ -1,21 +1,39 @@
 package com.mapo.personapp.person;
 
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Component
 public class DbPersonDataProvider implements PersonDataProvider {
 
     private final PersonRepository personRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
 
-    public DbPersonDataProvider(PersonRepository personRepository) {
+    public DbPersonDataProvider(PersonRepository personRepository, EntityManager entityManager,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${person.db.batch-size:500}") int batchSize) {
         this.personRepository = personRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
     }
 
     @Override
     public List<Person> all() {
-        return personRepository.findAll();
+        return toPersons(personRepository.findRowsByOrderByIdAsc());
     }
 
     @Override
@@ -23,14 +41,98 @@ public class DbPersonDataProvider implements PersonDataProvider {
         return personRepository.save(person);
     }
 
+    @Override
+    public List<Person> saveAll(List<Person> persons) {
+        return transactionTemplate.execute(status -> {
+            List<Person> saved = new ArrayList<>(persons.size());
+            for (int i = 0; i < persons.size(); i++) {
+                Person person = persons.get(i);
+                if (person.getId() == null) {
+                    entityManager.persist(person);
+                    saved.add(person);
+                } else {
+                    saved.add(entityManager.merge(person));
+                }
+                // send the pending inserts as one JDBC batch and keep the persistence context small
+                if ((i + 1) % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            return saved;
+        });
+    }
+
     @Override
     public Person findById(Long id) {
+        // a primary key load is cheaper than a query, and runs read-only like the other reads
         return personRepository.findById(id).orElseThrow(() -> new PersonNotFoundException(id));
     }
 
     @Override
     public List<Person> findByColor(String color) {
-        return personRepository.findByColor(color);
+        return toPersons(personRepository.findRowsByColorCodeAndColorOrderByIdAsc(colorCode(color), color));
+    }
+
+    @Override
+    public List<Person> page(Long afterId, int limit) {
+        return toPersons(personRepository.findRowsByIdGreaterThanOrderByIdAsc(afterId == null ? 0L : afterId, Limit.of(limit)));
+    }
+
+    @Override
+    public List<Person> pageByColor(String color, Long afterId, int limit) {
+        return toPersons(personRepository.findRowsByColorCodeAndColorAndIdGreaterThanOrderByIdAsc(
+                colorCode(color), color, afterId == null ? 0L : afterId, Limit.of(limit)));
+    }
+
+    @Override
+    public List<Person> search(PersonQuery query, Long afterId, int limit) {
+        return toPersons(personRepository.search(query, afterId == null ? 0L : afterId, limit));
+    }
+
+    @Override
+    public Map<String, Long> countBy(PersonGrouping grouping) {
+        List<KeyCount> groups = switch (grouping) {
+            case COLOR -> personRepository.countPerColor();
+            case CITY -> personRepository.countPerCity();
+            case ZIPCODE_REGION -> personRepository.countPerZipcodeRegion();
+        };
+        Map<String, Long> counts = new TreeMap<>();
+        for (KeyCount group : groups) {
+            counts.put(group.key(), group.count());
+        }
+        return counts;
+    }
+
+    // pushed down to the pg_trgm indexes on PostgreSQL, other databases such as the embedded H2 scan every row
+    @Override
+    @Transactional(readOnly = true)
+    public List<Person> searchNames(String text, NameMatch match, int limit) {
+        if (!personRepository.supportsNameSearch()) {
+            return PersonDataProvider.super.searchNames(text, match, limit);
+        }
+        return toPersons(personRepository.searchNames(text, match, limit));
+    }
+
+    private static short colorCode(String color) {
+        return (short) CsvPersonParser.colorCode(color);
+    }
+
+    private static List<Person> toPersons(List<PersonRow> rows) {
+        List<Person> persons = new ArrayList<>(rows.size());
+        for (PersonRow row : rows) {
+            persons.add(row.toPerson());
+        }
+        return persons;
+    }
+
+    // rows instead of entities, so the persistence context stays empty however large the result set
+    @Override
+    @Transactional(readOnly = true)
+    public void forEach(Consumer<Person> action) {
+        try (Stream<PersonRow> rows = personRepository.streamRowsByOrderByIdAsc()) {
+            rows.forEach(row -> action.accept(row.toPerson()));
+        }
     }
 
     @Override
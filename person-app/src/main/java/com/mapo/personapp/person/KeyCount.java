@@ -0,0 +1,7 @@
+package com.mapo.personapp.person;
+
+/**
+ * One group of a {@link PersonRepository} count query: the key of a {@link PersonGrouping} and its persons.
+ */
+public record KeyCount(String key, Long count) {
+}
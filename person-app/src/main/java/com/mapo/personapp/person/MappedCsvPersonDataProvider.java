@@ -0,0 +1,221 @@
+package com.mapo.personapp.person;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+
+/**
+ * Serves a CSV file that may be larger than the heap. The file is memory-mapped and only a
+ * record offset index and one color byte per record are kept on the heap; persons are decoded
+ * from the mapping on demand.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "person.csv.mapped.file")
+public class MappedCsvPersonDataProvider implements PersonDataProvider {
+    private static final long CHUNK_SIZE = 1L << 30;
+    private static final int READ_SIZE = 64 * 1024;
+    private static final int DECODE_READ_SIZE = 512;
+
+    private final MappedByteBuffer[] chunks;
+    private final long fileSize;
+    private long[] offsets = new long[1024];
+    private byte[] colorCodes = new byte[1024];
+    private int size;
+
+    public MappedCsvPersonDataProvider(@Value("${person.csv.mapped.file}") String file) {
+        this(Path.of(file));
+    }
+
+    MappedCsvPersonDataProvider(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            this.fileSize = channel.size();
+            this.chunks = new MappedByteBuffer[(int) ((fileSize + CHUNK_SIZE - 1) / CHUNK_SIZE)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = i * CHUNK_SIZE;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, fileSize - start));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map " + file, e);
+        }
+        buildIndex();
+        log.info("Indexed {} persons in {}", size, file);
+    }
+
+    private void buildIndex() {
+        CsvPersonParser parser = new CsvPersonParser(1L, 0L, (id, offset, colorCode) -> {
+            if (size == offsets.length) {
+                offsets = Arrays.copyOf(offsets, size * 2);
+                colorCodes = Arrays.copyOf(colorCodes, size * 2);
+            }
+            offsets[size] = offset;
+            colorCodes[size] = (byte) (CsvPersonParser.COLOR_MAP.containsKey(colorCode) ? colorCode : 0);
+            size++;
+        });
+        byte[] buffer = new byte[READ_SIZE];
+        for (long position = 0; position < fileSize; ) {
+            int read = read(position, buffer, buffer.length);
+            parser.feed(buffer, 0, read);
+            position += read;
+        }
+        parser.finish();
+        offsets = Arrays.copyOf(offsets, size);
+        colorCodes = Arrays.copyOf(colorCodes, size);
+    }
+
+    private int read(long position, byte[] buffer, int length) {
+        MappedByteBuffer chunk = chunks[(int) (position / CHUNK_SIZE)];
+        int index = (int) (position % CHUNK_SIZE);
+        int read = (int) Math.min(length, Math.min(chunk.limit() - index, fileSize - position));
+        chunk.get(index, buffer, 0, read);
+        return read;
+    }
+
+    private Person decode(int index) {
+        Person[] decoded = new Person[1];
+        CsvPersonParser parser = new CsvPersonParser(index + 1L, person -> {
+            if (decoded[0] == null) {
+                decoded[0] = person;
+            }
+        });
+        byte[] buffer = new byte[DECODE_READ_SIZE];
+        long position = offsets[index];
+        while (decoded[0] == null && position < fileSize) {
+            int read = read(position, buffer, buffer.length);
+            parser.feed(buffer, 0, read);
+            position += read;
+        }
+        if (decoded[0] == null) {
+            parser.finish();
+        }
+        return decoded[0];
+    }
+
+    @Override
+    public List<Person> all() {
+        return new AbstractList<>() {
+            @Override
+            public Person get(int index) {
+                return decode(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public Person save(Person person) {
+        throw new ReadOnlyProviderException("The memory-mapped CSV provider is read-only, persons cannot be saved with it");
+    }
+
+    @Override
+    public List<Person> saveAll(List<Person> persons) {
+        throw new ReadOnlyProviderException("The memory-mapped CSV provider is read-only, persons cannot be saved with it");
+    }
+
+    // read-only, the persons loaded at startup never change
+    @Override
+    public OptionalLong version() {
+        return OptionalLong.of(0);
+    }
+
+    @Override
+    public Person findById(Long id) {
+        if (id == null || id < 1 || id > size) {
+            throw new PersonNotFoundException(id);
+        }
+        return decode((int) (id - 1));
+    }
+
+    @Override
+    public List<Person> findByColor(String color) {
+        int colorCode = CsvPersonParser.colorCode(color);
+        if (colorCode == 0 && !CsvPersonParser.UNKNOWN_COLOR.equals(color)) {
+            return List.of();
+        }
+        int[] matches = new int[16];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (colorCodes[i] == colorCode) {
+                if (count == matches.length) {
+                    matches = Arrays.copyOf(matches, count * 2);
+                }
+                matches[count++] = i;
+            }
+        }
+        int[] hits = matches;
+        int hitCount = count;
+        return new AbstractList<>() {
+            @Override
+            public Person get(int index) {
+                return decode(hits[index]);
+            }
+
+            @Override
+            public int size() {
+                return hitCount;
+            }
+        };
+    }
+
+    @Override
+    public List<Person> page(Long afterId, int limit) {
+        int from = (int) Math.min(Math.max(afterId == null ? 0L : afterId, 0L), size);
+        int to = (int) Math.min((long) from + limit, size);
+        List<Person> result = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            result.add(decode(i));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Person> pageByColor(String color, Long afterId, int limit) {
+        int colorCode = CsvPersonParser.colorCode(color);
+        if (colorCode == 0 && !CsvPersonParser.UNKNOWN_COLOR.equals(color)) {
+            return List.of();
+        }
+        List<Person> result = new ArrayList<>();
+        int from = (int) Math.min(Math.max(afterId == null ? 0L : afterId, 0L), size);
+        for (int i = from; i < size && result.size() < limit; i++) {
+            if (colorCodes[i] == colorCode) {
+                result.add(decode(i));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void forEach(Consumer<Person> action) {
+        CsvPersonParser parser = new CsvPersonParser(1L, action);
+        byte[] buffer = new byte[READ_SIZE];
+        for (long position = 0; position < fileSize; ) {
+            int read = read(position, buffer, buffer.length);
+            parser.feed(buffer, 0, read);
+            position += read;
+        }
+        parser.finish();
+    }
+
+    @Override
+    public PersonDataProviderType getProviderType() {
+        return PersonDataProviderType.CSV_MAPPED;
+    }
+}
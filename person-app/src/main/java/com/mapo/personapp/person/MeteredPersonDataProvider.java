@@ -0,0 +1,142 @@
+package com.mapo.personapp.person;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Times every call to another provider as {@code person.provider.calls}, tagged with the provider type, the
+ * method and its outcome, and records the number of persons returned by list methods as
+ * {@code person.provider.results}. Percentile histograms are enabled through
+ * {@code management.metrics.distribution.percentiles-histogram}, like for any other meter.
+ */
+public class MeteredPersonDataProvider implements PersonDataProvider {
+    private static final String CALLS = "person.provider.calls";
+    private static final String RESULTS = "person.provider.results";
+
+    private final PersonDataProvider delegate;
+    private final MeterRegistry registry;
+    private final Tags tags;
+    // looked up once, so a call pays only for the clock and the recording
+    private final Map<String, Timer> successTimers = new HashMap<>();
+    private final Map<String, DistributionSummary> resultSizes = new HashMap<>();
+
+    public MeteredPersonDataProvider(PersonDataProvider delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        this.registry = registry;
+        this.tags = Tags.of("provider", delegate.getProviderType().name());
+        for (String method : List.of("all", "save", "saveAll", "findById", "findByColor", "page", "pageByColor", "search", "searchNames", "countBy", "forEach")) {
+            successTimers.put(method, timer(method, "success"));
+        }
+        for (String method : List.of("all", "saveAll", "findByColor", "page", "pageByColor", "search", "searchNames")) {
+            resultSizes.put(method, DistributionSummary.builder(RESULTS)
+                    .description("Persons returned by a provider call")
+                    .tags(tags.and("method", method))
+                    .register(registry));
+        }
+    }
+
+    private Timer timer(String method, String outcome) {
+        return Timer.builder(CALLS)
+                .description("Calls to the person data provider")
+                .tags(tags.and("method", method, "outcome", outcome))
+                .register(registry);
+    }
+
+    private <T> T record(String method, Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            successTimers.get(method).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (RuntimeException e) {
+            String outcome = e instanceof PersonNotFoundException ? "not_found" : "error";
+            timer(method, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private List<Person> recordList(String method, Supplier<List<Person>> call) {
+        List<Person> result = record(method, call);
+        resultSizes.get(method).record(result.size());
+        return result;
+    }
+
+    @Override
+    public List<Person> all() {
+        return recordList("all", delegate::all);
+    }
+
+    @Override
+    public Person save(Person person) {
+        return record("save", () -> delegate.save(person));
+    }
+
+    @Override
+    public List<Person> saveAll(List<Person> persons) {
+        return recordList("saveAll", () -> delegate.saveAll(persons));
+    }
+
+    @Override
+    public Person findById(Long id) {
+        return record("findById", () -> delegate.findById(id));
+    }
+
+    @Override
+    public List<Person> findByColor(String color) {
+        return recordList("findByColor", () -> delegate.findByColor(color));
+    }
+
+    @Override
+    public List<Person> page(Long afterId, int limit) {
+        return recordList("page", () -> delegate.page(afterId, limit));
+    }
+
+    @Override
+    public List<Person> pageByColor(String color, Long afterId, int limit) {
+        return recordList("pageByColor", () -> delegate.pageByColor(color, afterId, limit));
+    }
+
+    @Override
+    public List<Person> search(PersonQuery query, Long afterId, int limit) {
+        return recordList("search", () -> delegate.search(query, afterId, limit));
+    }
+
+    @Override
+    public List<Person> searchNames(String text, NameMatch match, int limit) {
+        return recordList("searchNames", () -> delegate.searchNames(text, match, limit));
+    }
+
+    @Override
+    public Map<String, Long> countBy(PersonGrouping grouping) {
+        return record("countBy", () -> delegate.countBy(grouping));
+    }
+
+    // includes the time the action takes, e.g. writing each person to the response
+    @Override
+    public void forEach(Consumer<Person> action) {
+        record("forEach", () -> {
+            delegate.forEach(action);
+            return null;
+        });
+    }
+
+    @Override
+    public OptionalLong version() {
+        return delegate.version();
+    }
+
+    @Override
+    public PersonDataProviderType getProviderType() {
+        return delegate.getProviderType();
+    }
+}
@@ -0,0 +1,211 @@
+package com.mapo.personapp.person;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Name index over the first {@link #size()} persons of a {@link CsvSnapshot}, for {@link NameSearch} semantics.
+ * <p>
+ * The distinct first and last names, normalized and sorted, map to the ascending positions of the persons
+ * bearing them. Sorted that way the names starting with a prefix are one contiguous run, which is what a
+ * prefix trie would walk, and the first persons of the run come from merging their position lists.
+ * Fuzzy matching counts, for every name sharing a trigram with the text, how many it shares, through a second
+ * mapping from each trigram to the names containing it. Both only grow with the distinct names, not with the
+ * persons. Instances never change once built.
+ */
+final class NameIndex {
+    private final int size;
+    private final String[] names;
+    private final int[][] positions;
+    private final int[] trigramCounts;
+    private final long[] trigrams;
+    private final int[][] trigramNames;
+
+    private NameIndex(Person[] byPosition, int size) {
+        this.size = size;
+        Map<String, IntList> postings = new HashMap<>();
+        for (int position = 0; position < size; position++) {
+            Person person = byPosition[position];
+            add(postings, person.getFirstname(), position);
+            add(postings, person.getLastname(), position);
+        }
+
+        names = postings.keySet().toArray(String[]::new);
+        Arrays.sort(names);
+        positions = new int[names.length][];
+        trigramCounts = new int[names.length];
+        Map<Long, IntList> byTrigram = new HashMap<>();
+        for (int name = 0; name < names.length; name++) {
+            positions[name] = postings.get(names[name]).toArray();
+            long[] nameTrigrams = NameSearch.trigrams(names[name]);
+            trigramCounts[name] = nameTrigrams.length;
+            for (long trigram : nameTrigrams) {
+                byTrigram.computeIfAbsent(trigram, t -> new IntList()).add(name);
+            }
+        }
+        trigrams = new long[byTrigram.size()];
+        int i = 0;
+        for (long trigram : byTrigram.keySet()) {
+            trigrams[i++] = trigram;
+        }
+        Arrays.sort(trigrams);
+        trigramNames = new int[trigrams.length][];
+        for (i = 0; i < trigrams.length; i++) {
+            trigramNames[i] = byTrigram.get(trigrams[i]).toArray();
+        }
+    }
+
+    // a person named e.g. "Anna Anna" is listed once under that name
+    private static void add(Map<String, IntList> postings, String name, int position) {
+        if (name != null) {
+            IntList list = postings.computeIfAbsent(NameSearch.normalize(name), n -> new IntList());
+            if (list.count == 0 || list.values[list.count - 1] != position) {
+                list.add(position);
+            }
+        }
+    }
+
+    static NameIndex of(Person[] byPosition, int size) {
+        return new NameIndex(byPosition, size);
+    }
+
+    /**
+     * Number of persons covered, from position 0.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * The first {@code limit} covered persons with a name starting with the normalized {@code prefix}, in position order.
+     */
+    List<Person> prefix(String prefix, int limit, Person[] byPosition) {
+        int from = Arrays.binarySearch(names, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int low = from;
+        int high = names.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (names[middle].startsWith(prefix)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        int[] matching = new int[low - from];
+        for (int i = 0; i < matching.length; i++) {
+            matching[i] = from + i;
+        }
+        List<Person> result = new ArrayList<>(Math.min(limit, 64));
+        collect(matching, limit, new HashSet<>(), result, byPosition);
+        return result;
+    }
+
+    /**
+     * Merges the position lists of {@code matching} names into {@code result}, in position order and skipping
+     * positions already {@code taken}, until it holds {@code limit} persons. Only the heads of the lists are
+     * compared, so the work grows with the persons taken or skipped rather than with the length of the lists.
+     */
+    private void collect(int[] matching, int limit, Set<Integer> taken, List<Person> result, Person[] byPosition) {
+        // heads as (position << 32 | index into matching)
+        PriorityQueue<Long> heads = new PriorityQueue<>(Math.max(1, matching.length));
+        for (int i = 0; i < matching.length; i++) {
+            heads.add((long) positions[matching[i]][0] << 32 | i);
+        }
+        int[] cursors = new int[matching.length];
+        while (result.size() < limit && !heads.isEmpty()) {
+            long head = heads.poll();
+            int position = (int) (head >>> 32);
+            int i = (int) head;
+            // e.g. a person whose first and last name both match
+            if (taken.add(position)) {
+                result.add(byPosition[position]);
+            }
+            int[] list = positions[matching[i]];
+            if (++cursors[i] < list.length) {
+                heads.add((long) list[cursors[i]] << 32 | i);
+            }
+        }
+    }
+
+    /**
+     * The covered persons with a name at least {@link NameSearch#SIMILARITY_THRESHOLD} similar to the normalized
+     * {@code text}, by their most similar name, best first and then in position order, up to {@code limit}.
+     */
+    List<Person> fuzzy(String text, int limit, Person[] byPosition) {
+        long[] query = NameSearch.trigrams(text);
+        int[] shared = new int[names.length];
+        IntList candidates = new IntList();
+        for (long trigram : query) {
+            int index = Arrays.binarySearch(trigrams, trigram);
+            if (index >= 0) {
+                for (int name : trigramNames[index]) {
+                    if (shared[name]++ == 0) {
+                        candidates.add(name);
+                    }
+                }
+            }
+        }
+
+        List<Candidate> matches = new ArrayList<>();
+        for (int i = 0; i < candidates.count; i++) {
+            int name = candidates.values[i];
+            double similarity = NameSearch.similarity(shared[name], query.length, trigramCounts[name]);
+            if (similarity >= NameSearch.SIMILARITY_THRESHOLD) {
+                matches.add(new Candidate(name, similarity));
+            }
+        }
+        matches.sort(null);
+
+        // persons are taken by their most similar name, names of equal similarity merged by position
+        List<Person> result = new ArrayList<>(Math.min(limit, 64));
+        Set<Integer> taken = new HashSet<>();
+        for (int from = 0; from < matches.size() && result.size() < limit; ) {
+            int to = from + 1;
+            while (to < matches.size() && matches.get(to).similarity() == matches.get(from).similarity()) {
+                to++;
+            }
+            int[] tie = new int[to - from];
+            for (int i = 0; i < tie.length; i++) {
+                tie[i] = matches.get(from + i).name();
+            }
+            collect(tie, limit, taken, result, byPosition);
+            from = to;
+        }
+        return result;
+    }
+
+    private record Candidate(int name, double similarity) implements Comparable<Candidate> {
+
+        @Override
+        public int compareTo(Candidate other) {
+            int bySimilarity = Double.compare(other.similarity, similarity);
+            return bySimilarity != 0 ? bySimilarity : Integer.compare(name, other.name);
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[1];
+        private int count;
+
+        void add(int value) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, count);
+        }
+    }
+}
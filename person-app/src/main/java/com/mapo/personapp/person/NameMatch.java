@@ -0,0 +1,11 @@
+package com.mapo.personapp.person;
+
+/**
+ * How {@link PersonDataProvider#searchNames} compares the search text with first and last names, ignoring case.
+ */
+public enum NameMatch {
+    // a name starts with the text; results in id order
+    PREFIX,
+    // a name shares enough trigrams with the text, like pg_trgm's % operator; results best match first
+    FUZZY
+}
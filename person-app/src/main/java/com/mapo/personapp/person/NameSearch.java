@@ -0,0 +1,165 @@
+package com.mapo.personapp.person;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * The name matching shared by every provider, modelled on PostgreSQL's pg_trgm so that the DB provider can
+ * push it down: names are lower-cased and split into words at anything but letters and digits, and each word,
+ * padded with two spaces in front and one behind, contributes its three-character substrings. The similarity
+ * of two names is the number of trigrams they share divided by the number of distinct trigrams of both.
+ */
+final class NameSearch {
+    // pg_trgm.similarity_threshold by default
+    static final double SIMILARITY_THRESHOLD = 0.3;
+
+    private NameSearch() {
+    }
+
+    static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Distinct trigrams of the normalized {@code name}, three UTF-16 characters packed into each long, sorted.
+     */
+    static long[] trigrams(String name) {
+        long[] trigrams = new long[name.length() * 2 + 2];
+        int count = 0;
+        int start = -1;
+        for (int i = 0; i <= name.length(); i++) {
+            boolean wordCharacter = i < name.length() && Character.isLetterOrDigit(name.charAt(i));
+            if (wordCharacter && start < 0) {
+                start = i;
+            } else if (!wordCharacter && start >= 0) {
+                String word = "  " + name.substring(start, i) + " ";
+                for (int j = 0; j + 3 <= word.length(); j++) {
+                    trigrams[count++] = (long) word.charAt(j) << 32 | (long) word.charAt(j + 1) << 16 | word.charAt(j + 2);
+                }
+                start = -1;
+            }
+        }
+        long[] sorted = Arrays.copyOf(trigrams, count);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+
+    static double similarity(long[] a, long[] b) {
+        int shared = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return similarity(shared, a.length, b.length);
+    }
+
+    static double similarity(int shared, int aCount, int bCount) {
+        int union = aCount + bCount - shared;
+        return union == 0 ? 0 : (double) shared / union;
+    }
+
+    // order is the position in the scan, so that equally similar persons stay in id order
+    private record Scored(Person person, double similarity, long order) {
+        // best first
+        static final Comparator<Scored> RANKING =
+                Comparator.comparingDouble(Scored::similarity).reversed().thenComparingLong(Scored::order);
+    }
+
+    /**
+     * Matches every person passed to {@code source}, for providers without a name index.
+     */
+    static List<Person> scan(Consumer<Consumer<Person>> source, String text, NameMatch match, int limit) {
+        Scan scan = new Scan(text, match, limit);
+        source.accept(scan);
+        return scan.result();
+    }
+
+    /**
+     * Matches the persons it is passed one by one, keeping only the best {@code limit} of them, so a scan
+     * holds no more than that however many persons it sees.
+     */
+    static final class Scan implements Consumer<Person> {
+        private final NameMatch match;
+        private final int limit;
+        private final String normalized;
+        private final long[] query;
+        private final List<Person> prefixed = new ArrayList<>();
+        // worst on top, to be replaced by a better one
+        private final PriorityQueue<Scored> best;
+        private long order;
+
+        Scan(String text, NameMatch match, int limit) {
+            this.match = match;
+            this.limit = limit;
+            this.normalized = normalize(text);
+            this.query = match == NameMatch.FUZZY ? trigrams(normalized) : null;
+            this.best = new PriorityQueue<>(Math.max(1, Math.min(limit, 64)), Scored.RANKING.reversed());
+        }
+
+        @Override
+        public void accept(Person person) {
+            if (match == NameMatch.PREFIX) {
+                if (prefixed.size() < limit && startsWith(person, normalized)) {
+                    prefixed.add(person);
+                }
+                return;
+            }
+            double similarity = Math.max(similarity(person.getFirstname(), query), similarity(person.getLastname(), query));
+            if (similarity < SIMILARITY_THRESHOLD || limit <= 0) {
+                return;
+            }
+            Scored scored = new Scored(person, similarity, order++);
+            if (best.size() < limit) {
+                best.add(scored);
+            } else if (Scored.RANKING.compare(scored, best.peek()) < 0) {
+                best.poll();
+                best.add(scored);
+            }
+        }
+
+        /**
+         * Whether further persons can no longer change the result.
+         */
+        boolean isComplete() {
+            return match == NameMatch.PREFIX && prefixed.size() >= limit;
+        }
+
+        List<Person> result() {
+            if (match == NameMatch.PREFIX) {
+                return prefixed;
+            }
+            return best.stream().sorted(Scored.RANKING).map(Scored::person)
+                    .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        }
+    }
+
+    static boolean startsWith(Person person, String normalizedPrefix) {
+        return startsWith(person.getFirstname(), normalizedPrefix) || startsWith(person.getLastname(), normalizedPrefix);
+    }
+
+    private static boolean startsWith(String name, String normalizedPrefix) {
+        return name != null && normalize(name).startsWith(normalizedPrefix);
+    }
+
+    private static double similarity(String name, long[] query) {
+        return name == null ? 0 : similarity(trigrams(normalize(name)), query);
+    }
+}
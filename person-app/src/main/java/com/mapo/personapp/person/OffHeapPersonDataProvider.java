@@ -0,0 +1,176 @@
+package com.mapo.personapp.person;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+
+/**
+ * Serves the CSV file from an {@link OffHeapPersonStore}, so the heap and GC pauses stay the same size
+ * whatever the number of persons.
+ * <p>
+ * With {@code person.offheap.file} set, the store is written to that file once and mapped back on later
+ * starts, skipping the CSV parse, until the CSV file is modified again. Read-only.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "person.provider", havingValue = "CSV_OFF_HEAP")
+public class OffHeapPersonDataProvider implements PersonDataProvider {
+    private final OffHeapPersonStore store;
+
+    public OffHeapPersonDataProvider(@Value("${person.csv.file:classpath:sample-input.csv}") Resource resource,
+                                     @Value("${person.offheap.file:}") String storeFile) {
+        try {
+            this.store = storeFile.isEmpty() ? load(resource) : loadCached(resource, Path.of(storeFile));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load " + resource, e);
+        }
+        log.info("Loaded {} persons off-heap", store.size());
+    }
+
+    private static OffHeapPersonStore load(Resource resource) throws IOException {
+        try (OffHeapPersonStore.Builder builder = parse(resource)) {
+            return builder.build();
+        }
+    }
+
+    private static OffHeapPersonStore loadCached(Resource resource, Path storeFile) throws IOException {
+        if (Files.exists(storeFile) && Files.getLastModifiedTime(storeFile).toMillis() >= resource.lastModified()) {
+            try {
+                return OffHeapPersonStore.open(storeFile);
+            } catch (IllegalArgumentException e) {
+                log.warn("Rebuilding {}: {}", storeFile, e.getMessage());
+            }
+        }
+        try (OffHeapPersonStore.Builder builder = parse(resource)) {
+            builder.write(storeFile);
+        }
+        return OffHeapPersonStore.open(storeFile);
+    }
+
+    private static OffHeapPersonStore.Builder parse(Resource resource) throws IOException {
+        OffHeapPersonStore.Builder builder = new OffHeapPersonStore.Builder();
+        try (InputStream in = resource.getInputStream()) {
+            CsvPersonParser.parse(in, builder::add);
+        } catch (IOException | RuntimeException e) {
+            builder.close();
+            throw e;
+        }
+        return builder;
+    }
+
+    @PreDestroy
+    void close() {
+        store.close();
+    }
+
+    @Override
+    public List<Person> all() {
+        return new AbstractList<>() {
+            @Override
+            public Person get(int index) {
+                return store.person(index);
+            }
+
+            @Override
+            public int size() {
+                return store.size();
+            }
+        };
+    }
+
+    @Override
+    public Person save(Person person) {
+        throw new ReadOnlyProviderException("The off-heap CSV provider is read-only, persons cannot be saved with it");
+    }
+
+    @Override
+    public List<Person> saveAll(List<Person> persons) {
+        throw new ReadOnlyProviderException("The off-heap CSV provider is read-only, persons cannot be saved with it");
+    }
+
+    // read-only, the persons loaded at startup never change
+    @Override
+    public OptionalLong version() {
+        return OptionalLong.of(0);
+    }
+
+    @Override
+    public Person findById(Long id) {
+        int row = id == null ? -1 : store.rowOf(id);
+        if (row < 0) {
+            throw new PersonNotFoundException(id);
+        }
+        return store.person(row);
+    }
+
+    @Override
+    public List<Person> findByColor(String color) {
+        int colorCode = CsvPersonParser.colorCode(color);
+        if (colorCode == 0 && !CsvPersonParser.UNKNOWN_COLOR.equals(color)) {
+            return List.of();
+        }
+        return new AbstractList<>() {
+            @Override
+            public Person get(int index) {
+                return store.person(store.colorRow(colorCode, index));
+            }
+
+            @Override
+            public int size() {
+                return store.colorCount(colorCode);
+            }
+        };
+    }
+
+    @Override
+    public List<Person> page(Long afterId, int limit) {
+        int from = store.rowAfter(afterId == null ? 0L : afterId);
+        int to = (int) Math.min((long) from + limit, store.size());
+        List<Person> result = new ArrayList<>(Math.max(to - from, 0));
+        for (int row = from; row < to; row++) {
+            result.add(store.person(row));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Person> pageByColor(String color, Long afterId, int limit) {
+        int colorCode = CsvPersonParser.colorCode(color);
+        if (colorCode == 0 && !CsvPersonParser.UNKNOWN_COLOR.equals(color)) {
+            return List.of();
+        }
+        int from = store.colorPosition(colorCode, store.rowAfter(afterId == null ? 0L : afterId));
+        int to = (int) Math.min((long) from + limit, store.colorCount(colorCode));
+        List<Person> result = new ArrayList<>(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            result.add(store.person(store.colorRow(colorCode, i)));
+        }
+        return result;
+    }
+
+    @Override
+    public void forEach(Consumer<Person> action) {
+        for (int row = 0; row < store.size(); row++) {
+            action.accept(store.person(row));
+        }
+    }
+
+    @Override
+    public PersonDataProviderType getProviderType() {
+        return PersonDataProviderType.CSV_OFF_HEAP;
+    }
+}
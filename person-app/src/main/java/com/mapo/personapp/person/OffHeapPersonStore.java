@@ -0,0 +1,402 @@
+package com.mapo.personapp.person;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persons kept outside the Java heap in one {@link MemorySegment}, so the garbage collector never sees them.
+ * <p>
+ * The segment has the same layout in memory and on disk, which lets {@link Builder#write} persist it and
+ * {@link #open} map it back without parsing anything. All numbers are little-endian:
+ * <pre>
+ * header       64 bytes: magic, version, row count, the offsets of the sections below, and the size and
+ *              CRC32C checksum of the source the rows were read from (0 if unknown)
+ * rows         32 bytes per row in id order: id (long), firstname, lastname, zipcode and city (int string
+ *              numbers, -1 for null), color code (byte)
+ * color index  per color code its first entry and entry count (2 longs), then the row numbers (int) of
+ *              every color in row order
+ * strings      the end offset (long) of every distinct string, then their UTF-8 bytes
+ * </pre>
+ */
+final class OffHeapPersonStore implements Closeable {
+    private static final int MAGIC = 0x50455253; // "PERS"
+    private static final int VERSION = 2;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private static final long HEADER_SIZE = 64;
+    private static final long MAGIC_OFFSET = 0;
+    private static final long VERSION_OFFSET = 4;
+    private static final long ROW_COUNT_OFFSET = 8;
+    private static final long COLOR_INDEX_OFFSET = 16;
+    private static final long STRING_COUNT_OFFSET = 24;
+    private static final long STRINGS_OFFSET = 32;
+    private static final long TOTAL_SIZE_OFFSET = 40;
+    private static final long SOURCE_SIZE_OFFSET = 48;
+    private static final long SOURCE_CHECKSUM_OFFSET = 56;
+
+    private static final long ROW_SIZE = 32;
+    private static final long ID = 0;
+    private static final long FIRSTNAME = 8;
+    private static final long LASTNAME = 12;
+    private static final long ZIPCODE = 16;
+    private static final long CITY = 20;
+    private static final long COLOR = 24;
+
+    private static final int COLOR_CODES = CsvPersonParser.COLOR_MAP.size() + 1;
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final int size;
+    private final long colorIndex;
+    private final long colorRows;
+    private final int stringCount;
+    private final long stringEnds;
+    private final long stringBytes;
+
+    private OffHeapPersonStore(Arena arena, MemorySegment segment) {
+        if (segment.byteSize() < HEADER_SIZE || segment.get(INT, MAGIC_OFFSET) != MAGIC) {
+            throw new IllegalArgumentException("Not a person store");
+        }
+        if (segment.get(INT, VERSION_OFFSET) != VERSION) {
+            throw new IllegalArgumentException("Unsupported person store version " + segment.get(INT, VERSION_OFFSET));
+        }
+        if (segment.get(LONG, TOTAL_SIZE_OFFSET) != segment.byteSize()) {
+            throw new IllegalArgumentException("Truncated person store");
+        }
+        this.arena = arena;
+        this.segment = segment;
+        this.size = Math.toIntExact(segment.get(LONG, ROW_COUNT_OFFSET));
+        this.colorIndex = segment.get(LONG, COLOR_INDEX_OFFSET);
+        this.colorRows = colorIndex + COLOR_CODES * 16L;
+        this.stringCount = Math.toIntExact(segment.get(LONG, STRING_COUNT_OFFSET));
+        this.stringEnds = segment.get(LONG, STRINGS_OFFSET);
+        this.stringBytes = stringEnds + stringCount * 8L;
+    }
+
+    /**
+     * Maps a file written by {@link Builder#write}. The mapping stays valid until {@link #close()}.
+     */
+    static OffHeapPersonStore open(Path file) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new OffHeapPersonStore(arena, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena));
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    long sourceSize() {
+        return segment.get(LONG, SOURCE_SIZE_OFFSET);
+    }
+
+    long sourceChecksum() {
+        return segment.get(LONG, SOURCE_CHECKSUM_OFFSET);
+    }
+
+    long id(int row) {
+        return segment.get(LONG, HEADER_SIZE + row * ROW_SIZE + ID);
+    }
+
+    int colorCode(int row) {
+        return segment.get(ValueLayout.JAVA_BYTE, HEADER_SIZE + row * ROW_SIZE + COLOR);
+    }
+
+    /**
+     * Row of the person with the given id, or -1.
+     */
+    int rowOf(long id) {
+        int row = search(id);
+        return row < 0 ? -1 : row;
+    }
+
+    /**
+     * First row whose id is greater than {@code id}.
+     */
+    int rowAfter(long id) {
+        int row = search(id);
+        return row < 0 ? -row - 1 : row + 1;
+    }
+
+    // same contract as Arrays.binarySearch
+    private int search(long id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long value = id(middle);
+            if (value < id) {
+                low = middle + 1;
+            } else if (value > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    int colorCount(int colorCode) {
+        return (int) segment.get(LONG, colorIndex + colorCode * 16L + 8);
+    }
+
+    /**
+     * Row of the {@code n}th person with the given color, in row order.
+     */
+    int colorRow(int colorCode, int n) {
+        long first = segment.get(LONG, colorIndex + colorCode * 16L);
+        return segment.get(INT, colorRows + (first + n) * 4);
+    }
+
+    /**
+     * Position among the persons with the given color of the first one at or after {@code row}.
+     */
+    int colorPosition(int colorCode, int row) {
+        int low = 0;
+        int high = colorCount(colorCode);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (colorRow(colorCode, middle) < row) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    Person person(int row) {
+        long offset = HEADER_SIZE + row * ROW_SIZE;
+        Person person = new Person(string(offset + FIRSTNAME), string(offset + LASTNAME), string(offset + ZIPCODE),
+                string(offset + CITY), CsvPersonParser.COLOR_MAP.getOrDefault(colorCode(row), CsvPersonParser.UNKNOWN_COLOR));
+        person.setId(segment.get(LONG, offset + ID));
+        return person;
+    }
+
+    private String string(long reference) {
+        int number = segment.get(INT, reference);
+        return number < 0 ? null : decode(number);
+    }
+
+    private String decode(int number) {
+        long start = number == 0 ? 0 : segment.get(LONG, stringEnds + (number - 1) * 8L);
+        long end = segment.get(LONG, stringEnds + number * 8L);
+        byte[] bytes = segment.asSlice(stringBytes + start, end - start).toArray(ValueLayout.JAVA_BYTE);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Copies every row onto the heap. Each distinct string is decoded once and shared by all rows that use it.
+     */
+    List<Person> persons() {
+        String[] strings = new String[stringCount];
+        for (int number = 0; number < stringCount; number++) {
+            strings[number] = decode(number);
+        }
+        List<Person> persons = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            long offset = HEADER_SIZE + row * ROW_SIZE;
+            Person person = new Person(shared(strings, offset + FIRSTNAME), shared(strings, offset + LASTNAME),
+                    shared(strings, offset + ZIPCODE), shared(strings, offset + CITY),
+                    CsvPersonParser.COLOR_MAP.getOrDefault(colorCode(row), CsvPersonParser.UNKNOWN_COLOR));
+            person.setId(segment.get(LONG, offset + ID));
+            persons.add(person);
+        }
+        return persons;
+    }
+
+    private String shared(String[] strings, long reference) {
+        int number = segment.get(INT, reference);
+        return number < 0 ? null : strings[number];
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * Collects persons in ascending id order. Rows and string bytes are staged off-heap as well; only the
+     * dictionary of distinct strings lives on the heap until the store is built.
+     */
+    static final class Builder implements Closeable {
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final int[] colorCounts = new int[COLOR_CODES];
+        private final GrowableSegment rows = new GrowableSegment(1024 * ROW_SIZE);
+        private final GrowableSegment stringEnds = new GrowableSegment(1024 * 8);
+        private final GrowableSegment stringBytes = new GrowableSegment(16 * 1024);
+        private int size;
+        private long lastId;
+        private long sourceSize;
+        private long sourceChecksum;
+
+        void add(Person person) {
+            if (size > 0 && person.getId() <= lastId) {
+                throw new IllegalArgumentException("Ids must be ascending: " + person.getId() + " after " + lastId);
+            }
+            int colorCode = CsvPersonParser.colorCode(person.getColor());
+            long offset = rows.reserve(ROW_SIZE);
+            MemorySegment target = rows.segment;
+            target.set(LONG, offset + ID, person.getId());
+            target.set(INT, offset + FIRSTNAME, string(person.getFirstname()));
+            target.set(INT, offset + LASTNAME, string(person.getLastname()));
+            target.set(INT, offset + ZIPCODE, string(person.getZipcode()));
+            target.set(INT, offset + CITY, string(person.getCity()));
+            target.set(ValueLayout.JAVA_BYTE, offset + COLOR, (byte) colorCode);
+            colorCounts[colorCode]++;
+            lastId = person.getId();
+            size++;
+        }
+
+        /**
+         * Records what the rows were read from, so a reader can tell whether the store is still up to date.
+         */
+        Builder source(long size, long checksum) {
+            this.sourceSize = size;
+            this.sourceChecksum = checksum;
+            return this;
+        }
+
+        private int string(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer number = strings.get(value);
+            if (number == null) {
+                number = strings.size();
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                long offset = stringBytes.reserve(bytes.length);
+                MemorySegment.copy(bytes, 0, stringBytes.segment, ValueLayout.JAVA_BYTE, offset, bytes.length);
+                long end = stringEnds.reserve(8);
+                stringEnds.segment.set(LONG, end, stringBytes.used);
+                strings.put(value, number);
+            }
+            return number;
+        }
+
+        private long byteSize() {
+            return colorIndexOffset() + COLOR_CODES * 16L + size * 4L + stringEnds.used + stringBytes.used;
+        }
+
+        private long colorIndexOffset() {
+            return HEADER_SIZE + rows.used;
+        }
+
+        private void writeTo(MemorySegment target) {
+            long colorIndex = colorIndexOffset();
+            long colorRows = colorIndex + COLOR_CODES * 16L;
+            long strings = colorRows + size * 4L;
+            target.set(INT, MAGIC_OFFSET, MAGIC);
+            target.set(INT, VERSION_OFFSET, VERSION);
+            target.set(LONG, ROW_COUNT_OFFSET, size);
+            target.set(LONG, COLOR_INDEX_OFFSET, colorIndex);
+            target.set(LONG, STRING_COUNT_OFFSET, this.strings.size());
+            target.set(LONG, STRINGS_OFFSET, strings);
+            target.set(LONG, TOTAL_SIZE_OFFSET, target.byteSize());
+            target.set(LONG, SOURCE_SIZE_OFFSET, sourceSize);
+            target.set(LONG, SOURCE_CHECKSUM_OFFSET, sourceChecksum);
+            MemorySegment.copy(rows.segment, 0, target, HEADER_SIZE, rows.used);
+
+            long[] next = new long[COLOR_CODES];
+            long first = 0;
+            for (int code = 0; code < COLOR_CODES; code++) {
+                target.set(LONG, colorIndex + code * 16L, first);
+                target.set(LONG, colorIndex + code * 16L + 8, colorCounts[code]);
+                next[code] = first;
+                first += colorCounts[code];
+            }
+            for (int row = 0; row < size; row++) {
+                int code = rows.segment.get(ValueLayout.JAVA_BYTE, row * ROW_SIZE + COLOR);
+                target.set(INT, colorRows + next[code]++ * 4, row);
+            }
+
+            MemorySegment.copy(stringEnds.segment, 0, target, strings, stringEnds.used);
+            MemorySegment.copy(stringBytes.segment, 0, target, strings + stringEnds.used, stringBytes.used);
+        }
+
+        /**
+         * Builds a store in memory that is freed on {@link OffHeapPersonStore#close()}.
+         */
+        OffHeapPersonStore build() {
+            Arena arena = Arena.ofShared();
+            MemorySegment target = arena.allocate(byteSize(), 8);
+            writeTo(target);
+            return new OffHeapPersonStore(arena, target);
+        }
+
+        /**
+         * Writes the store to {@code file} for {@link OffHeapPersonStore#open}, replacing it atomically.
+         */
+        void write(Path file) throws IOException {
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 Arena arena = Arena.ofConfined()) {
+                MemorySegment target = channel.map(FileChannel.MapMode.READ_WRITE, 0, byteSize(), arena);
+                writeTo(target);
+                target.force();
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override
+        public void close() {
+            rows.close();
+            stringEnds.close();
+            stringBytes.close();
+        }
+    }
+
+    // doubles into a fresh arena and frees the previous one, which a single arena could not do
+    private static final class GrowableSegment implements Closeable {
+        private Arena arena = Arena.ofConfined();
+        private MemorySegment segment;
+        private long used;
+
+        private GrowableSegment(long initialSize) {
+            this.segment = arena.allocate(initialSize, 8);
+        }
+
+        /**
+         * Returns the offset of {@code bytes} newly reserved bytes.
+         */
+        long reserve(long bytes) {
+            if (used + bytes > segment.byteSize()) {
+                Arena grown = Arena.ofConfined();
+                MemorySegment larger = grown.allocate(Math.max(segment.byteSize() * 2, used + bytes), 8);
+                MemorySegment.copy(segment, 0, larger, 0, used);
+                arena.close();
+                arena = grown;
+                segment = larger;
+            }
+            long offset = used;
+            used += bytes;
+            return offset;
+        }
+
+        @Override
+        public void close() {
+            arena.close();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.mapo.personapp.person;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Loads a person CSV file by parsing byte ranges on a fork-join pool.
+ * <p>
+ * A chunk may only start right after a physical line whose trimmed content ends with {@code ", <digits>"}:
+ * such a line always completes the current record, so the parser state there is empty even when
+ * records span several lines. Each chunk is parsed with local ids which are shifted by the record
+ * counts of the preceding chunks when the results are merged.
+ */
+class ParallelCsvLoader {
+    private static final int READ_SIZE = 64 * 1024;
+    private static final long MIN_CHUNK_SIZE = 1024 * 1024;
+
+    // States of the forward scan for a line ending with ",\s*\d+" once trailing whitespace is trimmed
+    private static final int OTHER = 0;
+    private static final int COMMA = 1;
+    private static final int DIGITS = 2;
+    private static final int TRAILING = 3;
+
+    private ParallelCsvLoader() {
+    }
+
+    static CsvLoad load(Path file, int parallelism) throws IOException {
+        return load(file, parallelism, MIN_CHUNK_SIZE);
+    }
+
+    static CsvLoad load(Path file, int parallelism, long minChunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunks = (int) Math.max(1, Math.min(parallelism * 4L, size / Math.max(1, minChunkSize)));
+            long[] boundaries = new long[chunks + 1];
+            int distinct = 1;
+            for (int i = 1; i <= chunks; i++) {
+                long boundary = i == chunks ? size : nextRecordBoundary(channel, size * i / chunks);
+                // no empty chunks: the last one must hold an unterminated last record to account for it
+                if (boundary > boundaries[distinct - 1]) {
+                    boundaries[distinct++] = boundary;
+                }
+            }
+            boundaries = Arrays.copyOf(boundaries, Math.max(2, distinct));
+
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                return pool.invoke(new LoadTask(channel, boundaries));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    private static final class LoadTask extends RecursiveTask<CsvLoad> {
+        private final FileChannel channel;
+        private final long[] boundaries;
+
+        private LoadTask(FileChannel channel, long[] boundaries) {
+            this.channel = channel;
+            this.boundaries = boundaries;
+        }
+
+        @Override
+        protected CsvLoad compute() {
+            List<ChunkTask> tasks = new ArrayList<>();
+            for (int i = 0; i < boundaries.length - 1; i++) {
+                tasks.add(new ChunkTask(channel, boundaries[i], boundaries[i + 1]));
+            }
+            ForkJoinTask.invokeAll(tasks);
+
+            long[] firstIds = new long[tasks.size()];
+            int total = 0;
+            for (int i = 0; i < tasks.size(); i++) {
+                firstIds[i] = total + 1L;
+                total += tasks.get(i).join().size();
+            }
+
+            List<ForkJoinTask<?>> renumbering = new ArrayList<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                List<Person> chunk = tasks.get(i).join();
+                long firstId = firstIds[i];
+                renumbering.add(ForkJoinTask.adapt(() -> {
+                    for (int j = 0; j < chunk.size(); j++) {
+                        chunk.get(j).setId(firstId + j);
+                    }
+                }));
+            }
+            ForkJoinTask.invokeAll(renumbering);
+
+            List<Person> persons = new ArrayList<>(total);
+            int rejectedCount = 0;
+            for (ChunkTask task : tasks) {
+                persons.addAll(task.join());
+                rejectedCount += task.rejectedCount;
+            }
+            // earlier chunks end on a record boundary, only the last one can end with a pending record
+            ChunkTask last = tasks.get(tasks.size() - 1);
+            int committedCount = total - last.join().size() + last.committedCount;
+            return new CsvLoad(persons, committedCount, last.committedOffset, rejectedCount);
+        }
+    }
+
+    private static final class ChunkTask extends RecursiveTask<List<Person>> {
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private int committedCount;
+        private long committedOffset;
+        private int rejectedCount;
+
+        private ChunkTask(FileChannel channel, long start, long end) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected List<Person> compute() {
+            List<Person> persons = new ArrayList<>();
+            CsvPersonParser parser = new CsvPersonParser(1L, start, persons::add);
+            ByteBuffer buffer = ByteBuffer.allocate(READ_SIZE);
+            try {
+                for (long position = start; position < end; ) {
+                    buffer.clear().limit((int) Math.min(READ_SIZE, end - position));
+                    int read = channel.read(buffer, position);
+                    if (read < 0) {
+                        break;
+                    }
+                    parser.feed(buffer.array(), 0, read);
+                    position += read;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            committedCount = persons.size();
+            committedOffset = parser.pendingOffset();
+            parser.finish();
+            rejectedCount = parser.rejectedCount();
+            return persons;
+        }
+    }
+
+    /**
+     * Returns the offset right after the first line at or after {@code from} that is guaranteed to end a record,
+     * or the file size if there is none.
+     */
+    static long nextRecordBoundary(FileChannel channel, long from) throws IOException {
+        long size = channel.size();
+        ByteBuffer buffer = ByteBuffer.allocate(READ_SIZE);
+        long position = from;
+        boolean atLineStart = from == 0;
+        if (!atLineStart) {
+            // the partial line at "from" has an unknown prefix, so it cannot be judged
+            buffer.limit(1);
+            channel.read(buffer, from - 1);
+            atLineStart = buffer.get(0) == '\n';
+        }
+        int state = OTHER;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            byte[] bytes = buffer.array();
+            for (int i = 0; i < read; i++) {
+                byte b = bytes[i];
+                if (b == '\n') {
+                    if (atLineStart && (state == DIGITS || state == TRAILING)) {
+                        return position + i + 1;
+                    }
+                    atLineStart = true;
+                    state = OTHER;
+                } else {
+                    state = next(state, b);
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static int next(int state, byte b) {
+        if (b == ',') {
+            return COMMA;
+        }
+        if (b >= '0' && b <= '9') {
+            return state == COMMA || state == DIGITS ? DIGITS : OTHER;
+        }
+        boolean whitespace = b == ' ' || b == '\t' || b == 0x0B || b == '\f' || b == '\r';
+        if (whitespace && state == COMMA) {
+            return COMMA;
+        }
+        if ((b & 0xFF) <= ' ' && (state == DIGITS || state == TRAILING)) {
+            return TRAILING;
+        }
+        return OTHER;
+    }
+}
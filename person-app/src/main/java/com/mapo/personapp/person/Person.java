@@ -1,9 +1,14 @@
 package com.mapo.personapp.person;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import lombok.AllArgsConstructor;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.SequenceGenerator;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -13,8 +18,13 @@ import lombok.Setter;
 @Entity
 @NoArgsConstructor
 public class Person {
+    // ids reserved per value of person_seq, shared with the writers outside JPA through PersonIdAllocator
+    static final int ID_ALLOCATION_SIZE = 500;
+
+    // pooled sequence: one sequence call per 500 inserts, matching person.db.batch-size
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "person_seq")
+    @SequenceGenerator(name = "person_seq", sequenceName = "person_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     private String firstname;
@@ -22,6 +32,11 @@ public class Person {
     private String zipcode;
     private String city;
     private String color;
+    // indexed stand-in for color, set from it whenever the row is written; not part of the JSON
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @Column(name = "color_code")
+    private short colorCode;
 
     public Person(String firstname, String lastname, String zipcode, String city, String color) {
         this.firstname = firstname;
@@ -30,4 +45,10 @@ public class Person {
         this.city = city;
         this.color = color;
     }
+
+    @PrePersist
+    @PreUpdate
+    void updateColorCode() {
+        this.colorCode = (short) CsvPersonParser.colorCode(color);
+    }
 }
@@ -0,0 +1,17 @@
+package com.mapo.personapp.person;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Settings of the read-through cache in front of the selected {@link PersonDataProvider}.
+ * {@code maximumSize} bounds the number of cached persons, counting every person of a cached color list.
+ */
+@ConfigurationProperties("person.cache")
+public record PersonCacheProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("10000") long maximumSize,
+        @DefaultValue("10m") Duration ttl) {
+}
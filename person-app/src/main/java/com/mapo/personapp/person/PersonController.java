@@ -1,21 +1,65 @@
 package com.mapo.personapp.person;
 
 import org.apache.catalina.User;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SerializationFeature;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class PersonController {
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
     private final PersonService personService;
+    private final PersonResponseCache responseCache;
+    private final ObjectWriter ndjsonWriter;
 
-    PersonController(PersonService personService) {
+    PersonController(PersonService personService, PersonResponseCache responseCache, ObjectMapper objectMapper) {
         this.personService = personService;
+        this.responseCache = responseCache;
+        this.ndjsonWriter = objectMapper.writerFor(Person.class)
+                .withRootValueSeparator("")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
+    // conditional: answers 304 to an If-None-Match with the ETag of the current data, see PersonResponseCache
     @GetMapping("/persons")
-    List<Person> all() {
-        return personService.all();
+    ResponseEntity<?> all(WebRequest request) {
+        return responseCache.respond("all", personService::all, request);
+    }
+
+    @GetMapping(value = "/persons", produces = APPLICATION_NDJSON_VALUE)
+    ResponseEntity<StreamingResponseBody> export() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = ndjsonWriter.createGenerator(out)) {
+                boolean[] first = {true};
+                personService.forEach(person -> {
+                    ndjsonWriter.writeValue(generator, person);
+                    generator.writeRaw('\n');
+                    if (first[0]) {
+                        // send the first line right away instead of waiting for the buffer to fill
+                        generator.flush();
+                        first[0] = false;
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE)).body(body);
+    }
+
+    @GetMapping(value = "/persons", params = "limit")
+    PersonPage page(@RequestParam int limit, @RequestParam(required = false) Long cursor) {
+        return personService.page(cursor, limit);
     }
 
     @GetMapping("/persons/{id}")
@@ -24,12 +68,53 @@ public class PersonController {
     }
 
     @GetMapping("/persons/color/{color}")
-    List<Person> byColor(@PathVariable String color) {
-        return personService.findByColor(color);
+    ResponseEntity<?> byColor(@PathVariable String color, WebRequest request) {
+        return responseCache.respond("color:" + color, () -> personService.findByColor(color), request);
+    }
+
+    @GetMapping(value = "/persons/color/{color}", params = "limit")
+    PersonPage pageByColor(@PathVariable String color, @RequestParam int limit, @RequestParam(required = false) Long cursor) {
+        return personService.pageByColor(color, cursor, limit);
+    }
+
+    // e.g. /persons/search?zipcodePrefix=10&lastname=Müller, criteria are bound to the record by name;
+    // paged like /persons?limit, so an empty query does not return everyone at once
+    @GetMapping("/persons/search")
+    PersonPage search(PersonQuery query, @RequestParam(defaultValue = "100") int limit,
+                      @RequestParam(required = false) Long cursor) {
+        return personService.search(query, cursor, limit);
+    }
+
+    // e.g. /persons/names?q=Müll or /persons/names?q=Mueller&match=FUZZY, for the first or last name
+    @GetMapping("/persons/names")
+    List<Person> searchNames(@RequestParam String q, @RequestParam(defaultValue = "PREFIX") NameMatch match,
+                             @RequestParam(defaultValue = "10") int limit) {
+        return personService.searchNames(q, match, limit);
+    }
+
+    // number of persons per color, city or zipcode region, e.g. {"blau":2,"grün":1}
+    @GetMapping("/persons/counts/color")
+    Map<String, Long> countByColor() {
+        return personService.countBy(PersonGrouping.COLOR);
+    }
+
+    @GetMapping("/persons/counts/city")
+    Map<String, Long> countByCity() {
+        return personService.countBy(PersonGrouping.CITY);
+    }
+
+    @GetMapping("/persons/counts/zipcode-region")
+    Map<String, Long> countByZipcodeRegion() {
+        return personService.countBy(PersonGrouping.ZIPCODE_REGION);
     }
 
     @PostMapping("/persons")
     Person newEmployee(@RequestBody Person newPerson) {
         return personService.save(newPerson);
     }
+
+    @PostMapping("/persons/batch")
+    List<Person> newEmployees(@RequestBody List<Person> newPersons) {
+        return personService.saveAll(newPersons);
+    }
 }
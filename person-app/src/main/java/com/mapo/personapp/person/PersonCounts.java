@@ -0,0 +1,106 @@
+package com.mapo.personapp.person;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Number of persons per key of every {@link PersonGrouping}, kept by {@link CsvSnapshot} so counts are served
+ * without looking at a single person.
+ * <p>
+ * Keys get dense ids in order of first appearance. Instances never change once built: like {@link ColorIndex},
+ * {@link #append} shares the key arrays with the counts it extends and only writes past their key counts, so
+ * it costs a copy of the count arrays plus the appended persons. Appending to the same instance twice is
+ * therefore not allowed. The sorted map of a grouping is built on its first request.
+ */
+final class PersonCounts {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Group[] groups;
+
+    private PersonCounts(Group[] groups) {
+        this.groups = groups;
+    }
+
+    static PersonCounts of(List<Person> persons) {
+        Group[] groups = new Group[PersonGrouping.values().length];
+        for (PersonGrouping grouping : PersonGrouping.values()) {
+            groups[grouping.ordinal()] = new Group(new HashMap<>(), new String[INITIAL_CAPACITY], 0, new int[INITIAL_CAPACITY]);
+        }
+        return new PersonCounts(groups).append(persons);
+    }
+
+    /**
+     * Returns counts that additionally include {@code persons}.
+     */
+    PersonCounts append(List<Person> persons) {
+        Group[] next = new Group[groups.length];
+        for (PersonGrouping grouping : PersonGrouping.values()) {
+            next[grouping.ordinal()] = groups[grouping.ordinal()].append(grouping, persons);
+        }
+        return new PersonCounts(next);
+    }
+
+    /**
+     * Persons per key, sorted by key.
+     */
+    Map<String, Long> get(PersonGrouping grouping) {
+        return groups[grouping.ordinal()].sorted();
+    }
+
+    private static final class Group {
+        // only read and written by append, which runs on the latest instance
+        private final Map<String, Integer> ids;
+        private final String[] keys;
+        private final int keyCount;
+        private final int[] counts;
+        private volatile Map<String, Long> sorted;
+
+        private Group(Map<String, Integer> ids, String[] keys, int keyCount, int[] counts) {
+            this.ids = ids;
+            this.keys = keys;
+            this.keyCount = keyCount;
+            this.counts = counts;
+        }
+
+        Group append(PersonGrouping grouping, List<Person> persons) {
+            String[] nextKeys = keys;
+            int nextKeyCount = keyCount;
+            int[] nextCounts = counts.clone();
+            for (Person person : persons) {
+                String key = grouping.key(person);
+                if (key == null) {
+                    continue;
+                }
+                Integer id = ids.get(key);
+                if (id == null) {
+                    if (nextKeyCount == nextKeys.length) {
+                        nextKeys = Arrays.copyOf(nextKeys, nextKeyCount * 2);
+                        nextCounts = Arrays.copyOf(nextCounts, nextKeyCount * 2);
+                    }
+                    id = nextKeyCount++;
+                    nextKeys[id] = key;
+                    ids.put(key, id);
+                }
+                nextCounts[id]++;
+            }
+            return new Group(ids, nextKeys, nextKeyCount, nextCounts);
+        }
+
+        Map<String, Long> sorted() {
+            Map<String, Long> result = sorted;
+            if (result == null) {
+                TreeMap<String, Long> map = new TreeMap<>();
+                for (int id = 0; id < keyCount; id++) {
+                    map.put(keys[id], (long) counts[id]);
+                }
+                result = Collections.unmodifiableMap(map);
+                sorted = result;
+            }
+            return result;
+        }
+    }
+}
@@ -1,12 +1,54 @@
 package com.mapo.personapp.person;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+import java.util.function.Consumer;
 
 public interface PersonDataProvider {
     List<Person> all();
     Person save(Person person);
+    List<Person> saveAll(List<Person> persons);
     Person findById(Long id);
     List<Person> findByColor(String color);
+    // keyset pagination: at most limit persons with an id greater than afterId (null for the first page), in id order
+    List<Person> page(Long afterId, int limit);
+    List<Person> pageByColor(String color, Long afterId, int limit);
+    // at most limit persons matching every criterion of the query with an id greater than afterId (null for the
+    // first page), in id order; without an index for it, a provider scans them all
+    default List<Person> search(PersonQuery query, Long afterId, int limit) {
+        long after = afterId == null ? 0L : afterId;
+        List<Person> result = new ArrayList<>();
+        forEach(person -> {
+            if (result.size() < limit && person.getId() > after && query.matches(person)) {
+                result.add(person);
+            }
+        });
+        return result;
+    }
+    // up to limit persons with a first or last name matching text, see NameMatch; without a name index, a provider scans them all
+    default List<Person> searchNames(String text, NameMatch match, int limit) {
+        return NameSearch.scan(this::forEach, text, match, limit);
+    }
+    // persons per key of the grouping, sorted by key; without counters for it, a provider scans them all
+    default Map<String, Long> countBy(PersonGrouping grouping) {
+        Map<String, Long> counts = new TreeMap<>();
+        forEach(person -> {
+            String key = grouping.key(person);
+            if (key != null) {
+                counts.merge(key, 1L, Long::sum);
+            }
+        });
+        return counts;
+    }
+    // changes whenever the persons do, e.g. on save or reload, so responses built for one version can be reused;
+    // empty if the provider cannot tell, e.g. when others write to the same database
+    default OptionalLong version() {
+        return OptionalLong.empty();
+    }
+    // passes every person to the action in id order without materialising the whole list
+    void forEach(Consumer<Person> action);
     PersonDataProviderType getProviderType();
 }
-
@@ -1,17 +1,36 @@
 package com.mapo.personapp.person;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
+@EnableConfigurationProperties(PersonCacheProperties.class)
 public class PersonDataProviderFactory {
     private final Map<PersonDataProviderType, PersonDataProvider> providerType;
 
-    public PersonDataProviderFactory(List<PersonDataProvider> providers) {
-        this.providerType = providers.stream().collect(Collectors.toMap(PersonDataProvider::getProviderType, p -> p));
+    public PersonDataProviderFactory(List<PersonDataProvider> providers, PersonCacheProperties cacheProperties,
+                                     ObjectProvider<MeterRegistry> meterRegistry) {
+        Function<PersonDataProvider, PersonDataProvider> decorate = p -> p;
+        if (cacheProperties.enabled()) {
+            decorate = p -> {
+                CachingPersonDataProvider cached = new CachingPersonDataProvider(p, cacheProperties);
+                meterRegistry.ifAvailable(cached::bindTo);
+                return cached;
+            };
+        }
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            // outermost, so the timings include cache hits as callers see them
+            decorate = decorate.andThen(p -> new MeteredPersonDataProvider(p, registry));
+        }
+        this.providerType = providers.stream().collect(Collectors.toMap(PersonDataProvider::getProviderType, decorate));
     }
 
     public PersonDataProvider build(PersonDataProviderType providerType) {
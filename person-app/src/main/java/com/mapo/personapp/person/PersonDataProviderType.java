@@ -2,5 +2,5 @@ package com.mapo.personapp.person;
 
 public enum PersonDataProviderType
 {
-    CSV, DB
+    CSV, CSV_MAPPED, CSV_COLUMNAR, CSV_OFF_HEAP, DB, TIERED
 }
@@ -0,0 +1,23 @@
+package com.mapo.personapp.person;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Turns provider exceptions into responses for both the servlet and the reactive controllers.
+ */
+@RestControllerAdvice
+class PersonExceptionHandler {
+
+    // persons can still be read, so only writing is not allowed
+    @ExceptionHandler(ReadOnlyProviderException.class)
+    ResponseEntity<ProblemDetail> readOnly(ReadOnlyProviderException e) {
+        return ResponseEntity.status(HttpStatus.METHOD_NOT_ALLOWED)
+                .allow(HttpMethod.GET, HttpMethod.HEAD)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.METHOD_NOT_ALLOWED, e.getMessage()));
+    }
+}
@@ -0,0 +1,22 @@
+package com.mapo.personapp.person;
+
+/**
+ * Attribute that {@link PersonDataProvider#countBy} counts persons by. Persons without a value are not counted.
+ */
+public enum PersonGrouping {
+    COLOR,
+    CITY,
+    // the first two digits of the zipcode, the German postal region
+    ZIPCODE_REGION;
+
+    static final int REGION_LENGTH = 2;
+
+    String key(Person person) {
+        return switch (this) {
+            case COLOR -> person.getColor();
+            case CITY -> person.getCity();
+            case ZIPCODE_REGION -> person.getZipcode() == null ? null
+                    : person.getZipcode().substring(0, Math.min(REGION_LENGTH, person.getZipcode().length()));
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.mapo.personapp.person;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Hands out person ids from person_seq by the rule of Hibernate's pooled optimizer, which {@link Person} uses,
+ * so writers outside JPA never collide with it: a sequence value v reserves the ids after
+ * v - {@value Person#ID_ALLOCATION_SIZE} up to v. Ids of a block that were not needed yet are kept for the
+ * next caller. Thread-safe.
+ */
+final class PersonIdAllocator {
+    static final String NEXT_VALUE_SQL = "select nextval('person_seq')";
+
+    private final Deque<Long> freeIds = new ArrayDeque<>();
+
+    @FunctionalInterface
+    interface Sequence {
+        long nextValue() throws SQLException;
+    }
+
+    /**
+     * Returns the next free id, calling the sequence whenever the reserved ids ran out.
+     */
+    synchronized long next(Sequence sequence) throws SQLException {
+        while (freeIds.isEmpty()) {
+            add(sequence.nextValue());
+        }
+        return freeIds.poll();
+    }
+
+    /**
+     * Takes up to {@code count} of the reserved ids, without calling the sequence.
+     */
+    synchronized List<Long> take(int count) {
+        List<Long> ids = new ArrayList<>(Math.min(count, freeIds.size()));
+        while (ids.size() < count && !freeIds.isEmpty()) {
+            ids.add(freeIds.poll());
+        }
+        return ids;
+    }
+
+    /**
+     * Reserves the ids of a value the caller took from the sequence. The first value of a new sequence
+     * only reserves itself.
+     */
+    synchronized void add(long value) {
+        for (long id = Math.max(1, value - Person.ID_ALLOCATION_SIZE + 1); id <= value; id++) {
+            freeIds.add(id);
+        }
+    }
+
+    // sequence values to take for count ids, if no reserved ones are left
+    static int valuesFor(int count) {
+        return (count + Person.ID_ALLOCATION_SIZE - 1) / Person.ID_ALLOCATION_SIZE;
+    }
+
+    // the sequence value whose block starts right after lastId
+    static long valueAfter(long lastId) {
+        return lastId + Person.ID_ALLOCATION_SIZE;
+    }
+}
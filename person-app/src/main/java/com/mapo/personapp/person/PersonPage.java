@@ -0,0 +1,15 @@
+package com.mapo.personapp.person;
+
+import java.util.List;
+
+/**
+ * One page of persons in id order. {@code nextCursor} is the id to pass as cursor for the following page,
+ * or null when this page is the last one.
+ */
+public record PersonPage(List<Person> items, Long nextCursor) {
+
+    static PersonPage of(List<Person> items, int limit) {
+        Long nextCursor = items.size() < limit ? null : items.get(items.size() - 1).getId();
+        return new PersonPage(items, nextCursor);
+    }
+}
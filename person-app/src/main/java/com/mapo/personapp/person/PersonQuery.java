@@ -0,0 +1,31 @@
+package com.mapo.personapp.person;
+
+/**
+ * Criteria of a person search, as given to GET /persons/search. Every criterion that is set must match,
+ * unset (null or empty) ones are ignored, so an empty query matches every person.
+ * <p>
+ * {@code zipcode}, {@code city}, {@code lastname} and {@code color} compare exactly, {@code zipcodePrefix}
+ * matches every zipcode that starts with it.
+ */
+public record PersonQuery(String zipcode, String zipcodePrefix, String city, String lastname, String color) {
+
+    public PersonQuery {
+        zipcode = emptyToNull(zipcode);
+        zipcodePrefix = emptyToNull(zipcodePrefix);
+        city = emptyToNull(city);
+        lastname = emptyToNull(lastname);
+        color = emptyToNull(color);
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    boolean matches(Person person) {
+        return (zipcode == null || zipcode.equals(person.getZipcode()))
+                && (zipcodePrefix == null || person.getZipcode() != null && person.getZipcode().startsWith(zipcodePrefix))
+                && (city == null || city.equals(person.getCity()))
+                && (lastname == null || lastname.equals(person.getLastname()))
+                && (color == null || color.equals(person.getColor()));
+    }
+}
@@ -1,9 +1,38 @@
 package com.mapo.personapp.person;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface PersonRepository extends JpaRepository<Person, Long> {
-    List<Person> findByColor(String color);
+// read-only transactions skip the flush on commit and let the driver mark them read-only
+@Transactional(readOnly = true)
+public interface PersonRepository extends JpaRepository<Person, Long>, PersonSearchRepository {
+    List<PersonRow> findRowsByOrderByIdAsc();
+
+    // the code narrows the rows through person_color_code_id_idx, the name tells apart colours without a code
+    List<PersonRow> findRowsByColorCodeAndColorOrderByIdAsc(short colorCode, String color);
+    List<PersonRow> findRowsByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+    List<PersonRow> findRowsByColorCodeAndColorAndIdGreaterThanOrderByIdAsc(short colorCode, String color, Long id, Limit limit);
+
+    // aggregated by the database; city and zipcode region can be read from person_city_zipcode_idx and person_zipcode_idx alone
+    @Query("select new com.mapo.personapp.person.KeyCount(p.color, count(*)) from Person p where p.color is not null group by p.color")
+    List<KeyCount> countPerColor();
+
+    @Query("select new com.mapo.personapp.person.KeyCount(p.city, count(*)) from Person p where p.city is not null group by p.city")
+    List<KeyCount> countPerCity();
+
+    @Query("select new com.mapo.personapp.person.KeyCount(substring(p.zipcode, 1, " + PersonGrouping.REGION_LENGTH + "), count(*))"
+            + " from Person p where p.zipcode is not null group by substring(p.zipcode, 1, " + PersonGrouping.REGION_LENGTH + ")")
+    List<KeyCount> countPerZipcodeRegion();
+
+    // server-side cursor, must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<PersonRow> streamRowsByOrderByIdAsc();
 }
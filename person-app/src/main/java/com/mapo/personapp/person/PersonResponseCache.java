@@ -0,0 +1,122 @@
+package com.mapo.personapp.person;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Conditional GET support for person lists: strong ETags from the {@link PersonDataProvider#version()},
+ * 304 Not Modified for a matching {@code If-None-Match}, and the serialized JSON with its gzip encoding
+ * kept per list until the version changes, so repeated polls neither load nor serialize nor compress anything.
+ * <p>
+ * ETags include the start time of this instance, since provider versions start over after a restart. Bodies
+ * are weighed by their bytes against {@code person.http.response-cache.maximum-bytes}; larger lists are
+ * rebuilt for every changed response but still answered with 304 while unchanged. Providers without a
+ * version get the list itself as body, which the message converter streams without holding its bytes.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+class PersonResponseCache {
+    private record Body(long version, byte[] json, byte[] gzip) {
+    }
+
+    private final PersonService personService;
+    private final ObjectMapper objectMapper;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Cache<String, Body> bodies;
+
+    PersonResponseCache(PersonService personService, ObjectMapper objectMapper,
+                        @Value("${person.http.response-cache.maximum-bytes:33554432}") long maximumBytes) {
+        this.personService = personService;
+        this.objectMapper = objectMapper;
+        this.bodies = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .<String, Body>weigher((key, body) -> body.json().length + body.gzip().length)
+                .build();
+    }
+
+    /**
+     * Responds with the persons {@code persons} loads, or with 304 and no body when the client has them already.
+     * The body is the serialized JSON, or the list itself when the provider has no version.
+     *
+     * @param key      identifies the list among those cached, e.g. the color it was filtered by
+     * @param persons  loads the list, only called when there is no body for the current version
+     */
+    ResponseEntity<?> respond(String key, Supplier<List<Person>> persons, WebRequest request) {
+        OptionalLong version = personService.version();
+        if (version.isEmpty()) {
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(persons.get());
+        }
+        boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        // each encoding is its own representation, so it needs its own strong tag
+        String etag = "\"" + epoch + "-" + version.getAsLong() + (gzip ? "-gzip" : "") + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        Body body = bodies.getIfPresent(key);
+        if (body == null || body.version() != version.getAsLong()) {
+            byte[] json = objectMapper.writeValueAsBytes(persons.get());
+            if (!version.equals(personService.version())) {
+                // the list may already hold persons of a later version, so it must not be tagged with this one
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+            }
+            body = new Body(version.getAsLong(), json, gzip(json));
+            bodies.put(key, body);
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.json());
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            // e.g. gzip;q=0 refuses it
+            boolean accepted = parts.length < 2 || !parts[1].trim().matches("q=0(\\.0*)?");
+            if (name.equalsIgnoreCase("gzip")) {
+                return accepted;
+            }
+            if (name.equals("*")) {
+                any = accepted;
+            }
+        }
+        return any != null && any;
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,14 @@
+package com.mapo.personapp.person;
+
+/**
+ * Columns of the person table as read by {@link PersonRepository}, without a managed entity, its
+ * persistence context entry or its dirty-checking snapshot.
+ */
+public record PersonRow(Long id, String firstname, String lastname, String zipcode, String city, String color) {
+
+    Person toPerson() {
+        Person person = new Person(firstname, lastname, zipcode, city, color);
+        person.setId(id);
+        return person;
+    }
+}
@@ -0,0 +1,170 @@
+package com.mapo.personapp.person;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Inverted indexes over the first {@link #size()} persons of a {@link CsvSnapshot} for {@link PersonQuery}.
+ * <p>
+ * Each attribute maps its distinct values, sorted, to the ascending positions of the persons holding them,
+ * so an exact value is a binary search and a zipcode prefix is the contiguous run of values starting with it.
+ * The positions of every criterion are turned into a bitmap and the bitmaps are intersected, smallest first.
+ * Instances never change once built.
+ */
+final class PersonSearchIndex {
+    private final int size;
+    private final Postings zipcodes;
+    private final Postings cities;
+    private final Postings lastnames;
+    private final Postings colors;
+
+    private PersonSearchIndex(Person[] byPosition, int size) {
+        this.size = size;
+        this.zipcodes = Postings.of(byPosition, size, Person::getZipcode);
+        this.cities = Postings.of(byPosition, size, Person::getCity);
+        this.lastnames = Postings.of(byPosition, size, Person::getLastname);
+        this.colors = Postings.of(byPosition, size, Person::getColor);
+    }
+
+    static PersonSearchIndex of(Person[] byPosition, int size) {
+        return new PersonSearchIndex(byPosition, size);
+    }
+
+    /**
+     * Number of persons covered, from position 0.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Materialises up to {@code limit} covered persons matching {@code query} from position {@code from} on,
+     * in position order.
+     */
+    List<Person> search(PersonQuery query, Person[] byPosition, int from, int limit) {
+        List<Criterion> criteria = new ArrayList<>(5);
+        if (query.zipcode() != null) {
+            criteria.add(zipcodes.exact(query.zipcode()));
+        }
+        if (query.zipcodePrefix() != null) {
+            criteria.add(zipcodes.prefix(query.zipcodePrefix()));
+        }
+        if (query.city() != null) {
+            criteria.add(cities.exact(query.city()));
+        }
+        if (query.lastname() != null) {
+            criteria.add(lastnames.exact(query.lastname()));
+        }
+        if (query.color() != null) {
+            criteria.add(colors.exact(query.color()));
+        }
+
+        BitSet matches = new BitSet(size);
+        if (criteria.isEmpty()) {
+            matches.set(0, size);
+        } else {
+            criteria.sort(Comparator.comparingInt(Criterion::count));
+            criteria.get(0).setIn(matches);
+            for (int i = 1; i < criteria.size() && !matches.isEmpty(); i++) {
+                BitSet next = new BitSet(size);
+                criteria.get(i).setIn(next);
+                matches.and(next);
+            }
+        }
+
+        List<Person> result = new ArrayList<>(Math.min(limit, matches.cardinality()));
+        for (int position = matches.nextSetBit(from); position >= 0 && result.size() < limit;
+             position = matches.nextSetBit(position + 1)) {
+            result.add(byPosition[position]);
+        }
+        return result;
+    }
+
+    // the postings of the values from..to of one attribute
+    private record Criterion(Postings postings, int from, int to, int count) {
+
+        void setIn(BitSet bits) {
+            for (int value = from; value < to; value++) {
+                for (int position : postings.positions[value]) {
+                    bits.set(position);
+                }
+            }
+        }
+    }
+
+    private static final class PositionList {
+        private int[] positions = new int[1];
+        private int count;
+
+        void add(int position) {
+            if (count == positions.length) {
+                positions = Arrays.copyOf(positions, count * 2);
+            }
+            positions[count++] = position;
+        }
+    }
+
+    private static final class Postings {
+        private final String[] values;
+        private final int[][] positions;
+
+        private Postings(String[] values, int[][] positions) {
+            this.values = values;
+            this.positions = positions;
+        }
+
+        // persons without a value are left out, no criterion can match them
+        static Postings of(Person[] byPosition, int size, Function<Person, String> attribute) {
+            Map<String, PositionList> postings = new HashMap<>();
+            for (int position = 0; position < size; position++) {
+                String value = attribute.apply(byPosition[position]);
+                if (value != null) {
+                    postings.computeIfAbsent(value, v -> new PositionList()).add(position);
+                }
+            }
+
+            String[] values = postings.keySet().toArray(String[]::new);
+            Arrays.sort(values);
+            int[][] positions = new int[values.length][];
+            for (int i = 0; i < values.length; i++) {
+                PositionList list = postings.get(values[i]);
+                positions[i] = Arrays.copyOf(list.positions, list.count);
+            }
+            return new Postings(values, positions);
+        }
+
+        Criterion exact(String value) {
+            int index = Arrays.binarySearch(values, value);
+            return index < 0 ? new Criterion(this, 0, 0, 0) : new Criterion(this, index, index + 1, positions[index].length);
+        }
+
+        Criterion prefix(String prefix) {
+            int from = Arrays.binarySearch(values, prefix);
+            if (from < 0) {
+                from = -from - 1;
+            }
+            // the values starting with the prefix follow it directly, find the first one that does not
+            int low = from;
+            int high = values.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[middle].startsWith(prefix)) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            int count = 0;
+            for (int value = from; value < low; value++) {
+                count += positions[value].length;
+            }
+            return new Criterion(this, from, low, count);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.mapo.personapp.person;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Search of {@link PersonRepository}, with only the criteria that are set in the where clause so the
+ * database can pick the indexes that fit them.
+ * <p>
+ * Name search relies on the pg_trgm indexes PostgreSQL gets from its vendor migration, other databases do not
+ * support it.
+ */
+@Transactional(readOnly = true)
+public interface PersonSearchRepository {
+    List<PersonRow> search(PersonQuery query, long afterId, int limit);
+
+    boolean supportsNameSearch();
+
+    List<PersonRow> searchNames(String text, NameMatch match, int limit);
+}
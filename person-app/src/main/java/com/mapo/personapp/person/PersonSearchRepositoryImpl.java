@@ -0,0 +1,110 @@
+package com.mapo.personapp.person;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class PersonSearchRepositoryImpl implements PersonSearchRepository {
+    private static final String COLUMNS = "select id, firstname, lastname, zipcode, city, color from person";
+    // like on the lower-cased names is served by their gin_trgm_ops indexes, also with a bound pattern
+    static final String NAME_PREFIX = COLUMNS
+            + " where lower(firstname) like :pattern or lower(lastname) like :pattern order by id limit :limit";
+    // % is pg_trgm's similarity operator, using pg_trgm.similarity_threshold
+    static final String NAME_FUZZY = COLUMNS
+            + " where lower(firstname) % :text or lower(lastname) % :text"
+            + " order by greatest(similarity(lower(firstname), :text), similarity(lower(lastname), :text)) desc, id"
+            + " limit :limit";
+
+    private final EntityManager entityManager;
+
+    PersonSearchRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<PersonRow> search(PersonQuery query, long afterId, int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PersonRow> criteria = builder.createQuery(PersonRow.class);
+        Root<Person> person = criteria.from(Person.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(builder.greaterThan(person.get("id"), afterId));
+        if (query.zipcode() != null) {
+            predicates.add(builder.equal(person.get("zipcode"), query.zipcode()));
+        }
+        if (query.zipcodePrefix() != null) {
+            // a range instead of like, which an index can serve even in a generic plan of the prepared statement
+            predicates.add(builder.greaterThanOrEqualTo(person.get("zipcode"), query.zipcodePrefix()));
+            String end = prefixEnd(query.zipcodePrefix());
+            if (end != null) {
+                predicates.add(builder.lessThan(person.get("zipcode"), end));
+            }
+        }
+        if (query.city() != null) {
+            predicates.add(builder.equal(person.get("city"), query.city()));
+        }
+        if (query.lastname() != null) {
+            predicates.add(builder.equal(person.get("lastname"), query.lastname()));
+        }
+        if (query.color() != null) {
+            predicates.add(builder.equal(person.get("colorCode"), (short) CsvPersonParser.colorCode(query.color())));
+            predicates.add(builder.equal(person.get("color"), query.color()));
+        }
+
+        criteria.select(builder.construct(PersonRow.class, person.get("id"), person.get("firstname"),
+                        person.get("lastname"), person.get("zipcode"), person.get("city"), person.get("color")))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(builder.asc(person.get("id")));
+        return entityManager.createQuery(criteria).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public boolean supportsNameSearch() {
+        return entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+
+    @Override
+    public List<PersonRow> searchNames(String text, NameMatch match, int limit) {
+        if (!supportsNameSearch()) {
+            throw new UnsupportedOperationException("Name search needs PostgreSQL with pg_trgm");
+        }
+        String normalized = NameSearch.normalize(text);
+        Query query = match == NameMatch.PREFIX
+                ? entityManager.createNativeQuery(NAME_PREFIX).setParameter("pattern", escapeLike(normalized) + "%")
+                : entityManager.createNativeQuery(NAME_FUZZY).setParameter("text", normalized);
+        List<?> rows = query.setParameter("limit", limit).getResultList();
+        List<PersonRow> result = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            result.add(new PersonRow(((Number) columns[0]).longValue(), (String) columns[1], (String) columns[2],
+                    (String) columns[3], (String) columns[4], (String) columns[5]));
+        }
+        return result;
+    }
+
+    // backslash is PostgreSQL's default escape character for like
+    static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * The smallest string greater than every string starting with {@code prefix}, or null if there is none.
+     */
+    static String prefixEnd(String prefix) {
+        for (int i = prefix.length() - 1; i >= 0; i--) {
+            if (prefix.charAt(i) != Character.MAX_VALUE) {
+                return prefix.substring(0, i) + (char) (prefix.charAt(i) + 1);
+            }
+        }
+        return null;
+    }
+}
@@ -1,14 +1,21 @@
 package com.mapo.personapp.person;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
 
 @Service
 public class PersonService {
+    static final int MAX_PAGE_SIZE = 1000;
+
     private final PersonDataProvider provider;
 
-    public PersonService(PersonDataProviderFactory factory) {
-        this.provider = factory.build(PersonDataProviderType.CSV);
+    public PersonService(PersonDataProviderFactory factory,
+                         @Value("${person.provider:CSV}") PersonDataProviderType providerType) {
+        this.provider = factory.build(providerType);
     }
 
     public List<Person> all() {
@@ -23,7 +30,46 @@ public class PersonService {
         return this.provider.findByColor(color);
     }
 
+    public PersonPage page(Long cursor, int limit) {
+        int pageSize = pageSize(limit);
+        return PersonPage.of(this.provider.page(cursor, pageSize), pageSize);
+    }
+
+    public PersonPage pageByColor(String color, Long cursor, int limit) {
+        int pageSize = pageSize(limit);
+        return PersonPage.of(this.provider.pageByColor(color, cursor, pageSize), pageSize);
+    }
+
+    public PersonPage search(PersonQuery query, Long cursor, int limit) {
+        int pageSize = pageSize(limit);
+        return PersonPage.of(this.provider.search(query, cursor, pageSize), pageSize);
+    }
+
+    public List<Person> searchNames(String text, NameMatch match, int limit) {
+        return this.provider.searchNames(text, match, pageSize(limit));
+    }
+
+    public Map<String, Long> countBy(PersonGrouping grouping) {
+        return this.provider.countBy(grouping);
+    }
+
+    public OptionalLong version() {
+        return this.provider.version();
+    }
+
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    public void forEach(Consumer<Person> action) {
+        this.provider.forEach(action);
+    }
+
     public Person save(Person newPerson) {
         return this.provider.save(newPerson);
     }
+
+    public List<Person> saveAll(List<Person> newPersons) {
+        return this.provider.saveAll(newPersons);
+    }
 }
@@ -0,0 +1,251 @@
+package com.mapo.personapp.person;
+
+import io.r2dbc.spi.Readable;
+import io.r2dbc.spi.Result;
+import io.r2dbc.spi.Statement;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads and writes the person table through R2DBC. Streams are fetched in portions of {@link #FETCH_SIZE}
+ * rows, and the next portion is only requested from the database once the subscriber asked for it.
+ * <p>
+ * New persons get ids from person_seq through a {@link PersonIdAllocator}, so
+ * this provider and {@link DbPersonDataProvider} can write to the same table. Searches and counts use the
+ * same indexes as that provider; name searches only reach the pg_trgm indexes on PostgreSQL and stream every
+ * row through a {@link NameSearch.Scan} elsewhere.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class R2dbcPersonDataProvider implements ReactivePersonDataProvider {
+    static final int FETCH_SIZE = 1000;
+
+    private static final String COLUMNS = "id, firstname, lastname, zipcode, city, color";
+    private static final String INSERT_SQL =
+            "insert into person (id, firstname, lastname, zipcode, city, color, color_code) values ($1, $2, $3, $4, $5, $6, $7)";
+    private static final String UPDATE_SQL =
+            "update person set firstname = $2, lastname = $3, zipcode = $4, city = $5, color = $6, color_code = $7 where id = $1";
+
+    private final DatabaseClient client;
+    private final TransactionalOperator transactions;
+    private final PersonIdAllocator ids = new PersonIdAllocator();
+
+    public R2dbcPersonDataProvider(DatabaseClient client) {
+        this.client = client;
+        this.transactions = TransactionalOperator.create(new R2dbcTransactionManager(client.getConnectionFactory()));
+    }
+
+    private static Person toPerson(Readable row) {
+        Person person = new Person(row.get("firstname", String.class), row.get("lastname", String.class),
+                row.get("zipcode", String.class), row.get("city", String.class), row.get("color", String.class));
+        person.setId(row.get("id", Long.class));
+        return person;
+    }
+
+    private DatabaseClient.GenericExecuteSpec query(String sql) {
+        return client.sql(sql).filter((statement, next) -> next.execute(statement.fetchSize(FETCH_SIZE)));
+    }
+
+    @Override
+    public Flux<Person> all() {
+        return query("select " + COLUMNS + " from person order by id").map(R2dbcPersonDataProvider::toPerson).all();
+    }
+
+    @Override
+    public Mono<Person> save(Person person) {
+        return saveAll(List.of(person)).next();
+    }
+
+    /**
+     * Inserts persons without id and updates the others, all in one transaction.
+     */
+    @Override
+    public Flux<Person> saveAll(List<Person> persons) {
+        List<Person> inserts = persons.stream().filter(person -> person.getId() == null).toList();
+        List<Person> updates = persons.stream().filter(person -> person.getId() != null).toList();
+        Mono<Void> write = allocateIds(inserts.size())
+                .flatMap(ids -> {
+                    for (int i = 0; i < inserts.size(); i++) {
+                        inserts.get(i).setId(ids.get(i));
+                    }
+                    return execute(INSERT_SQL, inserts).then(execute(UPDATE_SQL, updates));
+                });
+        return transactions.transactional(write).thenMany(Flux.fromIterable(persons));
+    }
+
+    private Mono<Void> execute(String sql, List<Person> persons) {
+        if (persons.isEmpty()) {
+            return Mono.empty();
+        }
+        return client.inConnectionMany(connection -> {
+            Statement statement = connection.createStatement(sql);
+            for (int i = 0; i < persons.size(); i++) {
+                if (i > 0) {
+                    statement.add();
+                }
+                bind(statement, persons.get(i));
+            }
+            return Flux.from(statement.execute()).flatMap(Result::getRowsUpdated);
+        }).then();
+    }
+
+    private static void bind(Statement statement, Person person) {
+        statement.bind(0, person.getId());
+        String[] values = {person.getFirstname(), person.getLastname(), person.getZipcode(), person.getCity(), person.getColor()};
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                statement.bindNull(i + 1, String.class);
+            } else {
+                statement.bind(i + 1, values[i]);
+            }
+        }
+        statement.bind(values.length + 1, (short) CsvPersonParser.colorCode(person.getColor()));
+    }
+
+    private Mono<List<Long>> allocateIds(int count) {
+        return Mono.defer(() -> {
+            List<Long> taken = ids.take(count);
+            if (taken.size() == count) {
+                return Mono.just(taken);
+            }
+            // concurrent saves may take some of the reserved ids first, then this round reserves more
+            return Flux.range(0, PersonIdAllocator.valuesFor(count - taken.size()))
+                    .concatMap(i -> client.sql(PersonIdAllocator.NEXT_VALUE_SQL)
+                            .map(row -> row.get(0, Long.class))
+                            .one())
+                    .doOnNext(ids::add)
+                    .then(Mono.defer(() -> allocateIds(count - taken.size())))
+                    .map(more -> {
+                        taken.addAll(more);
+                        return taken;
+                    });
+        });
+    }
+
+    @Override
+    public Mono<Person> findById(Long id) {
+        return client.sql("select " + COLUMNS + " from person where id = :id")
+                .bind("id", id)
+                .map(R2dbcPersonDataProvider::toPerson)
+                .one()
+                .switchIfEmpty(Mono.error(() -> new PersonNotFoundException(id)));
+    }
+
+    @Override
+    public Flux<Person> findByColor(String color) {
+        return query("select " + COLUMNS + " from person where color_code = :colorCode and color = :color order by id")
+                .bind("colorCode", (short) CsvPersonParser.colorCode(color))
+                .bind("color", color)
+                .map(R2dbcPersonDataProvider::toPerson)
+                .all();
+    }
+
+    @Override
+    public Flux<Person> page(Long afterId, int limit) {
+        return client.sql("select " + COLUMNS + " from person where id > :afterId order by id limit :limit")
+                .bind("afterId", afterId == null ? 0L : afterId)
+                .bind("limit", limit)
+                .map(R2dbcPersonDataProvider::toPerson)
+                .all();
+    }
+
+    @Override
+    public Flux<Person> pageByColor(String color, Long afterId, int limit) {
+        return client.sql("select " + COLUMNS + " from person where color_code = :colorCode and color = :color"
+                        + " and id > :afterId order by id limit :limit")
+                .bind("colorCode", (short) CsvPersonParser.colorCode(color))
+                .bind("color", color)
+                .bind("afterId", afterId == null ? 0L : afterId)
+                .bind("limit", limit)
+                .map(R2dbcPersonDataProvider::toPerson)
+                .all();
+    }
+
+    @Override
+    public Flux<Person> search(PersonQuery query, Long afterId, int limit) {
+        List<String> criteria = new ArrayList<>();
+        Map<String, Object> values = new LinkedHashMap<>();
+        criteria.add("id > :afterId");
+        values.put("afterId", afterId == null ? 0L : afterId);
+        if (query.zipcode() != null) {
+            criteria.add("zipcode = :zipcode");
+            values.put("zipcode", query.zipcode());
+        }
+        if (query.zipcodePrefix() != null) {
+            // a range instead of like, see PersonSearchRepositoryImpl
+            criteria.add("zipcode >= :zipcodeFrom");
+            values.put("zipcodeFrom", query.zipcodePrefix());
+            String end = PersonSearchRepositoryImpl.prefixEnd(query.zipcodePrefix());
+            if (end != null) {
+                criteria.add("zipcode < :zipcodeTo");
+                values.put("zipcodeTo", end);
+            }
+        }
+        if (query.city() != null) {
+            criteria.add("city = :city");
+            values.put("city", query.city());
+        }
+        if (query.lastname() != null) {
+            criteria.add("lastname = :lastname");
+            values.put("lastname", query.lastname());
+        }
+        if (query.color() != null) {
+            criteria.add("color_code = :colorCode and color = :color");
+            values.put("colorCode", (short) CsvPersonParser.colorCode(query.color()));
+            values.put("color", query.color());
+        }
+        values.put("limit", limit);
+        DatabaseClient.GenericExecuteSpec spec = query("select " + COLUMNS + " from person where "
+                + String.join(" and ", criteria) + " order by id limit :limit");
+        for (Map.Entry<String, Object> value : values.entrySet()) {
+            spec = spec.bind(value.getKey(), value.getValue());
+        }
+        return spec.map(R2dbcPersonDataProvider::toPerson).all();
+    }
+
+    @Override
+    public Flux<Person> searchNames(String text, NameMatch match, int limit) {
+        if (!"PostgreSQL".equals(client.getConnectionFactory().getMetadata().getName())) {
+            // the rows stream through a scan keeping the best matches, a prefix scan stops once it has enough
+            return Flux.defer(() -> {
+                NameSearch.Scan scan = new NameSearch.Scan(text, match, limit);
+                return all().doOnNext(scan).takeUntil(person -> scan.isComplete())
+                        .thenMany(Flux.defer(() -> Flux.fromIterable(scan.result())));
+            });
+        }
+        String normalized = NameSearch.normalize(text);
+        DatabaseClient.GenericExecuteSpec spec = match == NameMatch.PREFIX
+                ? client.sql(PersonSearchRepositoryImpl.NAME_PREFIX).bind("pattern", PersonSearchRepositoryImpl.escapeLike(normalized) + "%")
+                : client.sql(PersonSearchRepositoryImpl.NAME_FUZZY).bind("text", normalized);
+        return spec.bind("limit", limit).map(R2dbcPersonDataProvider::toPerson).all();
+    }
+
+    @Override
+    public Mono<Map<String, Long>> countBy(PersonGrouping grouping) {
+        String key = switch (grouping) {
+            case COLOR -> "color";
+            case CITY -> "city";
+            case ZIPCODE_REGION -> "substring(zipcode, 1, " + PersonGrouping.REGION_LENGTH + ")";
+        };
+        return client.sql("select " + key + " as k, count(*) as n from person where " + key + " is not null group by " + key)
+                .map(row -> Map.entry(row.get("k", String.class), row.get("n", Long.class)))
+                .all()
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue, TreeMap::new);
+    }
+
+    @Override
+    public PersonDataProviderType getProviderType() {
+        return PersonDataProviderType.DB;
+    }
+}
@@ -0,0 +1,82 @@
+package com.mapo.personapp.person;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reactive view of the in-memory CSV data. Reads never block, so they run on the subscriber's thread;
+ * saves wait for the append log and its fsync, so they are moved off the event loop.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveCsvPersonDataProvider implements ReactivePersonDataProvider {
+    private final CsvPersonDataProvider delegate;
+
+    public ReactiveCsvPersonDataProvider(CsvPersonDataProvider delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Flux<Person> all() {
+        // fromIterable emits only as many persons as requested
+        return Flux.defer(() -> Flux.fromIterable(delegate.all()));
+    }
+
+    @Override
+    public Mono<Person> save(Person person) {
+        return Mono.fromCallable(() -> delegate.save(person)).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    @Override
+    public Flux<Person> saveAll(List<Person> persons) {
+        return Mono.fromCallable(() -> delegate.saveAll(persons))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapIterable(saved -> saved);
+    }
+
+    @Override
+    public Mono<Person> findById(Long id) {
+        return Mono.fromCallable(() -> delegate.findById(id));
+    }
+
+    @Override
+    public Flux<Person> findByColor(String color) {
+        return Flux.defer(() -> Flux.fromIterable(delegate.findByColor(color)));
+    }
+
+    @Override
+    public Flux<Person> page(Long afterId, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(delegate.page(afterId, limit)));
+    }
+
+    @Override
+    public Flux<Person> pageByColor(String color, Long afterId, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(delegate.pageByColor(color, afterId, limit)));
+    }
+
+    @Override
+    public Flux<Person> search(PersonQuery query, Long afterId, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(delegate.search(query, afterId, limit)));
+    }
+
+    @Override
+    public Flux<Person> searchNames(String text, NameMatch match, int limit) {
+        return Flux.defer(() -> Flux.fromIterable(delegate.searchNames(text, match, limit)));
+    }
+
+    @Override
+    public Mono<Map<String, Long>> countBy(PersonGrouping grouping) {
+        return Mono.fromCallable(() -> delegate.countBy(grouping));
+    }
+
+    @Override
+    public PersonDataProviderType getProviderType() {
+        return PersonDataProviderType.CSV;
+    }
+}
@@ -0,0 +1,44 @@
+package com.mapo.personapp.person;
+
+import io.r2dbc.spi.Closeable;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * R2DBC access to the person table for the reactive API. The connection factory is deliberately not a bean:
+ * Spring Boot backs off from configuring the JDBC DataSource as soon as one exists, and JPA and the CSV
+ * import still need it.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDatabaseConfiguration {
+
+    @Bean
+    DatabaseClient personDatabaseClient(@Value("${person.r2dbc.url}") String url,
+                                        @Value("${person.r2dbc.username:}") String username,
+                                        @Value("${person.r2dbc.password:}") String password) {
+        ConnectionFactoryOptions.Builder options = ConnectionFactoryOptions.parse(url).mutate();
+        if (!username.isEmpty()) {
+            options.option(ConnectionFactoryOptions.USER, username);
+            options.option(ConnectionFactoryOptions.PASSWORD, password);
+        }
+        return DatabaseClient.create(ConnectionFactories.get(options.build()));
+    }
+
+    @Bean
+    AutoCloseable personConnectionFactoryCloser(DatabaseClient personDatabaseClient) {
+        ConnectionFactory connectionFactory = personDatabaseClient.getConnectionFactory();
+        return () -> {
+            if (connectionFactory instanceof Closeable closeable) {
+                Mono.from(closeable.close()).block();
+            }
+        };
+    }
+}
@@ -0,0 +1,92 @@
+package com.mapo.personapp.person;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The endpoints of {@link PersonController} on WebFlux, for spring.main.web-application-type=reactive.
+ * The NDJSON export writes each person as the client reads, so its demand reaches the provider.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePersonController {
+
+    private final ReactivePersonService personService;
+
+    ReactivePersonController(ReactivePersonService personService) {
+        this.personService = personService;
+    }
+
+    @GetMapping("/persons")
+    Flux<Person> all() {
+        return personService.all();
+    }
+
+    @GetMapping(value = "/persons", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    Flux<Person> export() {
+        return personService.all();
+    }
+
+    @GetMapping(value = "/persons", params = "limit")
+    Mono<PersonPage> page(@RequestParam int limit, @RequestParam(required = false) Long cursor) {
+        return personService.page(cursor, limit);
+    }
+
+    @GetMapping("/persons/{id}")
+    Mono<Person> byId(@PathVariable Long id) {
+        return personService.findById(id);
+    }
+
+    @GetMapping("/persons/color/{color}")
+    Flux<Person> byColor(@PathVariable String color) {
+        return personService.findByColor(color);
+    }
+
+    @GetMapping(value = "/persons/color/{color}", params = "limit")
+    Mono<PersonPage> pageByColor(@PathVariable String color, @RequestParam int limit, @RequestParam(required = false) Long cursor) {
+        return personService.pageByColor(color, cursor, limit);
+    }
+
+    @GetMapping("/persons/search")
+    Mono<PersonPage> search(PersonQuery query, @RequestParam(defaultValue = "100") int limit,
+                            @RequestParam(required = false) Long cursor) {
+        return personService.search(query, cursor, limit);
+    }
+
+    @GetMapping("/persons/names")
+    Flux<Person> searchNames(@RequestParam String q, @RequestParam(defaultValue = "PREFIX") NameMatch match,
+                             @RequestParam(defaultValue = "10") int limit) {
+        return personService.searchNames(q, match, limit);
+    }
+
+    @GetMapping("/persons/counts/color")
+    Mono<Map<String, Long>> countByColor() {
+        return personService.countBy(PersonGrouping.COLOR);
+    }
+
+    @GetMapping("/persons/counts/city")
+    Mono<Map<String, Long>> countByCity() {
+        return personService.countBy(PersonGrouping.CITY);
+    }
+
+    @GetMapping("/persons/counts/zipcode-region")
+    Mono<Map<String, Long>> countByZipcodeRegion() {
+        return personService.countBy(PersonGrouping.ZIPCODE_REGION);
+    }
+
+    @PostMapping("/persons")
+    Mono<Person> newEmployee(@RequestBody Person newPerson) {
+        return personService.save(newPerson);
+    }
+
+    @PostMapping("/persons/batch")
+    Flux<Person> newEmployees(@RequestBody List<Person> newPersons) {
+        return personService.saveAll(newPersons);
+    }
+}
@@ -0,0 +1,39 @@
+package com.mapo.personapp.person;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-blocking counterpart of {@link PersonDataProvider} for the reactive API. Every Flux honours the
+ * subscriber's demand, so a slow client slows down the source instead of filling buffers.
+ */
+public interface ReactivePersonDataProvider {
+    Flux<Person> all();
+
+    Mono<Person> save(Person person);
+
+    Flux<Person> saveAll(List<Person> persons);
+
+    /**
+     * Errors with {@link PersonNotFoundException} if there is no person with that id.
+     */
+    Mono<Person> findById(Long id);
+
+    Flux<Person> findByColor(String color);
+
+    Flux<Person> page(Long afterId, int limit);
+
+    Flux<Person> pageByColor(String color, Long afterId, int limit);
+
+    // see PersonDataProvider#search, #searchNames and #countBy
+    Flux<Person> search(PersonQuery query, Long afterId, int limit);
+
+    Flux<Person> searchNames(String text, NameMatch match, int limit);
+
+    Mono<Map<String, Long>> countBy(PersonGrouping grouping);
+
+    PersonDataProviderType getProviderType();
+}
@@ -0,0 +1,71 @@
+package com.mapo.personapp.person;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactivePersonService {
+    private final ReactivePersonDataProvider provider;
+
+    public ReactivePersonService(List<ReactivePersonDataProvider> providers,
+                                 @Value("${person.provider:CSV}") PersonDataProviderType type) {
+        this.provider = providers.stream()
+                .filter(provider -> provider.getProviderType() == type)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("No reactive person provider for " + type));
+    }
+
+    public Flux<Person> all() {
+        return this.provider.all();
+    }
+
+    public Mono<Person> findById(Long id) {
+        return this.provider.findById(id);
+    }
+
+    public Flux<Person> findByColor(String color) {
+        return this.provider.findByColor(color);
+    }
+
+    public Mono<PersonPage> page(Long cursor, int limit) {
+        int pageSize = pageSize(limit);
+        return this.provider.page(cursor, pageSize).collectList().map(items -> PersonPage.of(items, pageSize));
+    }
+
+    public Mono<PersonPage> pageByColor(String color, Long cursor, int limit) {
+        int pageSize = pageSize(limit);
+        return this.provider.pageByColor(color, cursor, pageSize).collectList().map(items -> PersonPage.of(items, pageSize));
+    }
+
+    public Mono<PersonPage> search(PersonQuery query, Long cursor, int limit) {
+        int pageSize = pageSize(limit);
+        return this.provider.search(query, cursor, pageSize).collectList().map(items -> PersonPage.of(items, pageSize));
+    }
+
+    public Flux<Person> searchNames(String text, NameMatch match, int limit) {
+        return this.provider.searchNames(text, match, pageSize(limit));
+    }
+
+    public Mono<Map<String, Long>> countBy(PersonGrouping grouping) {
+        return this.provider.countBy(grouping);
+    }
+
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, PersonService.MAX_PAGE_SIZE));
+    }
+
+    public Mono<Person> save(Person newPerson) {
+        return this.provider.save(newPerson);
+    }
+
+    public Flux<Person> saveAll(List<Person> newPersons) {
+        return this.provider.saveAll(newPersons);
+    }
+}
@@ -0,0 +1,11 @@
+package com.mapo.personapp.person;
+
+/**
+ * Thrown by providers that cannot save persons, such as the ones that only map or index a CSV file.
+ * Answered with 405 Method Not Allowed by {@link PersonExceptionHandler}.
+ */
+public class ReadOnlyProviderException extends UnsupportedOperationException {
+    ReadOnlyProviderException(String message) {
+        super(message);
+    }
+}
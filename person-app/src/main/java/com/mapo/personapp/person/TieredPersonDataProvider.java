@@ -0,0 +1,455 @@
+package com.mapo.personapp.person;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Serves every read from memory and writes behind to the person table.
+ * <p>
+ * At startup the whole table is loaded into sorted maps by id and by color; with
+ * {@code person.tiered.seed-from-csv} an empty table is first filled from {@code person.csv.file}. A save
+ * updates the maps right away, so it is visible to the next read, and queues the row for a writer thread
+ * that stores queued rows in JDBC batches. The queue is bounded: when the database falls behind by
+ * {@code person.tiered.queue-capacity} rows, saves block until it catches up. Ids of new persons come
+ * from person_seq through a {@link PersonIdAllocator}, so they never collide with other writers.
+ * <p>
+ * Saves are acknowledged before they are stored. A batch that fails for a transient reason, such as a lost
+ * connection or a serialization failure, is retried with pauses growing up to {@value #MAX_BACKOFF_MILLIS} ms
+ * while the queue fills and saves eventually block; meanwhile the health of this provider is DOWN. A batch
+ * the database rejects for good, e.g. for a too long value, is split until the rows it takes are stored and
+ * each rejected row is dead-lettered: logged, counted by {@code person.tiered.write.dead-lettered} and
+ * reported in the health details, while it stays served from memory. {@code person.tiered.pending} and
+ * {@code person.tiered.write.failures} show the backlog and the failed attempts.
+ * <p>
+ * Rows still queued when the process dies are lost; {@link #flush()} waits until everything queued so far is stored.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "person.provider", havingValue = "TIERED")
+public class TieredPersonDataProvider implements PersonDataProvider, MeterBinder, HealthIndicator {
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private static final String SELECT_SQL = "select id, firstname, lastname, zipcode, city, color from person order by id";
+    private static final String INSERT_SQL =
+            "insert into person (firstname, lastname, zipcode, city, color, color_code, id) values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_SQL =
+            "update person set firstname = ?, lastname = ?, zipcode = ?, city = ?, color = ?, color_code = ? where id = ?";
+
+    private record PendingWrite(Person row, boolean insert) {
+    }
+
+    private final DataSource dataSource;
+    private final int batchSize;
+    private final ConcurrentSkipListMap<Long, Person> byId = new ConcurrentSkipListMap<>();
+    private final Map<String, ConcurrentSkipListMap<Long, Person>> byColor = new ConcurrentHashMap<>();
+    private final BlockingQueue<PendingWrite> writeBehind;
+    private final PersonIdAllocator ids = new PersonIdAllocator();
+    // serialises saves, so the queue holds the writes in the order they were applied to the maps
+    private final ReentrantLock saveLock = new ReentrantLock();
+    private final ReentrantLock progressLock = new ReentrantLock();
+    private final Condition progress = progressLock.newCondition();
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong failedAttempts = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    // why the batch being written could not be stored yet, null once it was
+    private volatile SQLException lastFailure;
+    // why the latest dead-lettered row was rejected
+    private volatile SQLException lastDeadLetter;
+    // bumped after each person applied to the maps, which serve every read
+    private final AtomicLong version = new AtomicLong();
+    private final Thread writer;
+
+    public TieredPersonDataProvider(DataSource dataSource, CsvImportService csvImportService,
+                                    @Value("${person.tiered.seed-from-csv:false}") boolean seedFromCsv,
+                                    @Value("${person.csv.file:classpath:sample-input.csv}") Resource csvFile,
+                                    @Value("${person.tiered.queue-capacity:10000}") int queueCapacity,
+                                    @Value("${person.db.batch-size:500}") int batchSize) throws SQLException, IOException {
+        this.dataSource = dataSource;
+        this.batchSize = batchSize;
+        this.writeBehind = new ArrayBlockingQueue<>(queueCapacity);
+        if (seedFromCsv && countRows() == 0) {
+            try (InputStream in = csvFile.getInputStream()) {
+                csvImportService.importCsv(in);
+            }
+        }
+        load();
+        log.info("Loaded {} persons into the tiered provider", this.byId.size());
+        this.writer = Thread.ofPlatform().daemon().name("tiered-write-behind").start(this::writeBehind);
+    }
+
+    private long countRows() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("select count(*) from person")) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    private void load() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            // Postgres only streams with a cursor inside a transaction
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.setFetchSize(1000);
+                try (ResultSet result = statement.executeQuery(SELECT_SQL)) {
+                    while (result.next()) {
+                        Person person = new Person(result.getString("firstname"), result.getString("lastname"),
+                                result.getString("zipcode"), result.getString("city"), result.getString("color"));
+                        person.setId(result.getLong("id"));
+                        index(person);
+                    }
+                }
+            }
+            connection.commit();
+        }
+    }
+
+    private void index(Person person) {
+        Person previous = byId.put(person.getId(), person);
+        if (previous != null && previous.getColor() != null && !previous.getColor().equals(person.getColor())) {
+            byColor.get(previous.getColor()).remove(person.getId());
+        }
+        if (person.getColor() != null) {
+            byColor.computeIfAbsent(person.getColor(), color -> new ConcurrentSkipListMap<>()).put(person.getId(), person);
+        }
+    }
+
+    @Override
+    public List<Person> all() {
+        return new ArrayList<>(byId.values());
+    }
+
+    @Override
+    public Person save(Person person) {
+        return saveAll(List.of(person)).get(0);
+    }
+
+    /**
+     * Applies the persons to memory and queues them for the database. A person whose id is unknown is
+     * stored as a new person with a fresh id, like JPA's merge would.
+     */
+    @Override
+    public List<Person> saveAll(List<Person> persons) {
+        saveLock.lock();
+        try {
+            for (Person person : persons) {
+                boolean insert = person.getId() == null || !byId.containsKey(person.getId());
+                if (insert) {
+                    person.setId(ids.next(this::nextSequenceValue));
+                }
+                Person row = copy(person);
+                index(row);
+                version.incrementAndGet();
+                writeBehind.put(new PendingWrite(copy(row), insert));
+                queued.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the write-behind queue", e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not allocate person ids", e);
+        } finally {
+            saveLock.unlock();
+        }
+        return persons;
+    }
+
+    @Override
+    public OptionalLong version() {
+        return OptionalLong.of(version.get());
+    }
+
+    // callers mutating their object afterwards must not change the served or the queued row
+    private static Person copy(Person person) {
+        Person copy = new Person(person.getFirstname(), person.getLastname(), person.getZipcode(), person.getCity(),
+                person.getColor());
+        copy.setId(person.getId());
+        return copy;
+    }
+
+    private long nextSequenceValue() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(PersonIdAllocator.NEXT_VALUE_SQL)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    @Override
+    public Person findById(Long id) {
+        Person person = id == null ? null : byId.get(id);
+        if (person == null) {
+            throw new PersonNotFoundException(id);
+        }
+        return person;
+    }
+
+    @Override
+    public List<Person> findByColor(String color) {
+        ConcurrentSkipListMap<Long, Person> persons = color == null ? null : byColor.get(color);
+        return persons == null ? List.of() : new ArrayList<>(persons.values());
+    }
+
+    @Override
+    public List<Person> page(Long afterId, int limit) {
+        return firstValues(byId.tailMap(afterId == null ? 0L : afterId, false), limit);
+    }
+
+    @Override
+    public List<Person> pageByColor(String color, Long afterId, int limit) {
+        ConcurrentSkipListMap<Long, Person> persons = color == null ? null : byColor.get(color);
+        return persons == null ? List.of() : firstValues(persons.tailMap(afterId == null ? 0L : afterId, false), limit);
+    }
+
+    private static List<Person> firstValues(Map<Long, Person> persons, int limit) {
+        List<Person> result = new ArrayList<>(Math.min(limit, 1024));
+        for (Person person : persons.values()) {
+            if (result.size() == limit) {
+                break;
+            }
+            result.add(person);
+        }
+        return result;
+    }
+
+    @Override
+    public void forEach(Consumer<Person> action) {
+        byId.values().forEach(action);
+    }
+
+    @Override
+    public PersonDataProviderType getProviderType() {
+        return PersonDataProviderType.TIERED;
+    }
+
+    /**
+     * Rows queued but neither stored nor dead-lettered yet.
+     */
+    long pendingWrites() {
+        return queued.get() - stored.get() - deadLettered.get();
+    }
+
+    /**
+     * Rows the database rejected for good, which are only in memory.
+     */
+    long deadLetteredWrites() {
+        return deadLettered.get();
+    }
+
+    /**
+     * Attempts to store a batch that failed and were retried.
+     */
+    long failedAttempts() {
+        return failedAttempts.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("person.tiered.pending", this, TieredPersonDataProvider::pendingWrites)
+                .description("Saved persons not yet stored in the database")
+                .register(registry);
+        FunctionCounter.builder("person.tiered.write.failures", this, TieredPersonDataProvider::failedAttempts)
+                .description("Failed attempts to store a batch of saved persons")
+                .register(registry);
+        FunctionCounter.builder("person.tiered.write.dead-lettered", this, TieredPersonDataProvider::deadLetteredWrites)
+                .description("Saved persons the database rejected for good, which are only kept in memory")
+                .register(registry);
+    }
+
+    // DOWN while a transient failure holds up the queued rows, which are kept and retried until the database takes them
+    @Override
+    public Health health() {
+        SQLException failure = lastFailure;
+        Health.Builder health = failure == null ? Health.up() : Health.down(failure);
+        health.withDetail("pendingWrites", pendingWrites()).withDetail("deadLetteredWrites", deadLetteredWrites());
+        SQLException deadLetter = lastDeadLetter;
+        if (deadLetter != null) {
+            health.withDetail("lastDeadLetter", deadLetter.getSQLState() + " " + deadLetter.getMessage());
+        }
+        return health.build();
+    }
+
+    /**
+     * Blocks until every row queued before this call has been stored or dead-lettered.
+     */
+    boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long target = queued.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        progressLock.lock();
+        try {
+            while (stored.get() + deadLettered.get() < target) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                progress.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            progressLock.unlock();
+        }
+    }
+
+    boolean flush() throws InterruptedException {
+        return flush(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    private void writeBehind() {
+        List<PendingWrite> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                batch.add(writeBehind.take());
+                writeBehind.drainTo(batch, batchSize - 1);
+                store(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // closed
+        }
+    }
+
+    // the saves were acknowledged already, so only rows the database can never take are given up on
+    private void store(List<PendingWrite> batch) throws InterruptedException {
+        for (long backoff = 100; ; backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS)) {
+            try {
+                write(batch);
+                stored.addAndGet(batch.size());
+                if (lastFailure != null) {
+                    log.info("Stored {} person writes again", batch.size());
+                    lastFailure = null;
+                }
+                break;
+            } catch (SQLException e) {
+                failedAttempts.incrementAndGet();
+                if (!isTransient(e)) {
+                    lastFailure = null;
+                    storeRejected(batch, e);
+                    return;
+                }
+                if (lastFailure == null) {
+                    log.warn("Could not store {} person writes, retrying", batch.size(), e);
+                }
+                lastFailure = e;
+                Thread.sleep(backoff);
+            }
+        }
+        signalProgress();
+    }
+
+    // halves keep their order, so an update is still stored after the insert of its id
+    private void storeRejected(List<PendingWrite> batch, SQLException e) throws InterruptedException {
+        if (batch.size() > 1) {
+            store(batch.subList(0, batch.size() / 2));
+            store(batch.subList(batch.size() / 2, batch.size()));
+            return;
+        }
+        Person row = batch.get(0).row();
+        log.error("Dead-lettering person {}, the database rejected it: {}", row.getId(), e.getSQLState(), e);
+        lastDeadLetter = e;
+        deadLettered.incrementAndGet();
+        signalProgress();
+    }
+
+    /**
+     * Whether storing the same rows again may succeed: connection failures (SQLState class 08), serialization
+     * failures and deadlocks (40001, 40P01), PostgreSQL shutting down (57P01) and timeouts or cancellations (57014).
+     */
+    static boolean isTransient(SQLException e) {
+        for (SQLException cause = e; cause != null; cause = cause.getNextException()) {
+            if (cause instanceof SQLTransientException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            String state = cause.getSQLState();
+            if (state != null && (state.startsWith("08") || state.equals("40001") || state.equals("40P01")
+                    || state.equals("57P01") || state.equals("57014"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void signalProgress() {
+        progressLock.lock();
+        try {
+            progress.signalAll();
+        } finally {
+            progressLock.unlock();
+        }
+    }
+
+    // inserts before updates is safe: an update always follows the insert of its id
+    private void write(List<PendingWrite> batch) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL);
+                 PreparedStatement update = connection.prepareStatement(UPDATE_SQL)) {
+                for (PendingWrite write : batch) {
+                    PreparedStatement statement = write.insert() ? insert : update;
+                    Person row = write.row();
+                    statement.setString(1, row.getFirstname());
+                    statement.setString(2, row.getLastname());
+                    statement.setString(3, row.getZipcode());
+                    statement.setString(4, row.getCity());
+                    statement.setString(5, row.getColor());
+                    statement.setShort(6, (short) CsvPersonParser.colorCode(row.getColor()));
+                    statement.setLong(7, row.getId());
+                    statement.addBatch();
+                }
+                insert.executeBatch();
+                update.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Stores what is still queued before the application context goes away.
+     */
+    @PreDestroy
+    void close() throws InterruptedException {
+        if (!flush(30, TimeUnit.SECONDS)) {
+            log.error("{} person writes were not stored", pendingWrites());
+        }
+        writer.interrupt();
+    }
+}
@@ -0,0 +1,17 @@
+-- increment matches the allocationSize of person_seq on Person
+create sequence person_seq start with 1 increment by 500;
+
+create table person (
+    id bigint primary key,
+    firstname varchar(255),
+    lastname varchar(255),
+    zipcode varchar(255),
+    city varchar(255),
+    color varchar(255),
+    -- CsvPersonParser code of color, 0 for names without one
+    color_code smallint default 0 not null
+);
+
+-- findByColor and the keyset pages by colour: equality on the code, then ordered by id
+create index person_color_code_id_idx on person (color_code, id);
+create index person_zipcode_idx on person (zipcode);
@@ -0,0 +1,4 @@
+-- PersonQuery criteria: lastname alone or with city, city alone or with a zipcode or zipcode range.
+-- Other combinations are served by intersecting these indexes (bitmap and on Postgres).
+create index person_lastname_city_idx on person (lastname, city);
+create index person_city_zipcode_idx on person (city, zipcode);
@@ -0,0 +1,186 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CachingPersonDataProviderTest {
+
+    @Mock
+    private PersonDataProvider delegate;
+
+    private CachingPersonDataProvider cachingProvider;
+
+    private Person testPerson1;
+    private Person testPerson2;
+
+    @BeforeEach
+    void setUp() {
+        cachingProvider = new CachingPersonDataProvider(delegate, new PersonCacheProperties(true, 100, Duration.ofMinutes(1)));
+
+        testPerson1 = new Person("John", "Doe", "12345", "Berlin", "blau");
+        testPerson1.setId(1L);
+
+        testPerson2 = new Person("Jane", "Smith", "54321", "Munich", "rot");
+        testPerson2.setId(2L);
+    }
+
+    @Test
+    void findById_ShouldHitDelegateOnlyOnce() {
+        when(delegate.findById(1L)).thenReturn(testPerson1);
+
+        assertSame(testPerson1, cachingProvider.findById(1L));
+        assertSame(testPerson1, cachingProvider.findById(1L));
+
+        verify(delegate, times(1)).findById(1L);
+        assertEquals(1, cachingProvider.idStats().hitCount());
+        assertEquals(1, cachingProvider.idStats().missCount());
+    }
+
+    @Test
+    void findById_ShouldNotCacheMissingPersons() {
+        when(delegate.findById(9L)).thenThrow(new PersonNotFoundException(9L));
+
+        assertThrows(PersonNotFoundException.class, () -> cachingProvider.findById(9L));
+        assertThrows(PersonNotFoundException.class, () -> cachingProvider.findById(9L));
+
+        verify(delegate, times(2)).findById(9L);
+    }
+
+    @Test
+    void findByColor_ShouldHitDelegateOnlyOnce() {
+        when(delegate.findByColor("blau")).thenReturn(List.of(testPerson1));
+
+        cachingProvider.findByColor("blau");
+        List<Person> result = cachingProvider.findByColor("blau");
+
+        assertEquals(List.of(testPerson1), result);
+        verify(delegate, times(1)).findByColor("blau");
+    }
+
+    @Test
+    void search_ShouldAlwaysGoToDelegate() {
+        PersonQuery query = new PersonQuery(null, null, "Berlin", null, null);
+        when(delegate.search(query, null, 10)).thenReturn(List.of(testPerson1));
+
+        cachingProvider.search(query, null, 10);
+        List<Person> result = cachingProvider.search(query, null, 10);
+
+        assertEquals(List.of(testPerson1), result);
+        verify(delegate, times(2)).search(query, null, 10);
+    }
+
+    @Test
+    void searchNames_ShouldAlwaysGoToDelegate() {
+        when(delegate.searchNames("mü", NameMatch.PREFIX, 10)).thenReturn(List.of(testPerson1));
+
+        cachingProvider.searchNames("mü", NameMatch.PREFIX, 10);
+        List<Person> result = cachingProvider.searchNames("mü", NameMatch.PREFIX, 10);
+
+        assertEquals(List.of(testPerson1), result);
+        verify(delegate, times(2)).searchNames("mü", NameMatch.PREFIX, 10);
+    }
+
+    @Test
+    void countBy_ShouldBeCachedUntilSave() {
+        when(delegate.countBy(PersonGrouping.COLOR)).thenReturn(Map.of("blau", 1L)).thenReturn(Map.of("blau", 2L));
+        when(delegate.save(testPerson1)).thenReturn(testPerson1);
+
+        assertEquals(Map.of("blau", 1L), cachingProvider.countBy(PersonGrouping.COLOR));
+        assertEquals(Map.of("blau", 1L), cachingProvider.countBy(PersonGrouping.COLOR));
+        cachingProvider.save(testPerson1);
+
+        assertEquals(Map.of("blau", 2L), cachingProvider.countBy(PersonGrouping.COLOR));
+        verify(delegate, times(2)).countBy(PersonGrouping.COLOR);
+    }
+
+    @Test
+    void save_ShouldInvalidateIdAndColorEntries() {
+        when(delegate.findById(1L)).thenReturn(testPerson1);
+        when(delegate.findByColor("rot")).thenReturn(List.of(testPerson2));
+        when(delegate.save(testPerson1)).thenReturn(testPerson1);
+        cachingProvider.findById(1L);
+        cachingProvider.findByColor("rot");
+
+        cachingProvider.save(testPerson1);
+        cachingProvider.findById(1L);
+        cachingProvider.findByColor("rot");
+
+        verify(delegate, times(2)).findById(1L);
+        verify(delegate, times(2)).findByColor("rot");
+    }
+
+    @Test
+    void get_ShouldReloadEntriesOfOlderDelegateVersion() {
+        Person reloaded = new Person("John", "Doe", "12345", "Hamburg", "rot");
+        reloaded.setId(1L);
+        when(delegate.version()).thenReturn(OptionalLong.of(1), OptionalLong.of(1), OptionalLong.of(1),
+                OptionalLong.of(1), OptionalLong.of(2));
+        when(delegate.findById(1L)).thenReturn(testPerson1).thenReturn(reloaded);
+        when(delegate.findByColor("blau")).thenReturn(List.of(testPerson1)).thenReturn(List.of());
+        when(delegate.countBy(PersonGrouping.COLOR)).thenReturn(Map.of("blau", 1L)).thenReturn(Map.of("rot", 1L));
+        cachingProvider.findById(1L);
+        cachingProvider.findByColor("blau");
+        cachingProvider.countBy(PersonGrouping.COLOR);
+        assertSame(testPerson1, cachingProvider.findById(1L));
+
+        assertSame(reloaded, cachingProvider.findById(1L));
+        assertEquals(List.of(), cachingProvider.findByColor("blau"));
+        assertEquals(Map.of("rot", 1L), cachingProvider.countBy(PersonGrouping.COLOR));
+        verify(delegate, times(2)).findByColor("blau");
+    }
+
+    @Test
+    void findByColor_ShouldReturnUnmodifiableLists() {
+        when(delegate.findByColor("blau")).thenReturn(new ArrayList<>(List.of(testPerson1)));
+        when(delegate.countBy(PersonGrouping.COLOR)).thenReturn(new TreeMap<>(Map.of("blau", 1L)));
+
+        List<Person> result = cachingProvider.findByColor("blau");
+
+        assertThrows(UnsupportedOperationException.class, () -> result.add(testPerson2));
+        assertThrows(UnsupportedOperationException.class, () -> cachingProvider.countBy(PersonGrouping.COLOR).clear());
+        assertEquals(List.of(testPerson1), cachingProvider.findByColor("blau"));
+    }
+
+    @Test
+    void saveAll_ShouldInvalidateSavedIds() {
+        when(delegate.findById(2L)).thenReturn(testPerson2);
+        when(delegate.saveAll(List.of(testPerson2))).thenReturn(List.of(testPerson2));
+        cachingProvider.findById(2L);
+
+        cachingProvider.saveAll(List.of(testPerson2));
+        cachingProvider.findById(2L);
+
+        verify(delegate, times(2)).findById(2L);
+    }
+
+    @Test
+    void all_ShouldPassThrough() {
+        when(delegate.all()).thenReturn(List.of(testPerson1, testPerson2));
+
+        cachingProvider.all();
+        cachingProvider.all();
+
+        verify(delegate, times(2)).all();
+    }
+
+    @Test
+    void getProviderType_ShouldReturnDelegateType() {
+        when(delegate.getProviderType()).thenReturn(PersonDataProviderType.DB);
+
+        assertEquals(PersonDataProviderType.DB, cachingProvider.getProviderType());
+    }
+}
@@ -0,0 +1,74 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColorIndexTest {
+
+    private Person[] persons;
+    private ColorIndex colorIndex;
+
+    @BeforeEach
+    void setUp() {
+        persons = new Person[] {
+                new Person("John", "Doe", "12345", "Berlin", "blau"),
+                new Person("Jane", "Smith", "54321", "Munich", "rot"),
+                new Person("Max", "Mustermann", "10115", "Berlin", "blau"),
+                new Person("Erika", "Musterfrau", "20095", "Hamburg", "unknown"),
+        };
+        colorIndex = ColorIndex.of(List.of(persons));
+    }
+
+    @Test
+    void lookup_ShouldReturnPersonsInPositionOrder() {
+        List<Person> result = colorIndex.lookup("blau", persons);
+
+        assertEquals(List.of(persons[0], persons[2]), result);
+    }
+
+    @Test
+    void lookup_ShouldReturnUnknownColors() {
+        assertEquals(List.of(persons[3]), colorIndex.lookup("unknown", persons));
+    }
+
+    @Test
+    void lookup_ShouldReturnEmptyListForColorOutsideColorMap() {
+        assertTrue(colorIndex.lookup("nonexistentcolor", persons).isEmpty());
+    }
+
+    @Test
+    void of_ShouldGrowPostingList() {
+        Person[] many = new Person[100];
+        for (int i = 0; i < many.length; i++) {
+            many[i] = new Person("First" + i, "Last" + i, "12345", "Berlin", "gelb");
+        }
+        ColorIndex index = ColorIndex.of(List.of(many));
+
+        assertEquals(100, index.lookup("gelb", many).size());
+        assertTrue(index.lookup("rot", many).isEmpty());
+    }
+
+    @Test
+    void append_ShouldLeaveOriginalIndexUnchanged() {
+        Person[] extended = Arrays.copyOf(persons, 6);
+        extended[4] = new Person("Hans", "Müller", "67742", "Lauterecken", "blau");
+        extended[5] = new Person("Peter", "Petersen", "18439", "Stralsund", "blau");
+
+        ColorIndex appended = colorIndex.append(List.of(extended[4], extended[5]), 4);
+
+        assertEquals(List.of(persons[0], persons[2]), colorIndex.lookup("blau", extended));
+        assertEquals(List.of(persons[0], persons[2], extended[4], extended[5]), appended.lookup("blau", extended));
+    }
+
+    @Test
+    void page_ShouldStartAtPositionAndRespectLimit() {
+        assertEquals(List.of(persons[2]), colorIndex.page("blau", 1, 10, persons));
+        assertEquals(List.of(persons[0]), colorIndex.page("blau", 0, 1, persons));
+        assertTrue(colorIndex.page("blau", 3, 10, persons).isEmpty());
+    }
+}
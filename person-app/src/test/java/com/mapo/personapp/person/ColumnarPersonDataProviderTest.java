@@ -0,0 +1,96 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarPersonDataProviderTest {
+
+    private ColumnarPersonDataProvider provider;
+    private CsvPersonDataProvider csvProvider;
+
+    @BeforeEach
+    void setUp() {
+        provider = new ColumnarPersonDataProvider(new ClassPathResource("sample-input.csv"));
+        csvProvider = new CsvPersonDataProvider(new ClassPathResource("sample-input.csv"));
+    }
+
+    private static void assertSamePerson(Person expected, Person actual) {
+        assertEquals(expected.getId(), actual.getId());
+        assertEquals(expected.getFirstname(), actual.getFirstname());
+        assertEquals(expected.getLastname(), actual.getLastname());
+        assertEquals(expected.getZipcode(), actual.getZipcode());
+        assertEquals(expected.getCity(), actual.getCity());
+        assertEquals(expected.getColor(), actual.getColor());
+    }
+
+    @Test
+    void getProviderType_ShouldReturnCsvColumnar() {
+        assertEquals(PersonDataProviderType.CSV_COLUMNAR, provider.getProviderType());
+    }
+
+    @Test
+    void all_ShouldMatchCsvProvider() {
+        List<Person> expected = csvProvider.all();
+        List<Person> result = provider.all();
+
+        assertEquals(expected.size(), result.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertSamePerson(expected.get(i), result.get(i));
+        }
+    }
+
+    @Test
+    void findById_ShouldReturnPerson() {
+        assertSamePerson(csvProvider.findById(3L), provider.findById(3L));
+    }
+
+    @Test
+    void findById_ShouldThrowExceptionWhenNotFound() {
+        assertThrows(PersonNotFoundException.class, () -> provider.findById(999L));
+        assertThrows(PersonNotFoundException.class, () -> provider.findById(null));
+    }
+
+    @Test
+    void findByColor_ShouldMatchCsvProvider() {
+        List<Long> expected = csvProvider.findByColor("blau").stream().map(Person::getId).toList();
+
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, provider.findByColor("blau").stream().map(Person::getId).toList());
+        assertTrue(provider.findByColor("nonexistentcolor").isEmpty());
+    }
+
+    @Test
+    void page_ShouldReturnPersonsAfterCursor() {
+        assertEquals(List.of(3L, 4L), provider.page(2L, 2).stream().map(Person::getId).toList());
+        assertTrue(provider.page((long) provider.all().size(), 2).isEmpty());
+    }
+
+    @Test
+    void pageByColor_ShouldMatchCsvProvider() {
+        List<Long> expected = csvProvider.pageByColor("blau", 1L, 2).stream().map(Person::getId).toList();
+
+        assertEquals(expected, provider.pageByColor("blau", 1L, 2).stream().map(Person::getId).toList());
+    }
+
+    @Test
+    void forEach_ShouldVisitEveryPersonInIdOrder() {
+        List<Long> ids = new ArrayList<>();
+        provider.forEach(person -> ids.add(person.getId()));
+
+        assertEquals(csvProvider.all().stream().map(Person::getId).toList(), ids);
+    }
+
+    @Test
+    void save_ShouldBeUnsupported() {
+        Person person = new Person("Test", "Person", "12345", "TestCity", "rot");
+
+        assertThrows(ReadOnlyProviderException.class, () -> provider.save(person));
+        assertThrows(ReadOnlyProviderException.class, () -> provider.saveAll(List.of(person)));
+    }
+}
@@ -0,0 +1,95 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarPersonStoreTest {
+
+    private static Person person(long id, String firstname, String lastname, String zipcode, String city, String color) {
+        Person person = new Person(firstname, lastname, zipcode, city, color);
+        person.setId(id);
+        return person;
+    }
+
+    @Test
+    void person_ShouldRestoreEveryField() {
+        ColumnarPersonStore.Builder builder = new ColumnarPersonStore.Builder();
+        builder.add(person(3L, "Hans", "Müller", "67742", "Lauterecken", "blau"));
+        ColumnarPersonStore store = builder.build();
+
+        Person result = store.person(0);
+
+        assertEquals(3L, result.getId());
+        assertEquals("Hans", result.getFirstname());
+        assertEquals("Müller", result.getLastname());
+        assertEquals("67742", result.getZipcode());
+        assertEquals("Lauterecken", result.getCity());
+        assertEquals("blau", result.getColor());
+    }
+
+    @Test
+    void person_ShouldKeepZipcodesThatCannotBePacked() {
+        ColumnarPersonStore.Builder builder = new ColumnarPersonStore.Builder();
+        builder.add(person(1L, "A", "B", "01067", "Dresden", "rot"));
+        builder.add(person(2L, "A", "B", "SW1A", "London", "rot"));
+        builder.add(person(3L, "A", "B", "123456789", "Far", "rot"));
+        builder.add(person(4L, "A", "B", "", "Nowhere", "rot"));
+        builder.add(person(5L, null, null, null, null, "rot"));
+        ColumnarPersonStore store = builder.build();
+
+        assertEquals("01067", store.person(0).getZipcode());
+        assertEquals("SW1A", store.person(1).getZipcode());
+        assertEquals("123456789", store.person(2).getZipcode());
+        assertEquals("", store.person(3).getZipcode());
+        assertNull(store.person(4).getZipcode());
+        assertNull(store.person(4).getFirstname());
+        assertNull(store.person(4).getCity());
+    }
+
+    @Test
+    void person_ShouldShareDictionaryValues() {
+        ColumnarPersonStore.Builder builder = new ColumnarPersonStore.Builder();
+        builder.add(person(1L, "Hans", "Müller", "12345", "Berlin", "blau"));
+        builder.add(person(2L, new String("Hans"), "Peters", "12345", new String("Berlin"), "blau"));
+        ColumnarPersonStore store = builder.build();
+
+        assertSame(store.person(0).getFirstname(), store.person(1).getFirstname());
+        assertSame(store.person(0).getCity(), store.person(1).getCity());
+    }
+
+    @Test
+    void person_ShouldStoreColorsOutsideColorMapAsUnknown() {
+        ColumnarPersonStore.Builder builder = new ColumnarPersonStore.Builder();
+        builder.add(person(1L, "Hans", "Müller", "12345", "Berlin", "lila"));
+        ColumnarPersonStore store = builder.build();
+
+        assertEquals(0, store.colorCode(0));
+        assertEquals(CsvPersonParser.UNKNOWN_COLOR, store.person(0).getColor());
+    }
+
+    @Test
+    void rowOf_ShouldFindRowsOfSparseIds() {
+        ColumnarPersonStore.Builder builder = new ColumnarPersonStore.Builder();
+        for (long id = 10; id <= 5000; id += 10) {
+            builder.add(person(id, "First", "Last", "12345", "City", "gelb"));
+        }
+        ColumnarPersonStore store = builder.build();
+
+        assertEquals(500, store.size());
+        assertEquals(4, store.rowOf(50L));
+        assertEquals(-1, store.rowOf(55L));
+        assertEquals(5, store.rowAfter(50L));
+        assertEquals(5, store.rowAfter(55L));
+        assertEquals(0, store.rowAfter(0L));
+        assertEquals(500, store.rowAfter(5000L));
+    }
+
+    @Test
+    void add_ShouldRejectIdsOutOfOrder() {
+        ColumnarPersonStore.Builder builder = new ColumnarPersonStore.Builder();
+        builder.add(person(2L, "A", "B", "12345", "C", "blau"));
+
+        assertThrows(IllegalArgumentException.class, () -> builder.add(person(1L, "A", "B", "12345", "C", "blau")));
+    }
+}
@@ -0,0 +1,161 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvAppendLogTest {
+
+    private static Person person(String lastname) {
+        return new Person("First", lastname, "12345", "Berlin", "blau");
+    }
+
+    @Test
+    void append_ShouldGroupRequestsQueuedDuringWrite() throws InterruptedException {
+        CountDownLatch firstWriteStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstWrite = new CountDownLatch(1);
+        List<List<Person>> batches = new CopyOnWriteArrayList<>();
+        CsvAppendLog log = new CsvAppendLog(Integer.MAX_VALUE, batch -> {
+            batches.add(batch);
+            if (batches.size() == 1) {
+                firstWriteStarted.countDown();
+                try {
+                    releaseFirstWrite.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        Thread first = Thread.ofPlatform().start(() -> log.append(List.of(person("A"))));
+        firstWriteStarted.await();
+        List<Thread> queued = new ArrayList<>();
+        for (String lastname : List.of("B", "C", "D")) {
+            queued.add(Thread.ofPlatform().start(() -> log.append(List.of(person(lastname)))));
+        }
+        while (queued.stream().anyMatch(thread -> thread.getState() != Thread.State.WAITING)) {
+            Thread.sleep(1);
+        }
+        releaseFirstWrite.countDown();
+        first.join();
+        for (Thread thread : queued) {
+            thread.join();
+        }
+        log.close();
+
+        assertEquals(2, batches.size());
+        assertEquals(1, batches.get(0).size());
+        assertEquals(3, batches.get(1).size());
+    }
+
+    @Test
+    void append_ShouldWriteEachRequestAloneWhenLimitedToOne() {
+        List<List<Person>> batches = new CopyOnWriteArrayList<>();
+        CsvAppendLog log = new CsvAppendLog(1, batches::add);
+
+        log.append(List.of(person("A"), person("B")));
+        log.append(List.of(person("C")));
+        log.close();
+
+        assertEquals(2, batches.size());
+        assertEquals(2, batches.get(0).size());
+    }
+
+    @Test
+    void append_ShouldRethrowWriteFailure() {
+        CsvAppendLog log = new CsvAppendLog(Integer.MAX_VALUE, batch -> {
+            throw new IOException("disk full");
+        });
+
+        UncheckedIOException e = assertThrows(UncheckedIOException.class, () -> log.append(List.of(person("A"))));
+        assertEquals("disk full", e.getCause().getMessage());
+        log.close();
+        assertThrows(IllegalStateException.class, () -> log.append(List.of(person("B"))));
+    }
+
+    @Test
+    void append_ShouldRethrowErrorAndKeepWriting() {
+        List<List<Person>> batches = new CopyOnWriteArrayList<>();
+        CsvAppendLog log = new CsvAppendLog(Integer.MAX_VALUE, batch -> {
+            if (batches.isEmpty()) {
+                batches.add(List.of());
+                throw new StackOverflowError();
+            }
+            batches.add(batch);
+        });
+
+        assertThrows(StackOverflowError.class, () -> log.append(List.of(person("A"))));
+        log.append(List.of(person("B")));
+        log.close();
+
+        assertEquals("B", batches.get(1).get(0).getLastname());
+    }
+
+    @Test
+    void close_ShouldReleaseEveryConcurrentAppend() throws InterruptedException {
+        for (int round = 0; round < 50; round++) {
+            CsvAppendLog log = new CsvAppendLog(Integer.MAX_VALUE, batch -> {
+            });
+            List<Thread> appending = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                appending.add(Thread.ofPlatform().start(() -> {
+                    try {
+                        while (true) {
+                            log.append(List.of(person("A")));
+                        }
+                    } catch (IllegalStateException e) {
+                        // closed
+                    }
+                }));
+            }
+            log.close();
+            for (Thread thread : appending) {
+                thread.join(5000);
+                assertFalse(thread.isAlive());
+            }
+        }
+    }
+
+    @Test
+    void close_ShouldLetTheWriteInProgressFinish() throws InterruptedException {
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch releaseWrite = new CountDownLatch(1);
+        List<Boolean> interrupted = new CopyOnWriteArrayList<>();
+        CsvAppendLog log = new CsvAppendLog(Integer.MAX_VALUE, batch -> {
+            writeStarted.countDown();
+            try {
+                releaseWrite.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            interrupted.add(Thread.currentThread().isInterrupted());
+        });
+        List<Throwable> failures = new CopyOnWriteArrayList<>();
+        Thread appending = Thread.ofPlatform().start(() -> {
+            try {
+                log.append(List.of(person("A")));
+            } catch (RuntimeException e) {
+                failures.add(e);
+            }
+        });
+        writeStarted.await();
+
+        Thread closing = Thread.ofPlatform().start(log::close);
+        Thread.sleep(50);
+        assertTrue(closing.isAlive());
+        releaseWrite.countDown();
+        closing.join();
+        appending.join();
+
+        assertEquals(List.of(false), interrupted);
+        assertTrue(failures.isEmpty());
+        assertThrows(IllegalStateException.class, () -> log.append(List.of(person("B"))));
+    }
+}
@@ -0,0 +1,87 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class CsvImportControllerTest {
+
+    @Mock
+    private CsvImportService csvImportService;
+
+    @TempDir
+    private Path tempDir;
+
+    private Path directory;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createDirectory(tempDir.resolve("imports"));
+        mockMvc = MockMvcBuilders.standaloneSetup(new CsvImportController(csvImportService, directory.toString())).build();
+    }
+
+    @Test
+    void importCsv_ShouldImportFileFromImportDirectory() throws Exception {
+        Files.writeString(directory.resolve("persons.csv"), "Müller, Hans, 67742 Lauterecken, 1\n");
+        when(csvImportService.importCsv(any())).thenAnswer(invocation -> {
+            String csv = new String(invocation.<InputStream>getArgument(0).readAllBytes(), StandardCharsets.UTF_8);
+            return new CsvImportService.Status(false, csv.lines().count(), 1, 0);
+        });
+
+        mockMvc.perform(post("/admin/import").param("file", "persons.csv"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.parsed").value(1));
+    }
+
+    @Test
+    void importCsv_ShouldRejectFilesOutsideImportDirectory() throws Exception {
+        Files.writeString(tempDir.resolve("secret.csv"), "Müller, Hans, 67742 Lauterecken, 1\n");
+
+        mockMvc.perform(post("/admin/import").param("file", "../secret.csv"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/admin/import").param("file", tempDir.resolve("secret.csv").toString()))
+                .andExpect(status().isBadRequest());
+
+        verify(csvImportService, never()).importCsv(any());
+    }
+
+    @Test
+    void importCsv_ShouldRejectLinksLeadingOutOfImportDirectory() throws Exception {
+        Path secret = Files.writeString(tempDir.resolve("secret.csv"), "Müller, Hans, 67742 Lauterecken, 1\n");
+        Files.createSymbolicLink(directory.resolve("link.csv"), secret);
+
+        mockMvc.perform(post("/admin/import").param("file", "link.csv"))
+                .andExpect(status().isBadRequest());
+
+        verify(csvImportService, never()).importCsv(any());
+    }
+
+    @Test
+    void importCsv_ShouldAnswerNotFoundForMissingFile() throws Exception {
+        mockMvc.perform(post("/admin/import").param("file", "missing.csv"))
+                .andExpect(status().isNotFound());
+
+        verify(csvImportService, never()).importCsv(any());
+    }
+}
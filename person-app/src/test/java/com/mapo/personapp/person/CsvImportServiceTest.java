@@ -0,0 +1,126 @@
+package com.mapo.personapp.person;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvImportServiceTest {
+
+    private JdbcDataSource dataSource;
+    private CsvImportService csvImportService;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        csvImportService = new CsvImportService(dataSource);
+    }
+
+    private static ByteArrayInputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long queryLong(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(sql)) {
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    @Test
+    void importCsv_ShouldInsertAllRecordsWithLineNumberIds() throws Exception {
+        CsvImportService.Status status = csvImportService.importCsv(csv(
+                "Müller, Hans, 67742 Lauterecken, 1\nBart, Bertram, \n12313 Wasweißich, 1 \nGerber, Gerda, 76535 Woanders, 3"));
+
+        assertFalse(status.running());
+        assertEquals(3, status.parsed());
+        assertEquals(3, status.written());
+        assertEquals(3, queryLong("select count(*) from person"));
+        assertEquals(2, queryLong("select id from person where lastname = 'Bart'"));
+    }
+
+    @Test
+    void importCsv_ShouldContinueAfterExistingIdsAndMoveSequence() throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("insert into person (id, firstname, lastname) values (10, 'Existing', 'Person')");
+        }
+
+        csvImportService.importCsv(csv("Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2\n"));
+
+        assertEquals(12, queryLong("select max(id) from person"));
+        assertTrue(queryLong("select next value for person_seq") - 500 >= 12);
+    }
+
+    @Test
+    void importCsv_ShouldNotMoveSequenceBackwards() throws Exception {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("alter sequence person_seq restart with 10000");
+        }
+
+        csvImportService.importCsv(csv("Müller, Hans, 67742 Lauterecken, 1\n"));
+
+        assertEquals(10000, queryLong("select next value for person_seq"));
+    }
+
+    @Test
+    void importCsv_ShouldReportStatusOfLastImport() throws Exception {
+        assertNull(csvImportService.status());
+
+        csvImportService.importCsv(csv("Müller, Hans, 67742 Lauterecken, 1\n"));
+
+        assertEquals(1, csvImportService.status().written());
+        assertFalse(csvImportService.status().running());
+    }
+
+    @Test
+    void importCsv_ShouldHandleMoreRecordsThanOneBatch() throws Exception {
+        StringBuilder content = new StringBuilder();
+        int rows = CsvImportService.BATCH_SIZE * 2 + 7;
+        for (int i = 0; i < rows; i++) {
+            content.append("Last").append(i).append(", First, 12345 City, 2\n");
+        }
+
+        CsvImportService.Status status = csvImportService.importCsv(csv(content.toString()));
+
+        assertEquals(rows, status.written());
+        assertEquals(rows, queryLong("select count(*) from person"));
+    }
+
+    @Test
+    void appendCsvRow_ShouldQuoteAndEscapeFields() {
+        Person person = new Person("Anna \"Ann\"", "Schmidt, Jr.", "12345", null, "rot");
+        person.setId(7L);
+        StringBuilder row = new StringBuilder();
+
+        CsvImportService.appendCsvRow(row, person);
+
+        assertEquals("7,\"Anna \"\"Ann\"\"\",\"Schmidt, Jr.\",\"12345\",,\"rot\",4\n", row.toString());
+    }
+
+    @Test
+    void importCsv_ShouldRollBackWhenInputCannotBeRead() {
+        ByteArrayInputStream broken = new ByteArrayInputStream(new byte[0]) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                throw new IllegalStateException("Disk failure");
+            }
+        };
+
+        assertThrows(IOException.class, () -> csvImportService.importCsv(broken));
+        assertFalse(csvImportService.status().running());
+    }
+}
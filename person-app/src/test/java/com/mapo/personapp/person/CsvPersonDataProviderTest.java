@@ -1,11 +1,23 @@
 package com.mapo.personapp.person;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -78,6 +90,11 @@ class CsvPersonDataProviderTest {
         });
     }
 
+    @Test
+    void findById_ShouldThrowExceptionForIdBelowRange() {
+        assertThrows(PersonNotFoundException.class, () -> csvPersonDataProvider.findById(0L));
+    }
+
     @Test
     void findByColor_ShouldReturnPersonsWithMatchingColor() {
         List<Person> allPersons = csvPersonDataProvider.all();
@@ -111,12 +128,102 @@ class CsvPersonDataProviderTest {
     }
 
     @Test
-    void save_ShouldReturnNull() {
+    void save_ShouldBeUnsupportedForClasspathResource() {
         Person newPerson = new Person("Test", "Person", "12345", "TestCity", "blau");
 
-        Person result = csvPersonDataProvider.save(newPerson);
+        assertThrows(ReadOnlyProviderException.class, () -> csvPersonDataProvider.save(newPerson));
+    }
 
-        assertNull(result, "Save method should return null as it's not implemented yet");
+    @Test
+    void save_ShouldAppendRecordWithNextId(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2\n");
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file));
+
+        Person result = provider.save(new Person("Test", "Person", "12345", "Test City", "rot"));
+
+        assertEquals(3L, result.getId());
+        assertEquals("Test City", provider.findById(3L).getCity());
+        assertEquals(List.of(3L), provider.findByColor("rot").stream().map(Person::getId).toList());
+        // the stored row is a copy, later changes of the caller do not reach it
+        result.setCity("Elsewhere");
+        assertEquals("Test City", provider.findById(3L).getCity());
+        assertTrue(Files.readString(file).endsWith("Person, Test, 12345 Test City, 4\n"));
+        Person reloaded = new CsvPersonDataProvider(new FileSystemResource(file)).findById(3L);
+        assertEquals("Test", reloaded.getFirstname());
+        assertEquals("Test City", reloaded.getCity());
+        assertEquals("rot", reloaded.getColor());
+    }
+
+    @Test
+    void save_ShouldTerminateUnterminatedLastRecord(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2");
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file));
+
+        provider.save(new Person("Test", "Person", "12345", "TestCity", "blau"));
+
+        CsvPersonDataProvider reloaded = new CsvPersonDataProvider(new FileSystemResource(file));
+        assertEquals(3, reloaded.all().size());
+        assertEquals("grün", reloaded.findById(2L).getColor());
+        assertEquals("Person", reloaded.findById(3L).getLastname());
+        assertEquals(3, provider.all().size());
+    }
+
+    @Test
+    void save_ShouldLeaveCallersPersonUntouchedWhenWriteFails(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\nPetersen, Pet");
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file));
+        Person person = new Person("Test", "Person", "12345", "TestCity", "lila");
+
+        assertThrows(IllegalStateException.class, () -> provider.save(person));
+
+        assertNull(person.getId());
+        assertEquals("lila", person.getColor());
+        assertEquals(1, provider.all().size());
+    }
+
+    @Test
+    void save_ShouldRejectFieldsThatBreakTheFormat(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "");
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> provider.save(new Person("Test", "Per, son", "12345", "TestCity", "blau")));
+        assertThrows(IllegalArgumentException.class,
+                () -> provider.save(new Person("Test", "Person", "12 345", "TestCity", "blau")));
+        assertEquals(0, Files.size(file));
+    }
+
+    @Test
+    void saveAll_ShouldAssignConsecutiveIdsAcrossConcurrentWriters(@TempDir Path tempDir) throws Exception {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\n");
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file));
+
+        List<Thread> writers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int writer = t;
+            writers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 25; i++) {
+                    provider.save(new Person("First" + i, "Writer" + writer, "12345", "Berlin", "gelb"));
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        List<Person> reloaded = new CsvPersonDataProvider(new FileSystemResource(file)).all();
+        assertEquals(201, provider.all().size());
+        assertEquals(201, reloaded.size());
+        for (int i = 0; i < reloaded.size(); i++) {
+            assertEquals(reloaded.get(i).getLastname(), provider.findById(i + 1L).getLastname());
+            assertEquals(reloaded.get(i).getFirstname(), provider.findById(i + 1L).getFirstname());
+        }
+        provider.close();
     }
 
     @Test
@@ -153,4 +260,295 @@ class CsvPersonDataProviderTest {
             assertEquals(expected.getColor(), result.getColor());
         }
     }
+
+    @Test
+    void page_ShouldReturnPersonsAfterCursorInIdOrder() {
+        List<Person> result = csvPersonDataProvider.page(2L, 3);
+
+        assertEquals(3, result.size());
+        assertEquals(3L, result.get(0).getId());
+        assertEquals(5L, result.get(2).getId());
+    }
+
+    @Test
+    void page_ShouldReturnEmptyListAfterLastId() {
+        int size = csvPersonDataProvider.all().size();
+
+        assertTrue(csvPersonDataProvider.page((long) size, 10).isEmpty());
+    }
+
+    @Test
+    void pageByColor_ShouldReturnMatchingPersonsAfterCursor() {
+        List<Person> all = csvPersonDataProvider.findByColor("blau");
+
+        List<Person> result = csvPersonDataProvider.pageByColor("blau", all.get(0).getId(), 10);
+
+        assertEquals(all.subList(1, all.size()), result);
+    }
+
+    @Test
+    void forEach_ShouldVisitAllPersonsInIdOrder() {
+        List<Person> visited = new ArrayList<>();
+
+        csvPersonDataProvider.forEach(visited::add);
+
+        assertEquals(csvPersonDataProvider.all(), visited);
+    }
+
+    @Test
+    void reload_ShouldAppendNewLinesWithContinuingIds(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2\n");
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file));
+        List<Person> before = provider.all();
+
+        Files.writeString(file, "Johnson, Johnny, 88888 made up, 1\n", StandardOpenOption.APPEND);
+        provider.reload();
+
+        assertEquals(2, before.size());
+        assertEquals(3, provider.all().size());
+        assertEquals("Johnson", provider.findById(3L).getLastname());
+        assertEquals(List.of(1L, 3L), provider.findByColor("blau").stream().map(Person::getId).toList());
+    }
+
+    @Test
+    void search_ShouldMatchSampleRecordsByZipcodeAndColor() {
+        List<Person> expected = csvPersonDataProvider.all().stream()
+                .filter(person -> person.getZipcode().startsWith("1") && "blau".equals(person.getColor()))
+                .toList();
+
+        List<Person> result = csvPersonDataProvider.search(new PersonQuery(null, "1", null, null, "blau"), null, 100);
+
+        assertFalse(result.isEmpty());
+        assertEquals(expected, result);
+    }
+
+    @Test
+    void search_ShouldPageAfterTheCursorIntoTheAppendedTail(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2\nMüller, Jonas, 67744 Kusel, 3\n");
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file));
+        PersonQuery query = new PersonQuery(null, null, null, "Müller", null);
+        assertEquals(List.of(1L), provider.search(query, null, 1).stream().map(Person::getId).toList());
+
+        Files.writeString(file, "Müller, Anna, 10115 Berlin, 3\n", StandardOpenOption.APPEND);
+        provider.reload();
+
+        assertEquals(List.of(3L), provider.search(query, 1L, 1).stream().map(Person::getId).toList());
+        assertEquals(List.of(3L, 4L), provider.search(query, 1L, 10).stream().map(Person::getId).toList());
+        assertEquals(List.of(), provider.search(query, 4L, 10));
+    }
+
+    @Test
+    void search_ShouldFindPersonsAppendedAfterTheIndexWasBuilt(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2\n");
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file));
+        PersonQuery query = new PersonQuery(null, "67", null, "Müller", null);
+        assertEquals(List.of(1L), provider.search(query, null, 100).stream().map(Person::getId).toList());
+
+        Files.writeString(file, "Müller, Jonas, 67744 Kusel, 3\nMüller, Anna, 10115 Berlin, 3\n", StandardOpenOption.APPEND);
+        provider.reload();
+
+        assertEquals(List.of(1L, 3L), provider.search(query, null, 100).stream().map(Person::getId).toList());
+    }
+
+    @Test
+    void searchNames_ShouldMatchSampleRecordsByPrefixAndSimilarity() {
+        assertEquals(List.of(1L, 5L), csvPersonDataProvider.searchNames("Mü", NameMatch.PREFIX, 10).stream().map(Person::getId).toList());
+        assertEquals(List.of(3L), csvPersonDataProvider.searchNames("jo", NameMatch.PREFIX, 1).stream().map(Person::getId).toList());
+        assertEquals(List.of(1L, 5L), csvPersonDataProvider.searchNames("Muller", NameMatch.FUZZY, 10).stream().map(Person::getId).toList());
+    }
+
+    @Test
+    void searchNames_ShouldFindSavedPersons(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2\n");
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file));
+
+        provider.save(new Person("Anna", "Muller", "10115", "Berlin", "blau"));
+
+        assertEquals(List.of(1L, 3L), provider.searchNames("m", NameMatch.PREFIX, 10).stream().map(Person::getId).toList());
+        assertEquals(List.of(3L, 1L), provider.searchNames("Muller", NameMatch.FUZZY, 10).stream().map(Person::getId).toList());
+    }
+
+    @Test
+    void searchNames_ShouldFindPersonsAppendedPastTheNameIndex(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2\n");
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file));
+        assertEquals(List.of(1L), provider.searchNames("mü", NameMatch.PREFIX, 10).stream().map(Person::getId).toList());
+
+        StringBuilder appended = new StringBuilder();
+        for (int i = 0; i < CsvSnapshot.SEARCH_REINDEX_THRESHOLD; i++) {
+            appended.append("Schmidt, Paul, 10115 Berlin, 3\n");
+        }
+        appended.append("Müller, Jonas, 67744 Kusel, 3\n");
+        Files.writeString(file, appended, StandardOpenOption.APPEND);
+        provider.reload();
+        long last = CsvSnapshot.SEARCH_REINDEX_THRESHOLD + 3L;
+
+        // the first search rebuilds the outgrown index, the next ones reuse it
+        for (int i = 0; i < 2; i++) {
+            assertEquals(List.of(1L, last), provider.searchNames("mü", NameMatch.PREFIX, 10).stream().map(Person::getId).toList());
+            assertEquals(List.of(1L, last), provider.searchNames("Muller", NameMatch.FUZZY, 10).stream().map(Person::getId).toList());
+        }
+    }
+
+    @Test
+    void countBy_ShouldMatchSampleRecords() {
+        Map<String, Long> expected = new TreeMap<>();
+        csvPersonDataProvider.all().forEach(person -> expected.merge(person.getCity(), 1L, Long::sum));
+
+        assertEquals(expected, csvPersonDataProvider.countBy(PersonGrouping.CITY));
+        assertEquals((long) csvPersonDataProvider.findByColor("blau").size(), csvPersonDataProvider.countBy(PersonGrouping.COLOR).get("blau"));
+    }
+
+    @Test
+    void countBy_ShouldIncludeSavedAndReparsedPersons(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2");
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file));
+        assertEquals(Map.of("18", 1L, "67", 1L), provider.countBy(PersonGrouping.ZIPCODE_REGION));
+
+        Files.writeString(file, "\n", StandardOpenOption.APPEND);
+        provider.save(new Person("Jonas", "Müller", "67744", "Kusel", "blau"));
+
+        assertEquals(Map.of("18", 1L, "67", 2L), provider.countBy(PersonGrouping.ZIPCODE_REGION));
+        assertEquals(Map.of("blau", 2L, "grün", 1L), provider.countBy(PersonGrouping.COLOR));
+    }
+
+    @Test
+    void version_ShouldChangeOnSaveAndReloadOnly(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\n");
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file));
+        long loaded = provider.version().getAsLong();
+
+        provider.reload();
+        assertEquals(loaded, provider.version().getAsLong());
+
+        provider.save(new Person("Peter", "Petersen", "18439", "Stralsund", "grün"));
+        long saved = provider.version().getAsLong();
+        assertNotEquals(loaded, saved);
+
+        Files.writeString(file, "Gerber, Gerda, 76535 Woanders, 3\n", StandardOpenOption.APPEND);
+        provider.reload();
+        assertNotEquals(saved, provider.version().getAsLong());
+    }
+
+    @Test
+    void reload_ShouldReparseUnterminatedLastRecord(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\nBart, Bertram, 12313 Wasweißich, 1");
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file));
+
+        Files.writeString(file, "2\nGerber, Gerda, 76535 Woanders, 3\n", StandardOpenOption.APPEND);
+        provider.reload();
+
+        assertEquals(3, provider.all().size());
+        assertEquals("unknown", provider.findById(2L).getColor());
+        assertEquals("Gerber", provider.findById(3L).getLastname());
+        assertEquals(List.of(1L), provider.findByColor("blau").stream().map(Person::getId).toList());
+    }
+
+    @Test
+    void reload_ShouldLoadTruncatedFileFromScratch(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2\n");
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file));
+
+        Files.writeString(file, "Gerber, Gerda, 76535 Woanders, 3\n");
+        provider.reload();
+
+        assertEquals(1, provider.all().size());
+        assertEquals("Gerber", provider.findById(1L).getLastname());
+        assertTrue(provider.findByColor("blau").isEmpty());
+    }
+
+    // a snapshot file matching the CSV bytes but holding a different name, to tell which of the two was loaded
+    private static void writeMarkedSnapshotFile(Path file, Path snapshotFile) throws IOException {
+        CsvSnapshot snapshot = CsvSnapshot.of(CsvPersonParser.load(Files.newInputStream(file), 1L, 0L),
+                Files.readAttributes(file, BasicFileAttributes.class));
+        snapshot.get(1L).setLastname("FromSnapshot");
+        CsvSnapshotFile.write(snapshotFile, file, snapshot);
+    }
+
+    @Test
+    void constructor_ShouldWriteSnapshotFile(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Path snapshotFile = tempDir.resolve("persons.bin");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2\n");
+
+        new CsvPersonDataProvider(new FileSystemResource(file), false, CsvFsyncPolicy.GROUP, snapshotFile.toString());
+
+        CsvLoad stored = CsvSnapshotFile.read(snapshotFile, file);
+        assertEquals(2, stored.persons().size());
+        assertEquals("Petersen", stored.persons().get(1).getLastname());
+        assertEquals(Files.size(file), stored.committedOffset());
+    }
+
+    @Test
+    void constructor_ShouldLoadMatchingSnapshotFile(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Path snapshotFile = tempDir.resolve("persons.bin");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2\n");
+        writeMarkedSnapshotFile(file, snapshotFile);
+
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file), false,
+                CsvFsyncPolicy.GROUP, snapshotFile.toString());
+
+        assertEquals("FromSnapshot", provider.findById(1L).getLastname());
+        assertEquals(List.of(1L), provider.findByColor("blau").stream().map(Person::getId).toList());
+    }
+
+    @Test
+    void constructor_ShouldParseOnlyRecordsAppendedAfterSnapshotFile(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Path snapshotFile = tempDir.resolve("persons.bin");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2\n");
+        writeMarkedSnapshotFile(file, snapshotFile);
+        Files.writeString(file, "Bart, Bertram, \n12313 Wasweißich, 1\n", StandardOpenOption.APPEND);
+
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file), false,
+                CsvFsyncPolicy.GROUP, snapshotFile.toString());
+
+        assertEquals("FromSnapshot", provider.findById(1L).getLastname());
+        assertEquals("Bart", provider.findById(3L).getLastname());
+        assertEquals(List.of(1L, 3L), provider.findByColor("blau").stream().map(Person::getId).toList());
+        assertEquals(3, CsvSnapshotFile.read(snapshotFile, file).persons().size());
+    }
+
+    @Test
+    void constructor_ShouldParseCsvWhenSnapshotFileIsOutdated(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Path snapshotFile = tempDir.resolve("persons.bin");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2\n");
+        writeMarkedSnapshotFile(file, snapshotFile);
+        Files.writeString(file, "Muller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2\n");
+
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file), false,
+                CsvFsyncPolicy.GROUP, snapshotFile.toString());
+
+        assertEquals("Muller", provider.findById(1L).getLastname());
+        assertEquals("Muller", CsvSnapshotFile.read(snapshotFile, file).persons().get(0).getLastname());
+    }
+
+    @Test
+    void bindTo_ShouldPublishLoadMetrics(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\nDoe, 12345\n");
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file));
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        provider.bindTo(registry);
+        Files.writeString(file, "Petersen, Peter, 18439 Stralsund, 2\n", StandardOpenOption.APPEND);
+        provider.reload();
+
+        assertEquals(2, registry.get("person.csv.loads").functionTimer().count());
+        assertEquals(2, registry.get("person.csv.rows").gauge().value());
+        assertEquals(Files.size(file), registry.get("person.csv.bytes").gauge().value());
+        assertEquals(1, registry.get("person.csv.rejected").functionCounter().count());
+        assertTrue(registry.get("person.csv.load.last").timeGauge().value() > 0);
+    }
 }
@@ -0,0 +1,111 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvPersonParserTest {
+
+    private static List<Person> parse(String csv) throws IOException {
+        return CsvPersonParser.parse(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void parse_ShouldMapAllFields() throws IOException {
+        List<Person> result = parse("Müller, Hans, 67742 Lauterecken, 1\n");
+
+        assertEquals(1, result.size());
+        Person person = result.get(0);
+        assertEquals(1L, person.getId());
+        assertEquals("Hans", person.getFirstname());
+        assertEquals("Müller", person.getLastname());
+        assertEquals("67742", person.getZipcode());
+        assertEquals("Lauterecken", person.getCity());
+        assertEquals("blau", person.getColor());
+    }
+
+    @Test
+    void parse_ShouldJoinRecordSplitAcrossLines() throws IOException {
+        List<Person> result = parse("Bart, Bertram, \n12313 Wasweißich, 1 \nGerber, Gerda, 76535 Woanders, 3 ");
+
+        assertEquals(2, result.size());
+        assertEquals("Bertram", result.get(0).getFirstname());
+        assertEquals("12313", result.get(0).getZipcode());
+        assertEquals("Wasweißich", result.get(0).getCity());
+        assertEquals(2L, result.get(1).getId());
+        assertEquals("Woanders", result.get(1).getCity());
+        assertEquals("violett", result.get(1).getColor());
+    }
+
+    @Test
+    void parse_ShouldKeepMultiWordCityAndUnicode() throws IOException {
+        List<Person> result = parse("Andersson, Anders, 32132 Schweden - ☀, 2\r\n");
+
+        assertEquals("Schweden - ☀", result.get(0).getCity());
+        assertEquals("grün", result.get(0).getColor());
+    }
+
+    @Test
+    void parse_ShouldMapUnknownColorCode() throws IOException {
+        List<Person> result = parse("Doe, John, 12345 Berlin, 9\n");
+
+        assertEquals("unknown", result.get(0).getColor());
+    }
+
+    @Test
+    void parse_ShouldDropRecordsWithTooFewFields() throws IOException {
+        List<Person> result = parse("Doe, 12345\nSmith, Jane, 54321 Munich, 4\n");
+
+        assertEquals(1, result.size());
+        assertEquals(1L, result.get(0).getId());
+        assertEquals("Jane", result.get(0).getFirstname());
+    }
+
+    @Test
+    void load_ShouldCountRejectedRecords() throws IOException {
+        String input = "Doe, 12345\nSmith, Jane, 54321 Munich, 4\nMiller, 1\n";
+
+        CsvLoad result = CsvPersonParser.load(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), 1L, 0L);
+
+        assertEquals(1, result.persons().size());
+        assertEquals(2, result.rejectedCount());
+    }
+
+    @Test
+    void load_ShouldStopCommittedOffsetBeforeUnterminatedRecord() throws IOException {
+        String committed = "Müller, Hans, 67742 Lauterecken, 1\n";
+        String input = committed + "Petersen, Peter, 18439 Stralsund, 2";
+
+        CsvLoad result = CsvPersonParser.load(
+                new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8)), 5L, 100L);
+
+        assertEquals(2, result.persons().size());
+        assertEquals(6L, result.persons().get(1).getId());
+        assertEquals(1, result.committedCount());
+        assertEquals(100L + committed.getBytes(StandardCharsets.UTF_8).length, result.committedOffset());
+    }
+
+    @Test
+    void feed_ShouldHandleRecordsSplitAcrossBuffers() {
+        byte[] bytes = "Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2\n"
+                .getBytes(StandardCharsets.UTF_8);
+        List<Person> result = new ArrayList<>();
+        CsvPersonParser parser = new CsvPersonParser(1L, result::add);
+
+        for (int i = 0; i < bytes.length; i += 3) {
+            parser.feed(bytes, i, Math.min(3, bytes.length - i));
+        }
+        parser.finish();
+
+        assertEquals(2, result.size());
+        assertEquals("Müller", result.get(0).getLastname());
+        assertEquals("Stralsund", result.get(1).getCity());
+        assertEquals(3L, parser.nextId());
+    }
+}
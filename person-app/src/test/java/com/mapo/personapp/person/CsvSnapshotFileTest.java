@@ -0,0 +1,79 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvSnapshotFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path writeCsv(String content) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static CsvSnapshot load(Path file) throws IOException {
+        return CsvSnapshot.of(CsvPersonParser.load(Files.newInputStream(file), 1L, 0L),
+                Files.readAttributes(file, BasicFileAttributes.class));
+    }
+
+    @Test
+    void write_ShouldStoreOnlyCompleteRecords() throws IOException {
+        Path file = writeCsv("Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2");
+        Path snapshotFile = tempDir.resolve("persons.bin");
+
+        CsvSnapshotFile.write(snapshotFile, file, load(file));
+
+        CsvLoad stored = CsvSnapshotFile.read(snapshotFile, file);
+        assertEquals(1, stored.persons().size());
+        assertEquals(1, stored.committedCount());
+        assertEquals("Müller, Hans, 67742 Lauterecken, 1\n".getBytes(StandardCharsets.UTF_8).length,
+                stored.committedOffset());
+    }
+
+    @Test
+    void read_ShouldReturnNullWithoutSnapshotFile() throws IOException {
+        Path file = writeCsv("Müller, Hans, 67742 Lauterecken, 1\n");
+
+        assertNull(CsvSnapshotFile.read(tempDir.resolve("missing.bin"), file));
+    }
+
+    @Test
+    void read_ShouldReturnNullForTruncatedCsv() throws IOException {
+        Path file = writeCsv("Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2\n");
+        Path snapshotFile = tempDir.resolve("persons.bin");
+        CsvSnapshotFile.write(snapshotFile, file, load(file));
+        writeCsv("Müller, Hans, 67742 Lauterecken, 1\n");
+
+        assertNull(CsvSnapshotFile.read(snapshotFile, file));
+    }
+
+    @Test
+    void read_ShouldReturnNullForOtherFiles() throws IOException {
+        Path file = writeCsv("Müller, Hans, 67742 Lauterecken, 1\n");
+        Path snapshotFile = tempDir.resolve("persons.bin");
+        Files.writeString(snapshotFile, "Müller, Hans, 67742 Lauterecken, 1\n".repeat(3));
+
+        assertNull(CsvSnapshotFile.read(snapshotFile, file));
+    }
+
+    @Test
+    void checksum_ShouldCoverPrefix() throws IOException {
+        Path file = writeCsv("0123456789");
+        CRC32C expected = new CRC32C();
+        expected.update("01234".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(expected.getValue(), CsvSnapshotFile.checksum(file, 5));
+    }
+}
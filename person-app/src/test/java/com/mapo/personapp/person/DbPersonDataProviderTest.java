@@ -1,15 +1,20 @@
 package com.mapo.personapp.person;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -21,19 +26,35 @@ class DbPersonDataProviderTest {
     @Mock
     private PersonRepository personRepository;
 
-    @InjectMocks
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     private DbPersonDataProvider dbPersonDataProvider;
 
     private Person testPerson1;
     private Person testPerson2;
+    private PersonRow testRow1;
+    private PersonRow testRow2;
 
     @BeforeEach
     void setUp() {
+        dbPersonDataProvider = new DbPersonDataProvider(personRepository, entityManager, transactionTemplate, 2);
+
         testPerson1 = new Person("John", "Doe", "12345", "Berlin", "blau");
         testPerson1.setId(1L);
 
         testPerson2 = new Person("Jane", "Smith", "54321", "Munich", "rot");
         testPerson2.setId(2L);
+
+        testRow1 = new PersonRow(1L, "John", "Doe", "12345", "Berlin", "blau");
+        testRow2 = new PersonRow(2L, "Jane", "Smith", "54321", "Munich", "rot");
+    }
+
+    private static List<Long> ids(List<Person> persons) {
+        return persons.stream().map(Person::getId).toList();
     }
 
     @Test
@@ -45,26 +66,25 @@ class DbPersonDataProviderTest {
 
     @Test
     void all_ShouldReturnAllPersonsFromRepository() {
-        List<Person> expectedPersons = Arrays.asList(testPerson1, testPerson2);
-        when(personRepository.findAll()).thenReturn(expectedPersons);
+        when(personRepository.findRowsByOrderByIdAsc()).thenReturn(List.of(testRow1, testRow2));
 
         List<Person> result = dbPersonDataProvider.all();
 
         assertNotNull(result);
-        assertEquals(2, result.size());
-        assertEquals(expectedPersons, result);
-        verify(personRepository).findAll();
+        assertEquals(List.of(1L, 2L), ids(result));
+        assertEquals("Smith", result.get(1).getLastname());
+        verify(personRepository).findRowsByOrderByIdAsc();
     }
 
     @Test
     void all_ShouldReturnEmptyListWhenNoPersons() {
-        when(personRepository.findAll()).thenReturn(List.of());
+        when(personRepository.findRowsByOrderByIdAsc()).thenReturn(List.of());
 
         List<Person> result = dbPersonDataProvider.all();
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(personRepository).findAll();
+        verify(personRepository).findRowsByOrderByIdAsc();
     }
 
     @Test
@@ -121,42 +141,49 @@ class DbPersonDataProviderTest {
 
     @Test
     void findByColor_ShouldReturnPersonsWithMatchingColor() {
-        List<Person> bluePersons = List.of(testPerson1);
-        when(personRepository.findByColor("blau")).thenReturn(bluePersons);
+        when(personRepository.findRowsByColorCodeAndColorOrderByIdAsc((short) 1, "blau")).thenReturn(List.of(testRow1));
 
         List<Person> result = dbPersonDataProvider.findByColor("blau");
 
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals("blau", result.get(0).getColor());
-        verify(personRepository).findByColor("blau");
+        verify(personRepository).findRowsByColorCodeAndColorOrderByIdAsc((short) 1, "blau");
     }
 
     @Test
     void findByColor_ShouldReturnEmptyListWhenNoMatch() {
-        when(personRepository.findByColor("grün")).thenReturn(List.of());
+        when(personRepository.findRowsByColorCodeAndColorOrderByIdAsc((short) 2, "grün")).thenReturn(List.of());
 
         List<Person> result = dbPersonDataProvider.findByColor("grün");
 
         assertNotNull(result);
         assertTrue(result.isEmpty());
-        verify(personRepository).findByColor("grün");
+        verify(personRepository).findRowsByColorCodeAndColorOrderByIdAsc((short) 2, "grün");
+    }
+
+    @Test
+    void findByColor_ShouldQueryColorsWithoutCodeByName() {
+        PersonRow pinkRow = new PersonRow(4L, "Rosa", "Rot", "33333", "Köln", "pink");
+        when(personRepository.findRowsByColorCodeAndColorOrderByIdAsc((short) 0, "pink")).thenReturn(List.of(pinkRow));
+
+        List<Person> result = dbPersonDataProvider.findByColor("pink");
+
+        assertEquals(List.of(4L), ids(result));
     }
 
     @Test
     void findByColor_ShouldReturnMultiplePersonsWithSameColor() {
-        Person testPerson3 = new Person("Bob", "Brown", "99999", "Frankfurt", "blau");
-        testPerson3.setId(3L);
-        List<Person> bluePersons = Arrays.asList(testPerson1, testPerson3);
+        PersonRow testRow3 = new PersonRow(3L, "Bob", "Brown", "99999", "Frankfurt", "blau");
 
-        when(personRepository.findByColor("blau")).thenReturn(bluePersons);
+        when(personRepository.findRowsByColorCodeAndColorOrderByIdAsc((short) 1, "blau")).thenReturn(List.of(testRow1, testRow3));
 
         List<Person> result = dbPersonDataProvider.findByColor("blau");
 
         assertNotNull(result);
-        assertEquals(2, result.size());
+        assertEquals(List.of(1L, 3L), ids(result));
         assertTrue(result.stream().allMatch(p -> "blau".equals(p.getColor())));
-        verify(personRepository).findByColor("blau");
+        verify(personRepository).findRowsByColorCodeAndColorOrderByIdAsc((short) 1, "blau");
     }
 
     @Test
@@ -192,4 +219,119 @@ class DbPersonDataProviderTest {
         assertEquals("rot", result.getColor());
         verify(personRepository).save(updatedPerson);
     }
+
+    @Test
+    void page_ShouldUseKeysetQueryFromFirstId() {
+        when(personRepository.findRowsByIdGreaterThanOrderByIdAsc(0L, Limit.of(2))).thenReturn(List.of(testRow1, testRow2));
+
+        List<Person> result = dbPersonDataProvider.page(null, 2);
+
+        assertEquals(List.of(1L, 2L), ids(result));
+        verify(personRepository).findRowsByIdGreaterThanOrderByIdAsc(0L, Limit.of(2));
+    }
+
+    @Test
+    void pageByColor_ShouldUseKeysetQueryAfterCursor() {
+        when(personRepository.findRowsByColorCodeAndColorAndIdGreaterThanOrderByIdAsc((short) 4, "rot", 1L, Limit.of(10)))
+                .thenReturn(List.of(testRow2));
+
+        List<Person> result = dbPersonDataProvider.pageByColor("rot", 1L, 10);
+
+        assertEquals(List.of(2L), ids(result));
+        verify(personRepository).findRowsByColorCodeAndColorAndIdGreaterThanOrderByIdAsc((short) 4, "rot", 1L, Limit.of(10));
+    }
+
+    @Test
+    void search_ShouldReturnRowsOfRepositorySearch() {
+        PersonQuery query = new PersonQuery(null, "54", null, "Smith", null);
+        when(personRepository.search(query, 1L, 10)).thenReturn(List.of(testRow2));
+
+        List<Person> result = dbPersonDataProvider.search(query, 1L, 10);
+
+        assertEquals(List.of(2L), ids(result));
+        assertEquals("Munich", result.get(0).getCity());
+    }
+
+    @Test
+    void searchNames_ShouldPushDownToRepositoryWhenSupported() {
+        when(personRepository.supportsNameSearch()).thenReturn(true);
+        when(personRepository.searchNames("smith", NameMatch.FUZZY, 10)).thenReturn(List.of(testRow2));
+
+        List<Person> result = dbPersonDataProvider.searchNames("smith", NameMatch.FUZZY, 10);
+
+        assertEquals(List.of(2L), ids(result));
+        verify(personRepository, never()).streamRowsByOrderByIdAsc();
+    }
+
+    @Test
+    void searchNames_ShouldScanRowsWithoutTrigramSupport() {
+        when(personRepository.supportsNameSearch()).thenReturn(false);
+        when(personRepository.streamRowsByOrderByIdAsc()).thenReturn(Stream.of(testRow1, testRow2));
+
+        List<Person> result = dbPersonDataProvider.searchNames("ja", NameMatch.PREFIX, 10);
+
+        assertEquals(List.of(2L), ids(result));
+        verify(personRepository, never()).searchNames(any(), any(), anyInt());
+    }
+
+    @Test
+    void countBy_ShouldReturnGroupsOfRepositorySortedByKey() {
+        when(personRepository.countPerZipcodeRegion()).thenReturn(List.of(new KeyCount("54", 2L), new KeyCount("12", 1L)));
+
+        Map<String, Long> result = dbPersonDataProvider.countBy(PersonGrouping.ZIPCODE_REGION);
+
+        assertEquals(List.of("12", "54"), List.copyOf(result.keySet()));
+        assertEquals(2L, result.get("54"));
+        verify(personRepository, never()).streamRowsByOrderByIdAsc();
+    }
+
+    @Test
+    void forEach_ShouldStreamRowsInIdOrder() {
+        Stream<PersonRow> rows = Stream.of(testRow1, testRow2);
+        boolean[] closed = {false};
+        when(personRepository.streamRowsByOrderByIdAsc()).thenReturn(rows.onClose(() -> closed[0] = true));
+        List<Person> visited = new ArrayList<>();
+
+        dbPersonDataProvider.forEach(visited::add);
+
+        assertEquals(List.of(1L, 2L), ids(visited));
+        assertTrue(closed[0]);
+        verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void saveAll_ShouldPersistNewAndMergeExistingPersonsInOneTransaction() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<List<Person>>>getArgument(0).doInTransaction(null));
+        Person newPerson = new Person("Alice", "Johnson", "11111", "Hamburg", "gelb");
+        Person mergedPerson = new Person("John", "Doe", "12345", "Berlin", "rot");
+        when(entityManager.merge(testPerson1)).thenReturn(mergedPerson);
+
+        List<Person> result = dbPersonDataProvider.saveAll(List.of(newPerson, testPerson1, testPerson2));
+
+        assertEquals(3, result.size());
+        assertSame(newPerson, result.get(0));
+        assertSame(mergedPerson, result.get(1));
+        verify(entityManager).persist(newPerson);
+        verify(entityManager).merge(testPerson2);
+        verify(transactionTemplate, times(1)).execute(any());
+    }
+
+    @Test
+    void saveAll_ShouldFlushAndClearAfterEachBatch() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<List<Person>>>getArgument(0).doInTransaction(null));
+        List<Person> persons = List.of(
+                new Person("A", "One", "11111", "Hamburg", "gelb"),
+                new Person("B", "Two", "22222", "Hamburg", "gelb"),
+                new Person("C", "Three", "33333", "Hamburg", "gelb"),
+                new Person("D", "Four", "44444", "Hamburg", "gelb"),
+                new Person("E", "Five", "55555", "Hamburg", "gelb"));
+
+        dbPersonDataProvider.saveAll(persons);
+
+        verify(entityManager, times(5)).persist(any(Person.class));
+        verify(entityManager, times(2)).flush();
+        verify(entityManager, times(2)).clear();
+    }
 }
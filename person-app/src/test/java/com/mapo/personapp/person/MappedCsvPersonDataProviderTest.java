@@ -0,0 +1,124 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCsvPersonDataProviderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private MappedCsvPersonDataProvider provider;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, """
+                Müller, Hans, 67742 Lauterecken, 1
+                Petersen, Peter, 18439 Stralsund, 2
+
+                Bart, Bertram,\s
+                12313 Wasweißich, 1\s
+                Klaussen, Klaus, 43246 Hierach, 9""", StandardCharsets.UTF_8);
+        provider = new MappedCsvPersonDataProvider(file);
+    }
+
+    @Test
+    void getProviderType_ShouldReturnCsvMapped() {
+        assertEquals(PersonDataProviderType.CSV_MAPPED, provider.getProviderType());
+    }
+
+    @Test
+    void all_ShouldDecodeEveryRecord() {
+        List<Person> result = provider.all();
+
+        assertEquals(4, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals((long) (i + 1), result.get(i).getId());
+        }
+    }
+
+    @Test
+    void findById_ShouldDecodeMultiLineRecord() {
+        Person result = provider.findById(3L);
+
+        assertEquals("Bart", result.getLastname());
+        assertEquals("Bertram", result.getFirstname());
+        assertEquals("12313", result.getZipcode());
+        assertEquals("Wasweißich", result.getCity());
+        assertEquals("blau", result.getColor());
+    }
+
+    @Test
+    void findById_ShouldDecodeLastRecordWithoutNewline() {
+        Person result = provider.findById(4L);
+
+        assertEquals("Klaussen", result.getLastname());
+        assertEquals("unknown", result.getColor());
+    }
+
+    @Test
+    void findById_ShouldThrowExceptionWhenNotFound() {
+        assertThrows(PersonNotFoundException.class, () -> provider.findById(5L));
+        assertThrows(PersonNotFoundException.class, () -> provider.findById(0L));
+    }
+
+    @Test
+    void findByColor_ShouldReturnOnlyMatchingPersons() {
+        List<Person> result = provider.findByColor("blau");
+
+        assertEquals(2, result.size());
+        assertEquals(1L, result.get(0).getId());
+        assertEquals(3L, result.get(1).getId());
+    }
+
+    @Test
+    void findByColor_ShouldReturnEmptyListWhenNoMatch() {
+        assertTrue(provider.findByColor("nonexistentcolor").isEmpty());
+    }
+
+    @Test
+    void save_ShouldBeUnsupported() {
+        Person newPerson = new Person("Test", "Person", "12345", "TestCity", "blau");
+
+        assertThrows(ReadOnlyProviderException.class, () -> provider.save(newPerson));
+    }
+
+    @Test
+    void page_ShouldReturnPersonsAfterCursor() {
+        List<Person> result = provider.page(1L, 2);
+
+        assertEquals(2, result.size());
+        assertEquals(2L, result.get(0).getId());
+        assertEquals(3L, result.get(1).getId());
+    }
+
+    @Test
+    void pageByColor_ShouldReturnMatchingPersonsAfterCursor() {
+        List<Person> result = provider.pageByColor("blau", 1L, 10);
+
+        assertEquals(1, result.size());
+        assertEquals(3L, result.get(0).getId());
+    }
+
+    @Test
+    void forEach_ShouldScanWholeFile() {
+        List<Person> visited = new ArrayList<>();
+
+        provider.forEach(visited::add);
+
+        assertEquals(4, visited.size());
+        assertEquals("Bertram", visited.get(2).getFirstname());
+        assertEquals(4L, visited.get(3).getId());
+    }
+}
@@ -0,0 +1,106 @@
+package com.mapo.personapp.person;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MeteredPersonDataProviderTest {
+
+    @Mock
+    private PersonDataProvider delegate;
+
+    private MeterRegistry registry;
+    private MeteredPersonDataProvider meteredProvider;
+
+    private Person testPerson;
+
+    @BeforeEach
+    void setUp() {
+        when(delegate.getProviderType()).thenReturn(PersonDataProviderType.CSV);
+        registry = new SimpleMeterRegistry();
+        meteredProvider = new MeteredPersonDataProvider(delegate, registry);
+
+        testPerson = new Person("John", "Doe", "12345", "Berlin", "blau");
+        testPerson.setId(1L);
+    }
+
+    private long calls(String method, String outcome) {
+        return registry.get("person.provider.calls")
+                .tags("provider", "CSV", "method", method, "outcome", outcome)
+                .timer()
+                .count();
+    }
+
+    @Test
+    void findById_ShouldTimeSuccessfulCalls() {
+        when(delegate.findById(1L)).thenReturn(testPerson);
+
+        assertSame(testPerson, meteredProvider.findById(1L));
+        meteredProvider.findById(1L);
+
+        assertEquals(2, calls("findById", "success"));
+    }
+
+    @Test
+    void findById_ShouldTimeMissingPersonsSeparately() {
+        when(delegate.findById(2L)).thenThrow(new PersonNotFoundException(2L));
+
+        assertThrows(PersonNotFoundException.class, () -> meteredProvider.findById(2L));
+
+        assertEquals(1, calls("findById", "not_found"));
+        assertEquals(0, calls("findById", "success"));
+    }
+
+    @Test
+    void save_ShouldTimeFailedCallsAsError() {
+        when(delegate.save(testPerson)).thenThrow(new UnsupportedOperationException());
+
+        assertThrows(UnsupportedOperationException.class, () -> meteredProvider.save(testPerson));
+
+        assertEquals(1, calls("save", "error"));
+    }
+
+    @Test
+    void findByColor_ShouldRecordResultSize() {
+        when(delegate.findByColor("blau")).thenReturn(List.of(testPerson, testPerson, testPerson));
+
+        meteredProvider.findByColor("blau");
+
+        DistributionSummary results = registry.get("person.provider.results").tags("method", "findByColor").summary();
+        assertEquals(1, results.count());
+        assertEquals(3, results.totalAmount());
+        assertEquals(1, calls("findByColor", "success"));
+    }
+
+    @Test
+    void forEach_ShouldPassEveryPersonOn() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<Person>>getArgument(0).accept(testPerson);
+            return null;
+        }).when(delegate).forEach(any());
+        List<Person> seen = new ArrayList<>();
+
+        meteredProvider.forEach(seen::add);
+
+        assertEquals(List.of(testPerson), seen);
+        assertEquals(1, calls("forEach", "success"));
+    }
+
+    @Test
+    void getProviderType_ShouldReturnDelegateType() {
+        assertEquals(PersonDataProviderType.CSV, meteredProvider.getProviderType());
+    }
+}
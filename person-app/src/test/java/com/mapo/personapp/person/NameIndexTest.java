@@ -0,0 +1,73 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameIndexTest {
+
+    private Person[] persons;
+    private NameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        persons = new Person[] {
+                person(1, "Hans", "Müller"),
+                person(2, "Peter", "Petersen"),
+                person(3, "Jonas", "Müller"),
+                person(4, "Müller", "Müller"),
+                person(5, "Anna", "Muller"),
+                person(6, "Jonas", null),
+                person(7, "Hans", "Mueller")
+        };
+        index = NameIndex.of(persons, persons.length);
+    }
+
+    private static Person person(long id, String firstname, String lastname) {
+        Person person = new Person(firstname, lastname, "10115", "Berlin", "blau");
+        person.setId(id);
+        return person;
+    }
+
+    private static List<Long> ids(List<Person> persons) {
+        return persons.stream().map(Person::getId).toList();
+    }
+
+    @Test
+    void prefix_ShouldMergeMatchingNamesInIdOrder() {
+        assertEquals(List.of(1L, 3L, 4L, 5L, 7L), ids(index.prefix("m", 10, persons)));
+        assertEquals(List.of(1L, 3L, 4L), ids(index.prefix("mü", 10, persons)));
+        assertEquals(List.of(2L), ids(index.prefix("pete", 10, persons)));
+        assertEquals(List.of(), ids(index.prefix("x", 10, persons)));
+    }
+
+    @Test
+    void prefix_ShouldStopAtLimit() {
+        assertEquals(List.of(1L, 2L, 3L), ids(index.prefix("", 3, persons)));
+        assertEquals(List.of(3L, 6L), ids(index.prefix("jo", 2, persons)));
+    }
+
+    @Test
+    void fuzzy_ShouldRankBySimilarityThenId() {
+        assertEquals(List.of(5L, 7L, 1L, 3L, 4L), ids(index.fuzzy("muller", 10, persons)));
+        assertEquals(List.of(5L, 7L), ids(index.fuzzy("muller", 2, persons)));
+        assertEquals(List.of(), ids(index.fuzzy("schmidt", 10, persons)));
+    }
+
+    @Test
+    void fuzzy_ShouldAgreeWithScan() {
+        for (String text : List.of("muller", "müler", "jonas", "peterson", "hans", "mu")) {
+            List<Long> scanned = ids(NameSearch.scan(List.of(persons)::forEach, text, NameMatch.FUZZY, 10));
+            assertEquals(scanned, ids(index.fuzzy(text, 10, persons)), text);
+        }
+    }
+
+    @Test
+    void size_ShouldBeNumberOfCoveredPersons() {
+        assertEquals(3, NameIndex.of(persons, 3).size());
+        assertEquals(List.of(1L, 3L), ids(NameIndex.of(persons, 3).prefix("m", 10, persons)));
+    }
+}
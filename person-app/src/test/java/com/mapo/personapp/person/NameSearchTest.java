@@ -0,0 +1,87 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameSearchTest {
+
+    private static long trigram(String chars) {
+        return (long) chars.charAt(0) << 32 | (long) chars.charAt(1) << 16 | chars.charAt(2);
+    }
+
+    private static Person person(long id, String firstname, String lastname) {
+        Person person = new Person(firstname, lastname, "10115", "Berlin", "blau");
+        person.setId(id);
+        return person;
+    }
+
+    private static List<Long> scan(List<Person> persons, String text, NameMatch match, int limit) {
+        Consumer<Consumer<Person>> source = persons::forEach;
+        return NameSearch.scan(source, text, match, limit).stream().map(Person::getId).toList();
+    }
+
+    @Test
+    void trigrams_ShouldPadEachWordLikePgTrgm() {
+        long[] expected = {trigram("  c"), trigram(" ca"), trigram("at "), trigram("cat")};
+        Arrays.sort(expected);
+
+        assertArrayEquals(expected, NameSearch.trigrams("cat"));
+        assertEquals(13, NameSearch.trigrams("van der-berg").length);
+        assertEquals(0, NameSearch.trigrams(" - ").length);
+    }
+
+    @Test
+    void similarity_ShouldMatchPgTrgm() {
+        // select similarity('word', 'two words') gives 0.36363637
+        assertEquals(4.0 / 11, NameSearch.similarity(NameSearch.trigrams("word"), NameSearch.trigrams("two words")), 1e-9);
+        assertEquals(1.0, NameSearch.similarity(NameSearch.trigrams("müller"), NameSearch.trigrams("müller")));
+        assertEquals(0.0, NameSearch.similarity(NameSearch.trigrams(""), NameSearch.trigrams("")));
+    }
+
+    @Test
+    void scan_ShouldMatchPrefixOfEitherNameInIdOrder() {
+        List<Person> persons = List.of(person(1, "Hans", "Müller"), person(2, "Peter", "Petersen"),
+                person(3, "Müller", "Jonas"), person(4, "Milly", "Millenium"));
+
+        assertEquals(List.of(1L, 3L), scan(persons, "MÜL", NameMatch.PREFIX, 10));
+        assertEquals(List.of(1L), scan(persons, "mü", NameMatch.PREFIX, 1));
+        assertEquals(List.of(1L, 2L, 3L, 4L), scan(persons, "", NameMatch.PREFIX, 10));
+    }
+
+    @Test
+    void scan_ShouldRankFuzzyMatchesBySimilarity() {
+        List<Person> persons = List.of(person(1, "Hans", "Mueller"), person(2, "Peter", "Petersen"),
+                person(3, "Jonas", "Müller"), person(4, "Anna", "Muller"));
+
+        assertEquals(List.of(4L, 1L, 3L), scan(persons, "Muller", NameMatch.FUZZY, 10));
+        assertEquals(List.of(4L), scan(persons, "Muller", NameMatch.FUZZY, 1));
+        assertEquals(List.of(), scan(persons, "Schmidt", NameMatch.FUZZY, 10));
+    }
+
+    @Test
+    void scan_ShouldKeepTheBestFuzzyMatchesWhenLimited() {
+        List<Person> persons = List.of(person(1, "Hans", "Mueller"), person(2, "Jonas", "Mueller"),
+                person(3, "Anna", "Muller"), person(4, "Paul", "Mueller"));
+
+        assertEquals(List.of(3L, 1L), scan(persons, "Muller", NameMatch.FUZZY, 2));
+        assertEquals(List.of(3L, 1L, 2L, 4L), scan(persons, "Muller", NameMatch.FUZZY, 10));
+        assertEquals(List.of(), scan(persons, "Muller", NameMatch.FUZZY, 0));
+    }
+
+    @Test
+    void isComplete_ShouldOnlyStopPrefixScansWithEnoughMatches() {
+        NameSearch.Scan prefix = new NameSearch.Scan("mü", NameMatch.PREFIX, 1);
+        NameSearch.Scan fuzzy = new NameSearch.Scan("Muller", NameMatch.FUZZY, 1);
+
+        prefix.accept(person(1, "Hans", "Müller"));
+        fuzzy.accept(person(1, "Hans", "Muller"));
+
+        assertTrue(prefix.isComplete());
+        assertFalse(fuzzy.isComplete());
+    }
+}
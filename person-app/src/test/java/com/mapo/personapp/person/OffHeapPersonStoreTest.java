@@ -0,0 +1,126 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapPersonStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static Person person(long id, String firstname, String lastname, String zipcode, String city, String color) {
+        Person person = new Person(firstname, lastname, zipcode, city, color);
+        person.setId(id);
+        return person;
+    }
+
+    private static OffHeapPersonStore.Builder sampleBuilder() {
+        OffHeapPersonStore.Builder builder = new OffHeapPersonStore.Builder();
+        builder.add(person(1L, "Hans", "Müller", "67742", "Lauterecken", "blau"));
+        builder.add(person(2L, "Peter", "Petersen", "18439", "Stralsund", "grün"));
+        builder.add(person(5L, "Anders", "Andersson", "32132", "Schweden - ☀", "blau"));
+        builder.add(person(7L, null, null, null, null, "lila"));
+        return builder;
+    }
+
+    private static void assertSample(OffHeapPersonStore store) {
+        assertEquals(4, store.size());
+        Person anders = store.person(2);
+        assertEquals(5L, anders.getId());
+        assertEquals("Anders", anders.getFirstname());
+        assertEquals("Andersson", anders.getLastname());
+        assertEquals("32132", anders.getZipcode());
+        assertEquals("Schweden - ☀", anders.getCity());
+        assertEquals("blau", anders.getColor());
+        Person empty = store.person(3);
+        assertNull(empty.getFirstname());
+        assertNull(empty.getZipcode());
+        assertEquals(CsvPersonParser.UNKNOWN_COLOR, empty.getColor());
+    }
+
+    @Test
+    void build_ShouldKeepPersonsOffHeap() {
+        try (OffHeapPersonStore.Builder builder = sampleBuilder(); OffHeapPersonStore store = builder.build()) {
+            assertSample(store);
+        }
+    }
+
+    @Test
+    void open_ShouldMapWrittenStore() throws IOException {
+        Path file = tempDir.resolve("persons.bin");
+        try (OffHeapPersonStore.Builder builder = sampleBuilder()) {
+            builder.write(file);
+        }
+
+        try (OffHeapPersonStore store = OffHeapPersonStore.open(file)) {
+            assertSample(store);
+        }
+        assertFalse(Files.exists(tempDir.resolve("persons.bin.tmp")));
+    }
+
+    @Test
+    void rowOf_ShouldSearchIds() {
+        try (OffHeapPersonStore.Builder builder = sampleBuilder(); OffHeapPersonStore store = builder.build()) {
+            assertEquals(2, store.rowOf(5L));
+            assertEquals(-1, store.rowOf(4L));
+            assertEquals(2, store.rowAfter(2L));
+            assertEquals(3, store.rowAfter(5L));
+            assertEquals(4, store.rowAfter(7L));
+        }
+    }
+
+    @Test
+    void colorRow_ShouldListRowsOfEachColor() {
+        try (OffHeapPersonStore.Builder builder = sampleBuilder(); OffHeapPersonStore store = builder.build()) {
+            int blau = CsvPersonParser.colorCode("blau");
+
+            assertEquals(2, store.colorCount(blau));
+            assertEquals(0, store.colorRow(blau, 0));
+            assertEquals(2, store.colorRow(blau, 1));
+            assertEquals(1, store.colorPosition(blau, 1));
+            assertEquals(1, store.colorCount(0));
+        }
+    }
+
+    @Test
+    void build_ShouldGrowStagingSegments() {
+        try (OffHeapPersonStore.Builder builder = new OffHeapPersonStore.Builder()) {
+            for (int i = 1; i <= 5000; i++) {
+                builder.add(person(i, "First" + i, "Last" + i, "12345", "City", "gelb"));
+            }
+            try (OffHeapPersonStore store = builder.build()) {
+                assertEquals(5000, store.size());
+                assertEquals("First4321", store.person(4320).getFirstname());
+                assertEquals(5000, store.colorCount(CsvPersonParser.colorCode("gelb")));
+            }
+        }
+    }
+
+    @Test
+    void open_ShouldRejectOtherFiles() throws IOException {
+        Path file = tempDir.resolve("persons.bin");
+        try (OffHeapPersonStore.Builder builder = sampleBuilder()) {
+            builder.write(file);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IllegalArgumentException.class, () -> OffHeapPersonStore.open(file));
+
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\n".repeat(4));
+        assertThrows(IllegalArgumentException.class, () -> OffHeapPersonStore.open(file));
+    }
+
+    @Test
+    void add_ShouldRejectIdsOutOfOrder() {
+        try (OffHeapPersonStore.Builder builder = sampleBuilder()) {
+            assertThrows(IllegalArgumentException.class, () -> builder.add(person(3L, "A", "B", "12345", "C", "blau")));
+        }
+    }
+}
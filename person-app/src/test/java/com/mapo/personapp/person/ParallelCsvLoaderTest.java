@@ -0,0 +1,128 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelCsvLoaderTest {
+
+    private static final String[] LINES = {
+            "Müller, Hans, 67742 Lauterecken, 1",
+            "Bart, Bertram, ",
+            "12313 Wasweißich, 1 ",
+            "",
+            "Andersson, Anders, 32132 Schweden - ☀, 2",
+            "Doe, 12345",
+            "Gerber, Gerda, 76535 Woanders, 3 ",
+            "Fujitsu, Tastatur, 42342",
+            "Japan, 6",
+    };
+
+    @TempDir
+    Path tempDir;
+
+    private Path writeFile(int lines) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            csv.append(LINES[i % LINES.length]).append(i % 5 == 0 ? "\r\n" : "\n");
+        }
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 8})
+    void load_ShouldMatchSequentialParse(int parallelism) throws IOException {
+        Path file = writeFile(5000);
+        List<Person> expected;
+        try (InputStream in = Files.newInputStream(file)) {
+            expected = CsvPersonParser.parse(in);
+        }
+
+        CsvLoad load = ParallelCsvLoader.load(file, parallelism, 512);
+        List<Person> result = load.persons();
+
+        assertEquals(expected.size(), result.size());
+        assertEquals(expected.size(), load.committedCount());
+        assertEquals(Files.size(file), load.committedOffset());
+        for (int i = 0; i < expected.size(); i++) {
+            Person want = expected.get(i);
+            Person got = result.get(i);
+            assertEquals(want.getId(), got.getId());
+            assertEquals(want.getFirstname(), got.getFirstname());
+            assertEquals(want.getLastname(), got.getLastname());
+            assertEquals(want.getZipcode(), got.getZipcode());
+            assertEquals(want.getCity(), got.getCity());
+            assertEquals(want.getColor(), got.getColor());
+        }
+    }
+
+    @Test
+    void load_ShouldMatchSequentialLoadWithoutTrailingNewline() throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            csv.append("Müller, Hans, 67742 Lauterecken, 1\n");
+        }
+        // longer than a chunk, so the boundaries after its start all fall on the end of the file
+        csv.append("Petersen, Peter, 18439 ").append("Stralsund".repeat(50)).append(", 2");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+        CsvLoad expected;
+        try (InputStream in = Files.newInputStream(file)) {
+            expected = CsvPersonParser.load(in, 1L, 0L);
+        }
+
+        CsvLoad load = ParallelCsvLoader.load(file, 8, 64);
+
+        assertEquals(201, load.persons().size());
+        assertEquals(expected.committedCount(), load.committedCount());
+        assertEquals(expected.committedOffset(), load.committedOffset());
+        assertTrue(load.committedOffset() < Files.size(file));
+    }
+
+    @Test
+    void load_ShouldHandleEmptyFile() throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "");
+
+        CsvLoad load = ParallelCsvLoader.load(file, 4, 64);
+
+        assertTrue(load.persons().isEmpty());
+        assertEquals(0, load.committedOffset());
+    }
+
+    @Test
+    void nextRecordBoundary_ShouldSkipContinuationLines() throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "Bart, Bertram, \n12313 Wasweißich, 1 \nGerber, Gerda, 76535 Woanders, 3\n",
+                StandardCharsets.UTF_8);
+
+        try (FileChannel channel = FileChannel.open(file)) {
+            long boundary = ParallelCsvLoader.nextRecordBoundary(channel, 3);
+
+            assertEquals("Bart, Bertram, \n12313 Wasweißich, 1 \n".getBytes(StandardCharsets.UTF_8).length, boundary);
+        }
+    }
+
+    @Test
+    void nextRecordBoundary_ShouldReturnFileSizeWithoutBoundary() throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "Bart, Bertram, \n12313 Wasweißich, 1", StandardCharsets.UTF_8);
+
+        try (FileChannel channel = FileChannel.open(file)) {
+            assertEquals(Files.size(file), ParallelCsvLoader.nextRecordBoundary(channel, 1));
+        }
+    }
+}
@@ -3,20 +3,29 @@ package com.mapo.personapp.person;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -26,7 +35,6 @@ class PersonControllerTest {
     @Mock
     private PersonService personService;
 
-    @InjectMocks
     private PersonController personController;
 
     private MockMvc mockMvc;
@@ -36,7 +44,9 @@ class PersonControllerTest {
 
     @BeforeEach
     void setUp() {
-        mockMvc = MockMvcBuilders.standaloneSetup(personController).build();
+        JsonMapper objectMapper = JsonMapper.builder().build();
+        personController = new PersonController(personService, new PersonResponseCache(personService, objectMapper, 1 << 20), objectMapper);
+        mockMvc = MockMvcBuilders.standaloneSetup(personController).setControllerAdvice(new PersonExceptionHandler()).build();
 
         testPerson1 = new Person("John", "Doe", "12345", "Berlin", "blau");
         testPerson1.setId(1L);
@@ -134,4 +144,179 @@ class PersonControllerTest {
 
         verify(personService).save(any(Person.class));
     }
+
+    @Test
+    void page_ShouldReturnItemsAndNextCursor() throws Exception {
+        when(personService.page(null, 2)).thenReturn(new PersonPage(List.of(testPerson1, testPerson2), 2L));
+
+        mockMvc.perform(get("/persons").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.nextCursor").value(2));
+
+        verify(personService).page(null, 2);
+    }
+
+    @Test
+    void pageByColor_ShouldPassCursor() throws Exception {
+        when(personService.pageByColor("blau", 1L, 10)).thenReturn(new PersonPage(List.of(), null));
+
+        mockMvc.perform(get("/persons/color/blau").param("limit", "10").param("cursor", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(0))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        verify(personService).pageByColor("blau", 1L, 10);
+    }
+
+    @Test
+    void search_ShouldBindCriteriaFromParameters() throws Exception {
+        when(personService.search(new PersonQuery(null, "12", "Berlin", null, null), null, 100))
+                .thenReturn(PersonPage.of(List.of(testPerson1), 100));
+
+        mockMvc.perform(get("/persons/search").param("zipcodePrefix", "12").param("city", "Berlin").param("lastname", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void search_ShouldPassLimitAndCursor() throws Exception {
+        when(personService.search(new PersonQuery(null, null, "Berlin", null, null), 1L, 1))
+                .thenReturn(PersonPage.of(List.of(testPerson2), 1));
+
+        mockMvc.perform(get("/persons/search").param("city", "Berlin").param("limit", "1").param("cursor", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].id").value(2))
+                .andExpect(jsonPath("$.nextCursor").value(2));
+    }
+
+    @Test
+    void searchNames_ShouldDefaultToPrefixMatch() throws Exception {
+        when(personService.searchNames("Mü", NameMatch.PREFIX, 10)).thenReturn(List.of(testPerson1));
+
+        mockMvc.perform(get("/persons/names").param("q", "Mü"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(1));
+    }
+
+    @Test
+    void searchNames_ShouldBindMatchAndLimit() throws Exception {
+        when(personService.searchNames("Mueller", NameMatch.FUZZY, 5)).thenReturn(List.of(testPerson2));
+
+        mockMvc.perform(get("/persons/names").param("q", "Mueller").param("match", "FUZZY").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(2));
+    }
+
+    @Test
+    void searchNames_ShouldRequireText() throws Exception {
+        mockMvc.perform(get("/persons/names"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void countByColor_ShouldReturnCountsAsObject() throws Exception {
+        when(personService.countBy(PersonGrouping.COLOR)).thenReturn(Map.of("blau", 2L));
+
+        mockMvc.perform(get("/persons/counts/color"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.blau").value(2));
+    }
+
+    @Test
+    void countByZipcodeRegion_ShouldUseRegionGrouping() throws Exception {
+        when(personService.countBy(PersonGrouping.ZIPCODE_REGION)).thenReturn(Map.of("10", 3L));
+
+        mockMvc.perform(get("/persons/counts/zipcode-region"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$['10']").value(3));
+    }
+
+    @Test
+    void all_ShouldAnswerNotModifiedWhileVersionIsUnchanged() throws Exception {
+        when(personService.version()).thenReturn(OptionalLong.of(3));
+        when(personService.all()).thenReturn(List.of(testPerson1));
+
+        String etag = mockMvc.perform(get("/persons"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get("/persons").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        verify(personService, times(1)).all();
+    }
+
+    @Test
+    void byColor_ShouldCacheEachColorSeparately() throws Exception {
+        when(personService.version()).thenReturn(OptionalLong.of(3));
+        when(personService.findByColor("blau")).thenReturn(List.of(testPerson1));
+        when(personService.findByColor("rot")).thenReturn(List.of(testPerson2));
+
+        mockMvc.perform(get("/persons/color/blau")).andExpect(jsonPath("$[0].id").value(1));
+        mockMvc.perform(get("/persons/color/rot")).andExpect(jsonPath("$[0].id").value(2));
+        mockMvc.perform(get("/persons/color/blau")).andExpect(jsonPath("$[0].id").value(1));
+
+        verify(personService, times(1)).findByColor("blau");
+    }
+
+    @Test
+    void export_ShouldStreamOnePersonPerLine() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<Person> action = invocation.getArgument(0);
+            action.accept(testPerson1);
+            action.accept(testPerson2);
+            return null;
+        }).when(personService).forEach(any());
+
+        MvcResult result = mockMvc.perform(get("/persons").accept(PersonController.APPLICATION_NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(PersonController.APPLICATION_NDJSON_VALUE))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"firstname\":\"John\""));
+        assertTrue(lines[1].contains("\"id\":2"));
+        assertTrue(body.endsWith("\n"));
+    }
+
+    @Test
+    void newEmployees_ShouldSaveAllAndReturnPersons() throws Exception {
+        when(personService.saveAll(any())).thenReturn(List.of(testPerson1, testPerson2));
+
+        mockMvc.perform(post("/persons/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"firstname\":\"John\",\"lastname\":\"Doe\",\"zipcode\":\"12345\",\"city\":\"Berlin\",\"color\":\"blau\"},"
+                                + "{\"firstname\":\"Jane\",\"lastname\":\"Smith\",\"zipcode\":\"54321\",\"city\":\"Munich\",\"color\":\"rot\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].id").value(2));
+
+        verify(personService).saveAll(argThat(persons -> persons.size() == 2
+                && "Jane".equals(persons.get(1).getFirstname())));
+    }
+
+    @Test
+    void newEmployee_ShouldAnswerMethodNotAllowedForReadOnlyProvider() throws Exception {
+        when(personService.save(any(Person.class))).thenThrow(new ReadOnlyProviderException("The CSV provider is read-only"));
+
+        mockMvc.perform(post("/persons")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstname\":\"Alice\",\"lastname\":\"Johnson\",\"zipcode\":\"11111\",\"city\":\"Hamburg\",\"color\":\"gelb\"}"))
+                .andExpect(status().isMethodNotAllowed())
+                .andExpect(header().string("Allow", "GET,HEAD"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.detail").value("The CSV provider is read-only"));
+    }
 }
@@ -0,0 +1,57 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersonCountsTest {
+
+    private static Person person(String zipcode, String city, String color) {
+        return new Person("Hans", "Müller", zipcode, city, color);
+    }
+
+    @Test
+    void get_ShouldCountPersonsPerKeySortedByKey() {
+        PersonCounts counts = PersonCounts.of(List.of(
+                person("10115", "Berlin", "blau"),
+                person("80331", "München", "rot"),
+                person("10117", "Berlin", "blau"),
+                person("1", null, null)));
+
+        assertEquals(List.of("blau", "rot"), List.copyOf(counts.get(PersonGrouping.COLOR).keySet()));
+        assertEquals(Map.of("blau", 2L, "rot", 1L), counts.get(PersonGrouping.COLOR));
+        assertEquals(Map.of("Berlin", 2L, "München", 1L), counts.get(PersonGrouping.CITY));
+        assertEquals(Map.of("1", 1L, "10", 2L, "80", 1L), counts.get(PersonGrouping.ZIPCODE_REGION));
+    }
+
+    @Test
+    void append_ShouldLeaveExtendedCountsUnchanged() {
+        PersonCounts counts = PersonCounts.of(List.of(person("10115", "Berlin", "blau")));
+        assertEquals(Map.of("blau", 1L), counts.get(PersonGrouping.COLOR));
+
+        PersonCounts appended = counts.append(List.of(person("80331", "München", "rot"), person("10117", "Berlin", "blau")));
+
+        assertEquals(Map.of("blau", 2L, "rot", 1L), appended.get(PersonGrouping.COLOR));
+        assertEquals(Map.of("blau", 1L), counts.get(PersonGrouping.COLOR));
+        assertEquals(Map.of("Berlin", 1L), counts.get(PersonGrouping.CITY));
+    }
+
+    @Test
+    void append_ShouldGrowPastInitialCapacity() {
+        List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            persons.add(person(String.format("%05d", i * 1000), "City " + i, "blau"));
+        }
+
+        PersonCounts counts = PersonCounts.of(persons.subList(0, 10)).append(persons.subList(10, 100));
+
+        assertEquals(100, counts.get(PersonGrouping.CITY).size());
+        assertEquals(Map.of("blau", 100L), counts.get(PersonGrouping.COLOR));
+        assertEquals(100, counts.get(PersonGrouping.ZIPCODE_REGION).size());
+        assertEquals(1L, counts.get(PersonGrouping.ZIPCODE_REGION).get("99"));
+    }
+}
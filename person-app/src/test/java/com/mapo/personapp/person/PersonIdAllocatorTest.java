@@ -0,0 +1,55 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PersonIdAllocatorTest {
+
+    private final PersonIdAllocator allocator = new PersonIdAllocator();
+
+    @Test
+    void next_ShouldHandOutTheBlockBelowEachSequenceValue() throws SQLException {
+        AtomicInteger calls = new AtomicInteger();
+        long[] values = {1, 1 + Person.ID_ALLOCATION_SIZE};
+        PersonIdAllocator.Sequence sequence = () -> values[calls.getAndIncrement()];
+
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i <= Person.ID_ALLOCATION_SIZE; i++) {
+            ids.add(allocator.next(sequence));
+        }
+
+        assertEquals(LongStream.rangeClosed(1, 1 + Person.ID_ALLOCATION_SIZE).boxed().toList(), ids);
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void take_ShouldOnlyReturnReservedIds() {
+        assertEquals(List.of(), allocator.take(3));
+
+        allocator.add(2 * Person.ID_ALLOCATION_SIZE);
+
+        assertEquals(List.of(Person.ID_ALLOCATION_SIZE + 1L, Person.ID_ALLOCATION_SIZE + 2L), allocator.take(2));
+        assertEquals(Person.ID_ALLOCATION_SIZE - 2, allocator.take(Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    void valuesFor_ShouldRoundUpToWholeBlocks() {
+        assertEquals(0, PersonIdAllocator.valuesFor(0));
+        assertEquals(1, PersonIdAllocator.valuesFor(Person.ID_ALLOCATION_SIZE));
+        assertEquals(2, PersonIdAllocator.valuesFor(Person.ID_ALLOCATION_SIZE + 1));
+    }
+
+    @Test
+    void valueAfter_ShouldStartTheBlockAfterTheLastId() {
+        allocator.add(PersonIdAllocator.valueAfter(12));
+
+        assertEquals(List.of(13L), allocator.take(1));
+    }
+}
@@ -0,0 +1,109 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// runs the Flyway migrations on an embedded H2 database
+@DataJpaTest(properties = "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect")
+class PersonRepositoryTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    private List<Long> ids;
+
+    @BeforeEach
+    void setUp() {
+        ids = personRepository.saveAll(List.of(
+                new Person("Hans", "Müller", "10115", "Berlin", "blau"),
+                new Person("Jana", "Schmidt", "10117", "Berlin", "rot"),
+                new Person("Jonas", "Müller", "80331", "München", "blau"),
+                new Person("Anna", "Müller", "10115", "Berlin", "pink"),
+                new Person("Paul", "Weber", "1011", "Potsdam", "blau"))).stream().map(Person::getId).toList();
+        personRepository.flush();
+    }
+
+    private static List<Long> ids(List<PersonRow> rows) {
+        return rows.stream().map(PersonRow::id).toList();
+    }
+
+    private List<Long> ids(int... positions) {
+        return Arrays.stream(positions).mapToObj(ids::get).toList();
+    }
+
+    @Test
+    void supportsNameSearch_ShouldBeFalseWithoutPgTrgm() {
+        assertFalse(personRepository.supportsNameSearch());
+        assertThrows(UnsupportedOperationException.class, () -> personRepository.searchNames("mü", NameMatch.PREFIX, 10));
+    }
+
+    @Test
+    void countPer_ShouldGroupInDatabase() {
+        personRepository.save(new Person("Ole", "Berg", null, null, null));
+
+        assertEquals(Set.of(new KeyCount("blau", 3L), new KeyCount("rot", 1L), new KeyCount("pink", 1L)),
+                Set.copyOf(personRepository.countPerColor()));
+        assertEquals(Set.of(new KeyCount("Berlin", 3L), new KeyCount("München", 1L), new KeyCount("Potsdam", 1L)),
+                Set.copyOf(personRepository.countPerCity()));
+        assertEquals(Set.of(new KeyCount("10", 4L), new KeyCount("80", 1L)),
+                Set.copyOf(personRepository.countPerZipcodeRegion()));
+    }
+
+    @Test
+    void findRowsByColorCodeAndColor_ShouldUseCodeWrittenOnPersist() {
+        assertEquals(ids(0, 2, 4), ids(personRepository.findRowsByColorCodeAndColorOrderByIdAsc((short) 1, "blau")));
+        assertEquals(ids(3), ids(personRepository.findRowsByColorCodeAndColorOrderByIdAsc((short) 0, "pink")));
+    }
+
+    @Test
+    void findRowsByColorCodeAndColorAndIdGreaterThan_ShouldPageInIdOrder() {
+        List<PersonRow> page = personRepository.findRowsByColorCodeAndColorAndIdGreaterThanOrderByIdAsc(
+                (short) 1, "blau", ids.get(0), Limit.of(1));
+
+        assertEquals(ids(2), ids(page));
+        assertEquals("Jonas", page.get(0).firstname());
+    }
+
+    @Test
+    void search_ShouldCombineCriteria() {
+        assertEquals(ids(0, 3), ids(personRepository.search(new PersonQuery("10115", null, "Berlin", "Müller", null), 0L, 10)));
+        assertEquals(ids(0), ids(personRepository.search(new PersonQuery(null, null, "Berlin", "Müller", "blau"), 0L, 10)));
+        assertEquals(List.of(), ids(personRepository.search(new PersonQuery(null, null, "Hamburg", null, null), 0L, 10)));
+    }
+
+    @Test
+    void search_ShouldMatchZipcodePrefix() {
+        assertEquals(ids(0, 1, 3, 4), ids(personRepository.search(new PersonQuery(null, "101", null, null, null), 0L, 10)));
+        assertEquals(ids(0, 1, 3), ids(personRepository.search(new PersonQuery(null, "1011", "Berlin", null, null), 0L, 10)));
+        assertEquals(ids(2), ids(personRepository.search(new PersonQuery(null, "8", null, null, null), 0L, 10)));
+    }
+
+    @Test
+    void search_ShouldReturnEveryoneForEmptyQuery() {
+        assertEquals(ids, ids(personRepository.search(new PersonQuery(null, null, null, null, null), 0L, 10)));
+    }
+
+    @Test
+    void search_ShouldPageAfterTheCursor() {
+        PersonQuery everyone = new PersonQuery(null, null, null, null, null);
+
+        assertEquals(ids(0, 1), ids(personRepository.search(everyone, 0L, 2)));
+        assertEquals(ids(2, 3), ids(personRepository.search(everyone, ids.get(1), 2)));
+    }
+
+    @Test
+    void prefixEnd_ShouldIncrementLastCharacter() {
+        assertEquals("11", PersonSearchRepositoryImpl.prefixEnd("10"));
+        assertEquals("b", PersonSearchRepositoryImpl.prefixEnd("a" + Character.MAX_VALUE));
+        assertNull(PersonSearchRepositoryImpl.prefixEnd(String.valueOf(Character.MAX_VALUE)));
+    }
+}
@@ -0,0 +1,174 @@
+package com.mapo.personapp.person;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PersonResponseCacheTest {
+
+    @Mock
+    private PersonService personService;
+
+    private PersonResponseCache responseCache;
+    private AtomicInteger loads;
+    private Supplier<List<Person>> persons;
+
+    @BeforeEach
+    void setUp() {
+        responseCache = new PersonResponseCache(personService, JsonMapper.builder().build(), 1 << 20);
+        loads = new AtomicInteger();
+        Person person = new Person("John", "Doe", "12345", "Berlin", "blau");
+        person.setId(1L);
+        persons = () -> {
+            loads.incrementAndGet();
+            return List.of(person);
+        };
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch, String acceptEncoding) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/persons");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        if (acceptEncoding != null) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+
+    private static String json(ResponseEntity<?> response) {
+        return new String((byte[]) response.getBody(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void respond_ShouldServeTheListUnserializedWithoutVersion() {
+        when(personService.version()).thenReturn(OptionalLong.empty());
+
+        ResponseEntity<?> response = responseCache.respond("all", persons, request(null, null));
+
+        assertNull(response.getHeaders().getETag());
+        assertEquals(persons.get(), response.getBody());
+    }
+
+    @Test
+    void respond_ShouldReuseBodyOfSameVersion() {
+        when(personService.version()).thenReturn(OptionalLong.of(7));
+
+        ResponseEntity<?> first = responseCache.respond("all", persons, request(null, null));
+        ResponseEntity<?> second = responseCache.respond("all", persons, request(null, null));
+
+        assertEquals(1, loads.get());
+        assertSame(first.getBody(), second.getBody());
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+        assertTrue(first.getHeaders().getETag().startsWith("\""));
+    }
+
+    @Test
+    void respond_ShouldAnswerNotModifiedForMatchingTag() {
+        when(personService.version()).thenReturn(OptionalLong.of(7));
+        String etag = responseCache.respond("all", persons, request(null, null)).getHeaders().getETag();
+        ServletWebRequest conditional = request(etag, null);
+
+        assertNull(responseCache.respond("all", persons, conditional));
+        assertEquals(304, ((MockHttpServletResponse) conditional.getResponse()).getStatus());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void respond_ShouldRebuildAfterVersionChange() {
+        when(personService.version()).thenReturn(OptionalLong.of(7), OptionalLong.of(7), OptionalLong.of(8));
+        String etag = responseCache.respond("all", persons, request(null, null)).getHeaders().getETag();
+
+        ResponseEntity<?> changed = responseCache.respond("all", persons, request(etag, null));
+
+        assertEquals(200, changed.getStatusCode().value());
+        assertNotEquals(etag, changed.getHeaders().getETag());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void respond_ShouldNotTagListLoadedWhileVersionChanged() {
+        when(personService.version()).thenReturn(OptionalLong.of(7), OptionalLong.of(8));
+
+        ResponseEntity<?> response = responseCache.respond("all", persons, request(null, null));
+
+        assertNull(response.getHeaders().getETag());
+        assertTrue(json(response).contains("\"id\":1"));
+    }
+
+    @Test
+    void respond_ShouldServeReloadedCsvThroughCachingProvider(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("persons.csv");
+        Files.writeString(file, "Müller, Hans, 67742 Lauterecken, 1\n");
+        CsvPersonDataProvider provider = new CsvPersonDataProvider(new FileSystemResource(file));
+        PersonService service = new PersonService(new PersonDataProviderFactory(List.of(provider),
+                new PersonCacheProperties(true, 100, Duration.ofMinutes(1)),
+                new StaticListableBeanFactory().getBeanProvider(MeterRegistry.class)), PersonDataProviderType.CSV);
+        PersonResponseCache cache = new PersonResponseCache(service, JsonMapper.builder().build(), 1 << 20);
+        String etag = cache.respond("color:blau", () -> service.findByColor("blau"), request(null, null))
+                .getHeaders().getETag();
+
+        Files.writeString(file, "Petersen, Peter, 18439 Stralsund, 1\n", StandardOpenOption.APPEND);
+        provider.reload();
+        ResponseEntity<?> response = cache.respond("color:blau", () -> service.findByColor("blau"), request(etag, null));
+
+        assertEquals(200, response.getStatusCode().value());
+        assertNotNull(response.getHeaders().getETag());
+        assertNotEquals(etag, response.getHeaders().getETag());
+        assertTrue(json(response).contains("\"lastname\":\"Petersen\""));
+    }
+
+    @Test
+    void respond_ShouldServePrecompressedGzipWithItsOwnTag() throws IOException {
+        when(personService.version()).thenReturn(OptionalLong.of(7));
+        ResponseEntity<?> plain = responseCache.respond("all", persons, request(null, null));
+
+        ResponseEntity<?> gzip = responseCache.respond("all", persons, request(null, "br, gzip;q=0.8"));
+
+        assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, gzip.getHeaders().getFirst(HttpHeaders.VARY));
+        assertNotEquals(plain.getHeaders().getETag(), gzip.getHeaders().getETag());
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream((byte[]) gzip.getBody()))) {
+            assertArrayEquals((byte[]) plain.getBody(), in.readAllBytes());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void acceptsGzip_ShouldHonourQualityAndWildcard() {
+        assertTrue(PersonResponseCache.acceptsGzip("gzip, deflate, br"));
+        assertTrue(PersonResponseCache.acceptsGzip("*"));
+        assertFalse(PersonResponseCache.acceptsGzip("gzip;q=0, *"));
+        assertFalse(PersonResponseCache.acceptsGzip("identity"));
+        assertFalse(PersonResponseCache.acceptsGzip(null));
+    }
+}
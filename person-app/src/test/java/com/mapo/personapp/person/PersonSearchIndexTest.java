@@ -0,0 +1,84 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersonSearchIndexTest {
+
+    private Person[] persons;
+    private PersonSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        persons = new Person[] {
+                person(1, "Müller", "10115", "Berlin", "blau"),
+                person(2, "Schmidt", "10117", "Berlin", "rot"),
+                person(3, "Müller", "80331", "München", "blau"),
+                person(4, "Müller", "10115", "Berlin", "grün"),
+                person(5, null, "1011", "Berlin", "blau"),
+                person(6, "Weber", null, null, null)
+        };
+        index = PersonSearchIndex.of(persons, persons.length);
+    }
+
+    private static Person person(long id, String lastname, String zipcode, String city, String color) {
+        Person person = new Person("First" + id, lastname, zipcode, city, color);
+        person.setId(id);
+        return person;
+    }
+
+    private List<Long> search(PersonQuery query) {
+        return index.search(query, persons, 0, Integer.MAX_VALUE).stream().map(Person::getId).toList();
+    }
+
+    @Test
+    void search_ShouldMatchExactZipcode() {
+        assertEquals(List.of(1L, 4L), search(new PersonQuery("10115", null, null, null, null)));
+    }
+
+    @Test
+    void search_ShouldMatchZipcodePrefixInIdOrder() {
+        assertEquals(List.of(1L, 2L, 4L, 5L), search(new PersonQuery(null, "101", null, null, null)));
+        assertEquals(List.of(1L, 4L), search(new PersonQuery(null, "10115", null, null, null)));
+        assertEquals(List.of(), search(new PersonQuery(null, "9", null, null, null)));
+    }
+
+    @Test
+    void search_ShouldIntersectAllCriteria() {
+        assertEquals(List.of(1L, 4L), search(new PersonQuery(null, "10", "Berlin", "Müller", null)));
+        assertEquals(List.of(1L), search(new PersonQuery(null, "10", "Berlin", "Müller", "blau")));
+        assertEquals(List.of(), search(new PersonQuery("80331", null, "Berlin", null, null)));
+    }
+
+    @Test
+    void search_ShouldNotMatchMissingValues() {
+        assertEquals(List.of(), search(new PersonQuery(null, null, "Hamburg", null, null)));
+        assertEquals(List.of(6L), search(new PersonQuery(null, null, null, "Weber", null)));
+    }
+
+    @Test
+    void search_ShouldReturnEveryoneForEmptyQuery() {
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), search(new PersonQuery("", null, null, "", null)));
+    }
+
+    @Test
+    void search_ShouldOnlyCoverItsSize() {
+        PersonSearchIndex partial = PersonSearchIndex.of(persons, 2);
+
+        assertEquals(2, partial.size());
+        assertEquals(List.of(1L), partial.search(new PersonQuery(null, null, null, "Müller", null), persons, 0, 10)
+                .stream().map(Person::getId).toList());
+    }
+
+    @Test
+    void search_ShouldStartAtPositionAndStopAtLimit() {
+        PersonQuery everyone = new PersonQuery(null, null, null, null, null);
+
+        assertEquals(List.of(3L, 4L), index.search(everyone, persons, 2, 2).stream().map(Person::getId).toList());
+        assertEquals(List.of(), index.search(everyone, persons, 6, 2));
+    }
+}
@@ -8,6 +8,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -29,7 +30,7 @@ class PersonServiceTest {
     @BeforeEach
     void setUp() {
         when(factory.build(PersonDataProviderType.CSV)).thenReturn(provider);
-        personService = new PersonService(factory);
+        personService = new PersonService(factory, PersonDataProviderType.CSV);
 
         testPerson1 = new Person("John", "Doe", "12345", "Berlin", "blau");
         testPerson1.setId(1L);
@@ -148,4 +149,63 @@ class PersonServiceTest {
 
         verify(provider, times(1)).save(newPerson);
     }
+
+    @Test
+    void page_ShouldReturnNextCursorWhenPageIsFull() {
+        when(provider.page(null, 2)).thenReturn(Arrays.asList(testPerson1, testPerson2));
+
+        PersonPage result = personService.page(null, 2);
+
+        assertEquals(2, result.items().size());
+        assertEquals(2L, result.nextCursor());
+    }
+
+    @Test
+    void page_ShouldReturnNoCursorOnLastPage() {
+        when(provider.page(1L, 2)).thenReturn(List.of(testPerson2));
+
+        PersonPage result = personService.page(1L, 2);
+
+        assertEquals(1, result.items().size());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void page_ShouldClampLimit() {
+        when(provider.page(null, PersonService.MAX_PAGE_SIZE)).thenReturn(List.of());
+
+        personService.page(null, Integer.MAX_VALUE);
+
+        verify(provider).page(null, PersonService.MAX_PAGE_SIZE);
+    }
+
+    @Test
+    void pageByColor_ShouldDelegateToProvider() {
+        when(provider.pageByColor("blau", 5L, 10)).thenReturn(List.of(testPerson1));
+
+        PersonPage result = personService.pageByColor("blau", 5L, 10);
+
+        assertEquals(List.of(testPerson1), result.items());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void forEach_ShouldDelegateToProvider() {
+        Consumer<Person> action = person -> { };
+
+        personService.forEach(action);
+
+        verify(provider).forEach(action);
+    }
+
+    @Test
+    void saveAll_ShouldDelegateToProvider() {
+        List<Person> newPersons = List.of(testPerson1, testPerson2);
+        when(provider.saveAll(newPersons)).thenReturn(newPersons);
+
+        List<Person> result = personService.saveAll(newPersons);
+
+        assertEquals(newPersons, result);
+        verify(provider).saveAll(newPersons);
+    }
 }
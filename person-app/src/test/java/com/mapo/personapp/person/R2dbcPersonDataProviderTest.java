@@ -0,0 +1,153 @@
+package com.mapo.personapp.person;
+
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class R2dbcPersonDataProviderTest {
+
+    private R2dbcPersonDataProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        String name = UUID.randomUUID().toString();
+        // the same in-memory database, reached through JDBC for the migrations
+        Flyway.configure().dataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1;MODE=PostgreSQL", "", "").load().migrate();
+        ConnectionFactory connectionFactory = ConnectionFactories.get(
+                "r2dbc:h2:mem:///" + name + "?options=DB_CLOSE_DELAY=-1;MODE=PostgreSQL");
+        DatabaseClient client = DatabaseClient.create(connectionFactory);
+        provider = new R2dbcPersonDataProvider(client);
+    }
+
+    private List<Person> saveThree() {
+        return provider.saveAll(List.of(
+                new Person("John", "Doe", "12345", "Berlin", "blau"),
+                new Person("Jane", "Smith", "54321", "Munich", "rot"),
+                new Person("Max", "Mustermann", "10115", "Berlin", "blau"))).collectList().block();
+    }
+
+    @Test
+    void getProviderType_ShouldReturnDB() {
+        assertEquals(PersonDataProviderType.DB, provider.getProviderType());
+    }
+
+    @Test
+    void saveAll_ShouldAssignIdsFromSequence() {
+        List<Person> saved = saveThree();
+
+        assertEquals(List.of(1L, 2L, 3L), saved.stream().map(Person::getId).toList());
+        Person next = provider.save(new Person("Erika", "Musterfrau", "20095", "Hamburg", "gelb")).block();
+        assertEquals(4L, next.getId());
+    }
+
+    @Test
+    void save_ShouldUpdateExistingPerson() {
+        Person john = saveThree().get(0);
+        john.setCity("Hamburg");
+
+        provider.save(john).block();
+
+        assertEquals("Hamburg", provider.findById(john.getId()).block().getCity());
+    }
+
+    @Test
+    void findById_ShouldErrorWhenNotFound() {
+        StepVerifier.create(provider.findById(42L))
+                .expectError(PersonNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void findByColor_ShouldReturnMatchingPersonsInIdOrder() {
+        saveThree();
+
+        StepVerifier.create(provider.findByColor("blau").map(Person::getLastname))
+                .expectNext("Doe", "Mustermann")
+                .verifyComplete();
+    }
+
+    @Test
+    void all_ShouldEmitOnlyRequestedPersons() {
+        saveThree();
+
+        StepVerifier.create(provider.all(), 1)
+                .expectNextMatches(person -> person.getId() == 1L)
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenRequest(2)
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    void page_ShouldReturnPersonsAfterCursor() {
+        saveThree();
+
+        StepVerifier.create(provider.page(1L, 1).map(Person::getId)).expectNext(2L).verifyComplete();
+        StepVerifier.create(provider.pageByColor("blau", 1L, 10).map(Person::getId)).expectNext(3L).verifyComplete();
+    }
+
+    @Test
+    void search_ShouldMatchEveryCriterion() {
+        saveThree();
+
+        StepVerifier.create(provider.search(new PersonQuery(null, "1", "Berlin", null, "blau"), null, 10).map(Person::getLastname))
+                .expectNext("Doe", "Mustermann")
+                .verifyComplete();
+        StepVerifier.create(provider.search(new PersonQuery("54321", null, null, "Smith", null), null, 10).map(Person::getId))
+                .expectNext(2L)
+                .verifyComplete();
+        StepVerifier.create(provider.search(new PersonQuery(null, null, null, null, null), null, 10).count())
+                .expectNext(3L)
+                .verifyComplete();
+    }
+
+    @Test
+    void search_ShouldPageAfterTheCursor() {
+        saveThree();
+        PersonQuery everyone = new PersonQuery(null, null, null, null, null);
+        List<Long> first = provider.search(everyone, null, 2).map(Person::getId).collectList().block();
+
+        StepVerifier.create(provider.search(everyone, first.get(1), 2).map(Person::getId).collectList())
+                .assertNext(rest -> {
+                    assertEquals(2, first.size());
+                    assertEquals(1, rest.size());
+                    assertTrue(rest.get(0) > first.get(1));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void searchNames_ShouldScanWithoutPostgres() {
+        saveThree();
+
+        StepVerifier.create(provider.searchNames("mu", NameMatch.PREFIX, 10).map(Person::getId))
+                .expectNext(3L)
+                .verifyComplete();
+        StepVerifier.create(provider.searchNames("Smit", NameMatch.FUZZY, 10).map(Person::getId))
+                .expectNext(2L)
+                .verifyComplete();
+    }
+
+    @Test
+    void countBy_ShouldCountPerKey() {
+        saveThree();
+
+        StepVerifier.create(provider.countBy(PersonGrouping.CITY))
+                .expectNext(Map.of("Berlin", 2L, "Munich", 1L))
+                .verifyComplete();
+        StepVerifier.create(provider.countBy(PersonGrouping.ZIPCODE_REGION))
+                .expectNext(Map.of("10", 1L, "12", 1L, "54", 1L))
+                .verifyComplete();
+    }
+}
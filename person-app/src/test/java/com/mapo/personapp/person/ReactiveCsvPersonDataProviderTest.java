@@ -0,0 +1,72 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveCsvPersonDataProviderTest {
+
+    private CsvPersonDataProvider csvPersonDataProvider;
+    private ReactiveCsvPersonDataProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        csvPersonDataProvider = new CsvPersonDataProvider();
+        provider = new ReactiveCsvPersonDataProvider(csvPersonDataProvider);
+    }
+
+    @Test
+    void getProviderType_ShouldReturnCSV() {
+        assertEquals(PersonDataProviderType.CSV, provider.getProviderType());
+    }
+
+    @Test
+    void all_ShouldEmitOnlyRequestedPersons() {
+        StepVerifier.create(provider.all(), 2)
+                .expectNextCount(2)
+                .expectNoEvent(Duration.ofMillis(50))
+                .thenRequest(Long.MAX_VALUE)
+                .expectNextCount(csvPersonDataProvider.all().size() - 2)
+                .verifyComplete();
+    }
+
+    @Test
+    void findById_ShouldErrorWhenNotFound() {
+        StepVerifier.create(provider.findById(0L))
+                .expectError(PersonNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    void findByColor_ShouldEmitIndexedPersons() {
+        StepVerifier.create(provider.findByColor("blau").collectList())
+                .expectNext(csvPersonDataProvider.findByColor("blau"))
+                .verifyComplete();
+    }
+
+    @Test
+    void searchAndCounts_ShouldMatchBlockingProvider() {
+        PersonQuery query = new PersonQuery(null, null, null, null, "blau");
+
+        StepVerifier.create(provider.search(query, null, 100).collectList())
+                .expectNext(csvPersonDataProvider.search(query, null, 100))
+                .verifyComplete();
+        StepVerifier.create(provider.searchNames("Mü", NameMatch.PREFIX, 10).collectList())
+                .expectNext(csvPersonDataProvider.searchNames("Mü", NameMatch.PREFIX, 10))
+                .verifyComplete();
+        StepVerifier.create(provider.countBy(PersonGrouping.COLOR))
+                .expectNext(csvPersonDataProvider.countBy(PersonGrouping.COLOR))
+                .verifyComplete();
+    }
+
+    @Test
+    void save_ShouldErrorForClasspathResource() {
+        StepVerifier.create(provider.save(new Person("Test", "Person", "12345", "TestCity", "blau")))
+                .expectError(ReadOnlyProviderException.class)
+                .verify();
+    }
+}
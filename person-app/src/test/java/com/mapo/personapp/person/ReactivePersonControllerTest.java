@@ -0,0 +1,160 @@
+package com.mapo.personapp.person;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactivePersonControllerTest {
+
+    @Mock
+    private ReactivePersonService personService;
+
+    private WebTestClient client;
+
+    private Person testPerson1;
+    private Person testPerson2;
+
+    @BeforeEach
+    void setUp() {
+        client = WebTestClient.bindToController(new ReactivePersonController(personService))
+                .controllerAdvice(new PersonExceptionHandler())
+                .build();
+
+        testPerson1 = new Person("John", "Doe", "12345", "Berlin", "blau");
+        testPerson1.setId(1L);
+
+        testPerson2 = new Person("Jane", "Smith", "54321", "Munich", "rot");
+        testPerson2.setId(2L);
+    }
+
+    @Test
+    void all_ShouldReturnJsonArray() {
+        when(personService.all()).thenReturn(Flux.just(testPerson1, testPerson2));
+
+        client.get().uri("/persons").accept(MediaType.APPLICATION_JSON).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[1].lastname").isEqualTo("Smith");
+    }
+
+    @Test
+    void export_ShouldStreamOnePersonPerLine() {
+        when(personService.all()).thenReturn(Flux.just(testPerson1, testPerson2));
+
+        Flux<Person> body = client.get().uri("/persons").accept(MediaType.APPLICATION_NDJSON).exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Person.class)
+                .getResponseBody();
+
+        StepVerifier.create(body.map(Person::getId)).expectNext(1L, 2L).verifyComplete();
+    }
+
+    @Test
+    void byId_ShouldReturnPerson() {
+        when(personService.findById(1L)).thenReturn(Mono.just(testPerson1));
+
+        client.get().uri("/persons/1").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.firstname").isEqualTo("John");
+    }
+
+    @Test
+    void page_ShouldReturnItemsAndNextCursor() {
+        when(personService.page(null, 1)).thenReturn(Mono.just(PersonPage.of(List.of(testPerson1), 1)));
+
+        client.get().uri("/persons?limit=1").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items[0].id").isEqualTo(1)
+                .jsonPath("$.nextCursor").isEqualTo(1);
+    }
+
+    @Test
+    void byColor_ShouldReturnMatchingPersons() {
+        when(personService.findByColor("rot")).thenReturn(Flux.just(testPerson2));
+
+        client.get().uri("/persons/color/rot").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].lastname").isEqualTo("Smith");
+    }
+
+    @Test
+    void search_ShouldNotBeTakenForAnId() {
+        when(personService.search(new PersonQuery(null, "12", "Berlin", null, null), null, 100))
+                .thenReturn(Mono.just(PersonPage.of(List.of(testPerson1), 100)));
+
+        client.get().uri("/persons/search?zipcodePrefix=12&city=Berlin").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items.length()").isEqualTo(1)
+                .jsonPath("$.items[0].lastname").isEqualTo("Doe");
+    }
+
+    @Test
+    void searchNames_ShouldPassMatchAndLimit() {
+        when(personService.searchNames("Smit", NameMatch.FUZZY, 5)).thenReturn(Flux.just(testPerson2));
+
+        client.get().uri("/persons/names?q=Smit&match=FUZZY&limit=5").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].id").isEqualTo(2);
+    }
+
+    @Test
+    void counts_ShouldReturnCountPerKey() {
+        when(personService.countBy(PersonGrouping.COLOR)).thenReturn(Mono.just(Map.of("blau", 1L, "rot", 1L)));
+        when(personService.countBy(PersonGrouping.ZIPCODE_REGION)).thenReturn(Mono.just(Map.of("12", 1L)));
+
+        client.get().uri("/persons/counts/color").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.blau").isEqualTo(1)
+                .jsonPath("$.rot").isEqualTo(1);
+        client.get().uri("/persons/counts/zipcode-region").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.12").isEqualTo(1);
+    }
+
+    @Test
+    void newEmployee_ShouldReturnSavedPerson() {
+        when(personService.save(any(Person.class))).thenReturn(Mono.just(testPerson1));
+
+        client.post().uri("/persons").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"firstname\":\"John\",\"lastname\":\"Doe\",\"zipcode\":\"12345\",\"city\":\"Berlin\",\"color\":\"blau\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(1);
+    }
+
+    @Test
+    void newEmployees_ShouldAnswerMethodNotAllowedForReadOnlyProvider() {
+        when(personService.saveAll(any())).thenReturn(Flux.error(new ReadOnlyProviderException("The CSV provider is read-only")));
+
+        client.post().uri("/persons/batch").contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"firstname\":\"John\",\"lastname\":\"Doe\",\"zipcode\":\"12345\",\"city\":\"Berlin\",\"color\":\"blau\"}]")
+                .exchange()
+                .expectStatus().isEqualTo(405)
+                .expectBody()
+                .jsonPath("$.detail").isEqualTo("The CSV provider is read-only");
+    }
+}
@@ -0,0 +1,204 @@
+package com.mapo.personapp.person;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.health.contributor.Status;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+class TieredPersonDataProviderTest {
+
+    private JdbcDataSource dataSource;
+    private TieredPersonDataProvider provider;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (provider != null) {
+            provider.close();
+        }
+    }
+
+    private TieredPersonDataProvider provider(boolean seedFromCsv) throws Exception {
+        ByteArrayResource csv = new ByteArrayResource(
+                "Müller, Hans, 67742 Lauterecken, 1\nPetersen, Peter, 18439 Stralsund, 2\nBart, Bertram, 12313 Wasweißich, 1\n"
+                        .getBytes(StandardCharsets.UTF_8));
+        provider = new TieredPersonDataProvider(dataSource, new CsvImportService(dataSource), seedFromCsv, csv, 100, 10);
+        return provider;
+    }
+
+    private String queryString(String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(sql)) {
+            return result.next() ? result.getString(1) : null;
+        }
+    }
+
+    @Test
+    void getProviderType_ShouldReturnTiered() throws Exception {
+        assertEquals(PersonDataProviderType.TIERED, provider(false).getProviderType());
+    }
+
+    @Test
+    void constructor_ShouldSeedEmptyTableFromCsv() throws Exception {
+        TieredPersonDataProvider provider = provider(true);
+
+        assertEquals(3, provider.all().size());
+        assertEquals("Bart", provider.findById(3L).getLastname());
+        assertEquals(List.of(1L, 3L), provider.findByColor("blau").stream().map(Person::getId).toList());
+    }
+
+    @Test
+    void save_ShouldBeReadableAtOnceAndStoredBehind() throws Exception {
+        TieredPersonDataProvider provider = provider(true);
+
+        Person saved = provider.save(new Person("Test", "Person", "12345", "TestCity", "rot"));
+
+        assertTrue(saved.getId() > 3L);
+        assertEquals("Person", provider.findById(saved.getId()).getLastname());
+        assertEquals(List.of(saved.getId()), provider.findByColor("rot").stream().map(Person::getId).toList());
+        assertTrue(provider.flush());
+        assertEquals("Person", queryString("select lastname from person where id = " + saved.getId()));
+        assertEquals(0, provider.pendingWrites());
+    }
+
+    @Test
+    void save_ShouldKeepRetryingAfterTransientFailures() throws Exception {
+        dataSource = spy(dataSource);
+        TieredPersonDataProvider provider = provider(true);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        provider.bindTo(registry);
+        // allocates a block of ids, so the next save does not need the database
+        provider.save(new Person("First", "Person", "12345", "TestCity", "rot"));
+        assertTrue(provider.flush());
+        doThrow(new SQLTransientConnectionException("Connection refused", "08001")).when(dataSource).getConnection();
+
+        Person saved = provider.save(new Person("Test", "Person", "12345", "TestCity", "rot"));
+
+        assertFalse(provider.flush(500, TimeUnit.MILLISECONDS));
+        assertTrue(provider.failedAttempts() > 0);
+        assertEquals(Status.DOWN, provider.health().getStatus());
+        assertEquals(1L, provider.health().getDetails().get("pendingWrites"));
+        assertEquals(1, registry.get("person.tiered.pending").gauge().value());
+        assertTrue(registry.get("person.tiered.write.failures").functionCounter().count() > 0);
+        doCallRealMethod().when(dataSource).getConnection();
+        assertTrue(provider.flush(5, TimeUnit.SECONDS));
+        assertEquals("Person", queryString("select lastname from person where id = " + saved.getId()));
+        assertEquals(Status.UP, provider.health().getStatus());
+        assertEquals(0, provider.pendingWrites());
+        assertEquals(0, provider.deadLetteredWrites());
+    }
+
+    @Test
+    void save_ShouldDeadLetterRowsTheDatabaseRejectsAndStoreTheRest() throws Exception {
+        TieredPersonDataProvider provider = provider(true);
+        MeterRegistry registry = new SimpleMeterRegistry();
+        provider.bindTo(registry);
+
+        List<Person> saved = provider.saveAll(List.of(new Person("Good", "Before", "12345", "TestCity", "rot"),
+                new Person("Bad", "x".repeat(256), "12345", "TestCity", "rot"),
+                new Person("Good", "After", "12345", "TestCity", "rot")));
+
+        assertTrue(provider.flush(5, TimeUnit.SECONDS));
+        assertEquals("Before", queryString("select lastname from person where id = " + saved.get(0).getId()));
+        assertNull(queryString("select lastname from person where id = " + saved.get(1).getId()));
+        assertEquals("After", queryString("select lastname from person where id = " + saved.get(2).getId()));
+        assertEquals(1, provider.deadLetteredWrites());
+        assertEquals(1, registry.get("person.tiered.write.dead-lettered").functionCounter().count());
+        assertEquals(Status.UP, provider.health().getStatus());
+        assertTrue(((String) provider.health().getDetails().get("lastDeadLetter")).startsWith("22001"));
+        assertEquals(0, provider.pendingWrites());
+        assertEquals("Bad", provider.findById(saved.get(1).getId()).getFirstname());
+    }
+
+    @Test
+    void isTransient_ShouldOnlyAcceptFailuresThatMayPass() {
+        assertTrue(TieredPersonDataProvider.isTransient(new SQLException("connection reset", "08006")));
+        assertTrue(TieredPersonDataProvider.isTransient(new SQLException("could not serialize", "40001")));
+        assertTrue(TieredPersonDataProvider.isTransient(new SQLException("terminating connection", "57P01")));
+        assertTrue(TieredPersonDataProvider.isTransient(new SQLTimeoutException("timeout")));
+        assertFalse(TieredPersonDataProvider.isTransient(new SQLException("value too long", "22001")));
+        assertFalse(TieredPersonDataProvider.isTransient(new SQLException("duplicate key", "23505")));
+        SQLException batch = new SQLException("batch failed");
+        batch.setNextException(new SQLException("connection reset", "08006"));
+        assertTrue(TieredPersonDataProvider.isTransient(batch));
+    }
+
+    @Test
+    void version_ShouldChangeWithEverySavedPerson() throws Exception {
+        TieredPersonDataProvider provider = provider(true);
+        long loaded = provider.version().getAsLong();
+
+        provider.saveAll(List.of(new Person("Test", "Person", "12345", "TestCity", "rot"),
+                new Person("Other", "Person", "12345", "TestCity", "blau")));
+
+        assertEquals(loaded + 2, provider.version().getAsLong());
+    }
+
+    @Test
+    void save_ShouldUpdateExistingPersonAndMoveItBetweenColors() throws Exception {
+        TieredPersonDataProvider provider = provider(true);
+        Person hans = new Person("Hans", "Müller", "67742", "Lauterecken", "gelb");
+        hans.setId(1L);
+
+        provider.save(hans);
+
+        assertEquals(List.of(3L), provider.findByColor("blau").stream().map(Person::getId).toList());
+        assertEquals(List.of(1L), provider.findByColor("gelb").stream().map(Person::getId).toList());
+        assertTrue(provider.flush());
+        assertEquals("gelb", queryString("select color from person where id = 1"));
+    }
+
+    @Test
+    void save_ShouldNotExposeCallerMutations() throws Exception {
+        TieredPersonDataProvider provider = provider(false);
+        Person person = new Person("Test", "Person", "12345", "TestCity", "rot");
+
+        provider.save(person);
+        person.setCity("Elsewhere");
+
+        assertEquals("TestCity", provider.findById(person.getId()).getCity());
+    }
+
+    @Test
+    void page_ShouldReturnPersonsAfterCursor() throws Exception {
+        TieredPersonDataProvider provider = provider(true);
+
+        assertEquals(List.of(2L, 3L), provider.page(1L, 5).stream().map(Person::getId).toList());
+        assertEquals(List.of(3L), provider.pageByColor("blau", 1L, 5).stream().map(Person::getId).toList());
+        assertTrue(provider.pageByColor("nonexistentcolor", null, 5).isEmpty());
+    }
+
+    @Test
+    void findById_ShouldThrowExceptionWhenNotFound() throws Exception {
+        TieredPersonDataProvider provider = provider(false);
+
+        assertThrows(PersonNotFoundException.class, () -> provider.findById(1L));
+    }
+}